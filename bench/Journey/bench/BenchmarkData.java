@@ -0,0 +1,69 @@
+package Journey.bench;
+
+import Journey.file.FileLoader;
+import Journey.game.GameProperties;
+import Journey.game.MapGraph;
+import properties_manager.PropertiesManager;
+
+/**
+ * Data shared by the benchmarks. Loads the properties of the game as Main 
+ * does, and the graph of the map from the 'data' folder. The benchmarks must
+ * be run from the root folder of the project.
+ * 
+ * @author 
+ *          Anthony G. Musco
+ * <dt><b>Date Created</b><dd>
+ *          Dec-14-2014
+ * <dt><b>Class</b><dd>
+ *          CSE 219
+ */
+public class BenchmarkData {
+    
+    /**
+     * Graph of the map, loaded once.
+     */
+    private static MapGraph graph;
+    
+    /**
+     * Loads the properties of the game, if they have not been loaded yet.
+     * 
+     * @throws Exception 
+     *          Exception thrown if the properties cannot be loaded.
+     */
+    public static synchronized void initProperties() throws Exception {
+        
+        PropertiesManager props = PropertiesManager.getPropertiesManager();
+        if(props.getProperty(GameProperties.MAP_FILE_NAME) != null)
+            return;
+        
+        props.addProperty(GameProperties.PROPERTIES_FILE_NAME, "properties.xml");
+        props.addProperty(GameProperties.SCHEMA_FILE_NAME, "properties_schema.xsd");
+        props.addProperty(GameProperties.DATA_PATH, "./data/");
+        props.loadProperties("properties.xml", "properties_schema.xsd");
+        
+    }
+    
+    /**
+     * Returns the graph of the map.
+     * 
+     * @return 
+     *          The graph of the map in 'data/map.xml'.
+     * @throws Exception 
+     *          Exception thrown if the properties or map cannot be loaded.
+     */
+    public static synchronized MapGraph getGraph() throws Exception {
+        
+        if(graph == null) {
+            
+            initProperties();
+            graph = FileLoader.loadGraph();
+            if(graph == null)
+                throw new IllegalStateException("Map could not be loaded.");
+            
+        }
+        
+        return graph;
+        
+    }
+    
+}
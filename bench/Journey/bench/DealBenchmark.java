@@ -0,0 +1,58 @@
+package Journey.bench;
+
+import Journey.game.GameData;
+import Journey.game.MapGraph;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmarks shuffling the deck and dealing the hands of a game with 
+ * GameData.dealHands(), which deals with a CardDealer exactly as 
+ * GameData.dealCards() does, without the card sprites and their animation.
+ * 
+ * @author 
+ *          Anthony G. Musco
+ * <dt><b>Date Created</b><dd>
+ *          Dec-14-2014
+ * <dt><b>Class</b><dd>
+ *          CSE 219
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class DealBenchmark {
+    
+    /**
+     * Number of players dealt a hand.
+     */
+    @Param({"1", "3", "6"})
+    public int players;
+    
+    private MapGraph graph;
+    private SplittableRandom random;
+    
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        
+        graph = BenchmarkData.getGraph();
+        random = new SplittableRandom(42);
+        
+    }
+    
+    @Benchmark
+    public int[][] dealHands() {
+        
+        return GameData.dealHands(graph, players, random);
+        
+    }
+    
+}
@@ -0,0 +1,55 @@
+package Journey.bench;
+
+import Journey.file.FileLoader;
+import Journey.game.MapGraph;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmarks parsing 'data/map.xml', with the streaming reader used by the
+ * game and with the DOM parse it replaced. FileLoader.loadGraph() performs the
+ * same parse as FileLoader.loadMap(), which then builds the CityNode sprites
+ * and their images on top of the graph; the sprites require a JavaFX toolkit
+ * and are left out.
+ * 
+ * @author 
+ *          Anthony G. Musco
+ * <dt><b>Date Created</b><dd>
+ *          Dec-14-2014
+ * <dt><b>Class</b><dd>
+ *          CSE 219
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class MapLoadBenchmark {
+    
+    /**
+     * Way the map file is parsed.
+     */
+    @Param({"STREAM", "DOM"})
+    public FileLoader.ParseMode mode;
+    
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        
+        BenchmarkData.initProperties();
+        
+    }
+    
+    @Benchmark
+    public MapGraph loadGraph() {
+        
+        return FileLoader.loadGraph(mode);
+        
+    }
+    
+}
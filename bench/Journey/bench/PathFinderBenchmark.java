@@ -0,0 +1,90 @@
+package Journey.bench;
+
+import Journey.game.GameData;
+import Journey.game.MapGraph;
+import Journey.game.PathFinder;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmarks the route of a computer player through hands of one to nine
+ * cards, as planned by PathFinder.findShortestPath() at the start of each of
+ * its turns. The hands are dealt as GameData deals them, and the first card
+ * of each hand is the home city.
+ * 
+ * @author 
+ *          Anthony G. Musco
+ * <dt><b>Date Created</b><dd>
+ *          Dec-14-2014
+ * <dt><b>Class</b><dd>
+ *          CSE 219
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PathFinderBenchmark {
+    
+    /**
+     * Number of hands the benchmark cycles through.
+     */
+    private static final int HANDS = 64;
+    
+    /**
+     * Number of cards left in the hand, including the home city.
+     */
+    @Param({"1", "2", "3", "4", "5", "6", "7", "8", "9"})
+    public int cards;
+    
+    /**
+     * Search used by the PathFinder.
+     */
+    @Param({"TABLE", "A_STAR"})
+    public PathFinder.SearchMode mode;
+    
+    private PathFinder pathFinder;
+    private int[][] hands;
+    private int[] origins;
+    private int next;
+    
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        
+        MapGraph graph = BenchmarkData.getGraph();
+        pathFinder = new PathFinder(graph).withSearchMode(mode);
+        
+        /* Deal the hands, keeping the home city and the last cards. */
+        SplittableRandom random = new SplittableRandom(42);
+        hands = new int[HANDS][];
+        origins = new int[HANDS];
+        for(int h = 0; h < HANDS; h++) {
+            
+            int[] hand = GameData.dealHands(graph, 1, random)[0];
+            int[] kept = new int[cards];
+            kept[0] = hand[0];
+            System.arraycopy(hand, hand.length - (cards - 1), kept, 1, cards - 1);
+            hands[h] = kept;
+            origins[h] = random.nextInt(graph.size());
+            
+        }
+        
+    }
+    
+    @Benchmark
+    public int[] findShortestPath() {
+        
+        int h = next;
+        next = (h + 1) % HANDS;
+        return pathFinder.findShortestPath(origins[h], hands[h], hands[h][0]);
+        
+    }
+    
+}
@@ -0,0 +1,110 @@
+package Journey.bench;
+
+import Journey.file.SavedGame;
+import Journey.game.ComputerStrategy;
+import Journey.game.EngineState;
+import Journey.game.GameData;
+import Journey.game.GameEngine;
+import Journey.game.MapGraph;
+import Journey.game.Move;
+import Journey.game.PathFinder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Benchmarks saving and loading a game in progress with SavedGame.write() and
+ * SavedGame.read(), as GameManager.saveGame() and loadGame() do. The game is
+ * saved to a temporary file, so the file system is included. The game is the
+ * EngineState of a four player game with the turns played so far; the names
+ * and colors of the players are saved as the game saves them.
+ * 
+ * @author 
+ *          Anthony G. Musco
+ * <dt><b>Date Created</b><dd>
+ *          Dec-14-2014
+ * <dt><b>Class</b><dd>
+ *          CSE 219
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SaveLoadBenchmark {
+    
+    /**
+     * Number of moves played before the game is saved.
+     */
+    private static final int MOVES = 100;
+    
+    private MapGraph graph;
+    private SavedGame game;
+    private Path saveFile, loadFile;
+    
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        
+        /* Play part of a game between computer players. */
+        graph = BenchmarkData.getGraph();
+        SplittableRandom random = new SplittableRandom(42);
+        EngineState state = new EngineState(graph, GameData.dealHands(graph, 4, random));
+        ComputerStrategy strategy = new ComputerStrategy(new PathFinder(graph), 4);
+        List<SavedGame.TurnRecord> turns = new ArrayList<>();
+        for(int m = 0; m < MOVES && !state.isOver(); m++) {
+            
+            Move move = GameEngine.needsRoll(state) 
+                ? Move.roll(random.nextInt(GameEngine.DIE_SIDES) + 1)
+                : strategy.nextMove(state);
+            int seat = state.getCurrentPlayer();
+            EngineState next = GameEngine.apply(state, move);
+            turns.add(new SavedGame.TurnRecord(state.getTurn(), seat, 
+                state.getPosition(seat), next.getPosition(seat), 
+                (move.getType() == Move.Type.ROLL) ? "Rolled a " + move.getDieValue() 
+                    : move.getType().name(), move));
+            state = next;
+            
+        }
+        
+        game = new SavedGame(42, new String[] { "Player 1", "Player 2", "Player 3", "Player 4" },
+            new boolean[] { false, true, true, true }, new int[] { 0, 1, 2, 3 }, state, turns);
+        saveFile = Files.createTempFile("journey", ".jte");
+        loadFile = Files.createTempFile("journey", ".jte");
+        game.write(loadFile);
+        
+    }
+    
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        
+        Files.deleteIfExists(saveFile);
+        Files.deleteIfExists(loadFile);
+        
+    }
+    
+    @Benchmark
+    public Path save() throws Exception {
+        
+        game.write(saveFile);
+        return saveFile;
+        
+    }
+    
+    @Benchmark
+    public SavedGame load() throws Exception {
+        
+        return SavedGame.read(loadFile, graph);
+        
+    }
+    
+}
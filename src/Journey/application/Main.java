@@ -71,6 +71,9 @@ public class Main extends Application {
         /* Show the stage, begin the game*/
         primaryStage.show();
         
+        /* Offer the game left unfinished by the last session. */
+        root.getGameManager().offerRecovery();
+        
     }
     
     /**
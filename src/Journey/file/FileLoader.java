@@ -4,15 +4,23 @@ import Journey.game.CityNode;
 import Journey.game.Edge;
 import Journey.game.Edge.EdgeType;
 import Journey.game.GameProperties;
+import Journey.game.MapGraph;
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Map;
-import javafx.scene.image.Image;
 import javafx.scene.paint.Color;
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 import org.w3c.dom.Node;
@@ -33,25 +41,33 @@ import xml_utilities.InvalidXMLFileFormatException;
  */
 public class FileLoader {
     
-    static String dataPath;
-    static String mapFile;
-    static String nodeTag;
-    static String name;
-    static String quarter;
-    static String color;
-    static String isFlight;  
-    static String xPos;     
-    static String yPos;
-    static String flightX;
-    static String flightY;
-    static String cardFrontFile;
-    static String cardBackFile;
-    static String edgesTag;
-    static String instructions;   
+    /**
+     * Enumeration listing the ways the map file can be parsed.
+     *     STREAM:  The file is read in a single pass with a StAX stream 
+     *              reader, building the cities and edges as their elements 
+     *              are read.
+     *     DOM:     The whole file is parsed into a DOM Document first, which 
+     *              is then walked.
+     */
+    public enum ParseMode { STREAM, DOM };
+    
+    /**
+     * Factory of the stream readers of the map file. Looking up the factory 
+     * costs about as much as reading the map, so it is done once.
+     */
+    private static final XMLInputFactory XML_INPUT = XMLInputFactory.newInstance();
+    static {
+        
+        XML_INPUT.setProperty(XMLInputFactory.IS_COALESCING, true);
+        XML_INPUT.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        
+    }
     
     /**
      * Static method which constructs the list of CityNodes from the XML file
-     * located in the 'data' folder. If any error occurs, null is returned.
+     * located in the 'data' folder. The graph of the map is built first, and
+     * each CityNode is then built from, and bound to, its city in the graph.
+     * If any error occurs, null is returned.
      * 
      * @return
      *          An ArrayList of CityNodes containing the list of CityNodes 
@@ -61,42 +77,17 @@ public class FileLoader {
      
         /* Create the list of CityNodes  */
         HashMap<String, CityNode> list = new HashMap<>();
-        PropertiesManager props = PropertiesManager.getPropertiesManager();
-        
-        /* Get path to the file and strings for parsing tags. */
-        dataPath = props.getProperty(GameProperties.DATA_PATH);
-        mapFile = props.getProperty(GameProperties.MAP_FILE_NAME);
-        nodeTag = props.getProperty(GameProperties.CITY_NODE_TAG);
-        name = props.getProperty(GameProperties.NAME_TAG);
-        quarter = props.getProperty(GameProperties.QUARTER_TAG);
-        color = props.getProperty(GameProperties.COLOR_TAG);
-        isFlight = props.getProperty(GameProperties.FLIGHT_TAG);
-        flightX = props.getProperty(GameProperties.FLIGHTX_TAG);
-        flightY = props.getProperty(GameProperties.FLIGHTY_TAG);
-        xPos = props.getProperty(GameProperties.XPOS_TAG);
-        yPos = props.getProperty(GameProperties.YPOS_TAG);
-        cardFrontFile = props.getProperty(GameProperties.CARD_FRONT_TAG);
-        cardBackFile = props.getProperty(GameProperties.CARD_BACK_TAG);
-        edgesTag = props.getProperty(GameProperties.EDGES_TAG);
-        instructions = props.getProperty(GameProperties.INSTRUCTIONS_TAG);
         
         try {
             
-            /* Build the document to parse the City Nodes. */
-            DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-            DocumentBuilder builder = factory.newDocumentBuilder();
-            Document doc = builder.parse("./data/map.xml");
+            /* Build the graph, remembering the card images of each city. */
+            ArrayList<String[]> cardFiles = new ArrayList<>();
+            MapGraph graph = readGraph(cardFiles, ParseMode.STREAM);
             
-            /* Get the list of CityNodes. */
-            NodeList cities = doc.getElementsByTagName("CityNode");
-            System.out.println(cities.getLength());
-
-            /* Loop through each CityNode in the list. */
-            for(int i = 0; i < cities.getLength(); i++) {
+            /* Build a CityNode for each city in the graph. */
+            for(int i = 0; i < graph.size(); i++) {
                 
-                /* Add the new CityNode to the list. */
-                Node cityNode  = cities.item(i);
-                CityNode cn = buildCityNode(cityNode);
+                CityNode cn = buildCityNode(graph, i, cardFiles.get(i));
                 list.put(cn.getName(), cn);
                 
             }     
@@ -120,37 +111,305 @@ public class FileLoader {
             ex.printStackTrace();
         } catch (InvalidXMLFileFormatException ex) {
             ex.printStackTrace();
+        } catch (XMLStreamException ex) {
+            ex.printStackTrace();
         }
     
         /* If an error is encountered, return null. */
         return null;
         
     }
+    
+    /**
+     * Static method which constructs the graph of the map from the XML file
+     * located in the 'data' folder, without building any JavaFX objects. Used
+     * to route, plan and simulate games without a toolkit. If any error 
+     * occurs, null is returned.
+     * 
+     * @return 
+     *          The graph of the map.
+     */
+    public static MapGraph loadGraph() {
+        
+        return loadGraph(ParseMode.STREAM);
+        
+    }
+    
+    /**
+     * Constructs the graph of the map from the XML file located in the 'data'
+     * folder, parsing the file the indicated way. If any error occurs, null 
+     * is returned.
+     * 
+     * @param mode
+     *          The way the file is parsed.
+     * @return 
+     *          The graph of the map.
+     */
+    public static MapGraph loadGraph(ParseMode mode) {
+        
+        try {
+            
+            return readGraph(null, mode);
+            
+        } catch (SAXException ex) {
+            ex.printStackTrace();
+        } catch (IOException ex) {
+            ex.printStackTrace();
+        } catch (ParserConfigurationException ex) {
+            ex.printStackTrace();
+        } catch (InvalidXMLFileFormatException ex) {
+            ex.printStackTrace();
+        } catch (XMLStreamException ex) {
+            ex.printStackTrace();
+        }
+        
+        /* If an error is encountered, return null. */
+        return null;
+        
+    }
+    
+    /**
+     * Reads the map file into a MapGraph.
+     * 
+     * @param cardFiles
+     *          List receiving the front and back card image file names of
+     *          each city, by ID, or null if they are not needed.
+     * @param mode
+     *          The way the file is parsed.
+     * @return 
+     *          The graph of the map.
+     */
+    private static MapGraph readGraph(ArrayList<String[]> cardFiles, ParseMode mode) 
+      throws SAXException, IOException, ParserConfigurationException, 
+      InvalidXMLFileFormatException, XMLStreamException {
+        
+        /* Get path to the file and strings for parsing tags. */
+        MapTags tags = new MapTags();
+        
+        if(mode == ParseMode.DOM)
+            return readDocument(tags, cardFiles);
+        
+        MapGraph.Builder graph = new MapGraph.Builder();
+        try (InputStream in = new BufferedInputStream(
+          new FileInputStream(tags.getMapFile()))) {
+            
+            XMLStreamReader reader = XML_INPUT.createXMLStreamReader(in);
+            try {
+                
+                /* Add each CityNode to the graph as it is read. */
+                while(reader.hasNext()) {
+                    
+                    if(reader.next() == XMLStreamConstants.START_ELEMENT
+                      && reader.getLocalName().equals(tags.nodeTag)) {
+                        
+                        String[] files = readCity(reader, tags, graph);
+                        if(cardFiles != null)
+                            cardFiles.add(files);
+                        
+                    }
+                    
+                }
+                
+            } finally {
+                
+                reader.close();
+                
+            }
+            
+        }
+        
+        return graph.build();
+        
+    }
+    
+    /**
+     * Parses the map file into a DOM Document, then reads each CityNode of 
+     * the Document into a MapGraph.
+     * 
+     * @param tags
+     *          Names of the tags of the map file.
+     * @param cardFiles
+     *          List receiving the front and back card image file names of
+     *          each city, by ID, or null if they are not needed.
+     * @return 
+     *          The graph of the map.
+     */
+    private static MapGraph readDocument(MapTags tags, ArrayList<String[]> cardFiles) 
+      throws SAXException, IOException, ParserConfigurationException, 
+      InvalidXMLFileFormatException {
+        
+        /* Build the document to parse the City Nodes. */
+        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+        DocumentBuilder builder = factory.newDocumentBuilder();
+        Document doc = builder.parse(tags.getMapFile());
 
+        /* Get the list of CityNodes. */
+        NodeList cities = doc.getElementsByTagName(tags.nodeTag);
+
+        /* Add each CityNode in the list to the graph. */
+        MapGraph.Builder graph = new MapGraph.Builder();
+        for(int i = 0; i < cities.getLength(); i++) {
+
+            String[] files = readCity(cities.item(i), tags, graph);
+            if(cardFiles != null)
+                cardFiles.add(files);
+
+        }
+        
+        return graph.build();
+        
+    }
+    
     /**
-     * Builds and returns a CityNode object based on an XML Node. If an error
-     * is encountered, an Exception is thrown.cityNode@param c
-     *          XML Node describing the attributes of the CityNode.
+     * Adds the city whose element the reader is at, and its edges, to the 
+     * graph. The reader is left at the end of the element.
+     * 
+     * @param reader
+     *          Reader at the start of the element of the CityNode.
+     * @param tags
+     *          Names of the tags of the map file.
+     * @param graph
+     *          Builder of the graph to which the city is added.
      * @return 
-     *          A constructed CityNode object based on the attributes in the
-     *          XML Node.
+     *          The names of the front and back card image files of the city.
      */
-    private static CityNode buildCityNode(Node cityNode) throws InvalidXMLFileFormatException {
+    private static String[] readCity(XMLStreamReader reader, MapTags tags, 
+      MapGraph.Builder graph) throws XMLStreamException {
         
-        PropertiesManager props = PropertiesManager.getPropertiesManager();
-        String imgPath = props.getProperty(GameProperties.IMG_PATH);
+        byte cityColor = -1;
+        String cityName = null;
+        String[] cardFiles = new String[2];
+        double cityXPos = 0;
+        double cityYPos = 0;
+        int quarterVal = 0;
+        double flightXPos = 0;
+        double flightYPos = 0;
+        boolean cityIsFlight = false;
+        ArrayList<String> edgeNames = new ArrayList<>();
+        ArrayList<Byte> edgeTypes = new ArrayList<>();
+        
+        /* Read each attribute of the CityNode, up to its end. */
+        while(reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+            
+            String tagName = reader.getLocalName();
+            if(tagName.equals(tags.edges)) {
+                
+                /* Read each edge, up to the end of the edges. */
+                while(reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+                    
+                    String edgeName = null;
+                    byte edgeType = MapGraph.ROAD;
+                    while(reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+                        
+                        switch(reader.getLocalName()) {
+                            case "name":
+                                edgeName = reader.getElementText();
+                                break;
+                            case "type":
+                                if(EdgeType.SEA.name().equals(reader.getElementText()))
+                                    edgeType = MapGraph.SEA;
+                                break;
+                            default:
+                                skipElement(reader);
+                                break;
+                        }
+                        
+                    }
+                    
+                    edgeNames.add(edgeName);
+                    edgeTypes.add(edgeType);
+                    
+                }
+                
+            }
+            else if(tagName.equals(tags.instructions)) {
+                
+                /* IMPLEMENT */
+                skipElement(reader);
+                
+            }
+            else {
+                
+                String text = reader.getElementText();
+                if(tagName.equals(tags.name))
+                    cityName = text;
+                else if(tagName.equals(tags.quarter))
+                    quarterVal = Integer.parseInt(text);
+                else if(tagName.equals(tags.color))
+                    cityColor = MapGraph.colorOf(text);
+                else if(tagName.equals(tags.isFlight))
+                    cityIsFlight = Boolean.valueOf(text);
+                else if(tagName.equals(tags.xPos))
+                    cityXPos = Double.parseDouble(text);
+                else if(tagName.equals(tags.yPos))
+                    cityYPos = Double.parseDouble(text);
+                else if(tagName.equals(tags.flightX))
+                    flightXPos = Double.parseDouble(text);
+                else if(tagName.equals(tags.flightY))
+                    flightYPos = Double.parseDouble(text);
+                else if(tagName.equals(tags.cardFrontFile))
+                    cardFiles[0] = text;
+                else if(tagName.equals(tags.cardBackFile))
+                    cardFiles[1] = text;
+                
+            }
+            
+        }
+        
+        /* Add the city, then its edges, to the graph. */
+        int id = graph.addCity(cityName, cityColor, quarterVal, cityIsFlight, 
+            cityXPos, cityYPos, flightXPos, flightYPos);
+        for(int k = 0; k < edgeNames.size(); k++)
+            graph.addEdge(id, edgeNames.get(k), edgeTypes.get(k));
+        
+        return cardFiles;
+        
+    }
+    
+    /**
+     * Skips the element whose start the reader is at, and all its children.
+     */
+    private static void skipElement(XMLStreamReader reader) throws XMLStreamException {
+        
+        for(int depth = 1; depth > 0; ) {
+            
+            int event = reader.next();
+            if(event == XMLStreamConstants.START_ELEMENT)
+                depth++;
+            else if(event == XMLStreamConstants.END_ELEMENT)
+                depth--;
+            
+        }
+        
+    }
+    
+    /**
+     * Adds the city described by an XML Node, and its edges, to the graph. If
+     * an error is encountered, an Exception is thrown.
+     * 
+     * @param cityNode
+     *          XML Node describing the attributes of the CityNode.
+     * @param tags
+     *          Names of the tags of the map file.
+     * @param graph
+     *          Builder of the graph to which the city is added.
+     * @return 
+     *          The names of the front and back card image files of the city.
+     */
+    private static String[] readCity(Node cityNode, MapTags tags, MapGraph.Builder graph) 
+      throws InvalidXMLFileFormatException {
         
-        Color cityColor = null;
+        byte cityColor = -1;
         String cityName = null;
-        Image cardFront = null;
-        Image cardBack = null;
+        String[] cardFiles = new String[2];
         double cityXPos = 0;
         double cityYPos = 0;
         int quarterVal = 0;
         double flightXPos = 0;
         double flightYPos = 0;
         boolean cityIsFlight = false;
-        ArrayList<Edge> edges = new ArrayList<>();
+        ArrayList<String> edgeNames = new ArrayList<>();
+        ArrayList<Byte> edgeTypes = new ArrayList<>();
         
         /* Ensure the element is an element node, cast to Element. */
         if(cityNode.getNodeType() != Node.ELEMENT_NODE) {
@@ -174,67 +433,58 @@ public class FileLoader {
             String tagName = m.getTagName();
 
             /* Switch on the tagName. */
-            if(tagName.equals(name)){
+            if(tagName.equals(tags.name)){
 
                 cityName = m.getTextContent();
                 
             } 
-            else if(tagName.equals(quarter)) {
+            else if(tagName.equals(tags.quarter)) {
 
                 quarterVal = Integer.parseInt(m.getTextContent());
                 
             } 
-            else if(tagName.equals(color)) {
+            else if(tagName.equals(tags.color)) {
 
-                cityColor = Color.valueOf(m.getTextContent());
+                cityColor = MapGraph.colorOf(m.getTextContent());
                 
             } 
-            else if(tagName.equals(isFlight)) {
+            else if(tagName.equals(tags.isFlight)) {
 
                 String bool = m.getTextContent();
                 cityIsFlight = Boolean.valueOf(bool);
 
             } 
-            else if(tagName.equals(xPos)) {
+            else if(tagName.equals(tags.xPos)) {
 
                 cityXPos = Double.parseDouble(m.getTextContent());
 
             } 
-            else if(tagName.equals(yPos)) {
+            else if(tagName.equals(tags.yPos)) {
 
                 cityYPos = Double.parseDouble(m.getTextContent());
 
             }
-            else if(tagName.equals(flightX)) {
+            else if(tagName.equals(tags.flightX)) {
 
                 flightXPos = Double.parseDouble(m.getTextContent());
 
             } 
-            else if(tagName.equals(flightY)) {
+            else if(tagName.equals(tags.flightY)) {
 
                 flightYPos = Double.parseDouble(m.getTextContent());
 
             } 
-            else if(tagName.equals(cardFrontFile) || tagName.equals(cardBackFile)) {
+            else if(tagName.equals(tags.cardFrontFile)) {
                 
-                String path = imgPath;
+                cardFiles[0] = m.getTextContent();
                 
-                if(Color.RED.equals(cityColor))
-                    path += "cityCards/red/";
-                else if (Color.GREEN.equals(cityColor))
-                    path += "cityCards/green/";
-                else if (Color.YELLOW.equals(cityColor))
-                    path += "cityCards/yellow/";
-                
-                Image img = new Image(path + m.getTextContent());
+            }
+            else if(tagName.equals(tags.cardBackFile)) {
                 
-                if(tagName.equals(cardFrontFile))
-                    cardFront = img;
-                else
-                    cardBack = img;
+                cardFiles[1] = m.getTextContent();
                 
             }
-            else if(tagName.equals(edgesTag)) {
+            else if(tagName.equals(tags.edges)) {
 
                 NodeList edgeList = a.getChildNodes();
                 for(int k = 0; k < edgeList.getLength(); k++) {
@@ -244,7 +494,7 @@ public class FileLoader {
                         continue;
                     
                     String edgeName = null;
-                    EdgeType edgeType = null;
+                    byte edgeType = MapGraph.ROAD;
                     
                     NodeList edgeAttributes = n.getChildNodes();
                     for(int l = 0; l < edgeAttributes.getLength(); l++){
@@ -258,22 +508,20 @@ public class FileLoader {
                                 edgeName = att.getTextContent();
                                 break;
                             case "type":
-                                try {
-                                    edgeType = EdgeType.valueOf(att.getTextContent());
-                                } catch (Exception e) {
-                                    edgeType = EdgeType.ROAD;
-                                }
+                                if(EdgeType.SEA.name().equals(att.getTextContent()))
+                                    edgeType = MapGraph.SEA;
                                 break;
                         }
                         
                     }
                     
-                    edges.add(new Edge(edgeName, edgeType));
+                    edgeNames.add(edgeName);
+                    edgeTypes.add(edgeType);
                    
                 }
 
             } 
-            else if(tagName.equals(instructions)) {
+            else if(tagName.equals(tags.instructions)) {
 
                 /* IMPLEMENT */
 
@@ -281,16 +529,110 @@ public class FileLoader {
 
         }
         
+        /* Add the city, then its edges, to the graph. */
+        int id = graph.addCity(cityName, cityColor, quarterVal, cityIsFlight, 
+            cityXPos, cityYPos, flightXPos, flightYPos);
+        for(int k = 0; k < edgeNames.size(); k++)
+            graph.addEdge(id, edgeNames.get(k), edgeTypes.get(k));
+        
+        return cardFiles;
+        
+    }
+
+    /**
+     * Builds and returns the CityNode sprite of a city in the graph, and binds
+     * it to the city.
+     * 
+     * @param graph
+     *          Graph of the map.
+     * @param id
+     *          ID of the city in the graph.
+     * @param cardFiles
+     *          Names of the front and back card image files of the city.
+     * @return 
+     *          A constructed CityNode object for the city.
+     */
+    private static CityNode buildCityNode(MapGraph graph, int id, String[] cardFiles) {
+        
+        PropertiesManager props = PropertiesManager.getPropertiesManager();
+        String imgPath = props.getProperty(GameProperties.IMG_PATH);
+        
+        byte colorIndex = graph.getColor(id);
+        Color cityColor = (colorIndex < 0) ? null : CityNode.CityColor[colorIndex];
+        
+        /* Load the card images from the folder of the city's color. */
+        String path = imgPath;
+        if(colorIndex == MapGraph.RED)
+            path += "cityCards/red/";
+        else if (colorIndex == MapGraph.GREEN)
+            path += "cityCards/green/";
+        else if (colorIndex == MapGraph.YELLOW)
+            path += "cityCards/yellow/";
+        
+        /* The images are only loaded once the card is shown. */
+        String cardFront = (cardFiles[0] == null) ? null : path + cardFiles[0];
+        String cardBack = (cardFiles[1] == null) ? null : path + cardFiles[1];
+        
         /* Return the new constructed CityNode. */
-        CityNode city = new CityNode(cityColor, cityName, cityXPos, cityYPos, quarterVal,  
-                flightXPos, flightYPos, cityIsFlight, cardFront, cardBack);
+        CityNode city = new CityNode(cityColor, graph.getName(id), graph.getMapX(id), 
+                graph.getMapY(id), graph.getSection(id), graph.getFlightX(id), 
+                graph.getFlightY(id), graph.isFlightCity(id), cardFront, cardBack);
+        city.setGraph(graph, id);
         
-        for (Edge e : edges)
-            city.addEdge(e);
+        for(int e = graph.edgeStart(id); e < graph.edgeEnd(id); e++) {
+            
+            EdgeType type = (graph.getEdgeType(e) == MapGraph.SEA) 
+                ? EdgeType.SEA : EdgeType.ROAD;
+            city.addEdge(new Edge(graph.getName(graph.getTarget(e)), type));
+            
+        }
         
         return city;
         
     }
     
+    /**
+     * Names of the tags of the map file, and its path, as configured in the
+     * properties of the game.
+     */
+    private static class MapTags {
+        
+        final String dataPath, mapFile, nodeTag, name, quarter, color, isFlight,
+            xPos, yPos, flightX, flightY, cardFrontFile, cardBackFile, edges, 
+            instructions;
+        
+        MapTags() {
+            
+            PropertiesManager props = PropertiesManager.getPropertiesManager();
+            dataPath = props.getProperty(GameProperties.DATA_PATH);
+            mapFile = props.getProperty(GameProperties.MAP_FILE_NAME);
+            nodeTag = props.getProperty(GameProperties.CITY_NODE_TAG);
+            name = props.getProperty(GameProperties.NAME_TAG);
+            quarter = props.getProperty(GameProperties.QUARTER_TAG);
+            color = props.getProperty(GameProperties.COLOR_TAG);
+            isFlight = props.getProperty(GameProperties.FLIGHT_TAG);
+            xPos = props.getProperty(GameProperties.XPOS_TAG);
+            yPos = props.getProperty(GameProperties.YPOS_TAG);
+            flightX = props.getProperty(GameProperties.FLIGHTX_TAG);
+            flightY = props.getProperty(GameProperties.FLIGHTY_TAG);
+            cardFrontFile = props.getProperty(GameProperties.CARD_FRONT_TAG);
+            cardBackFile = props.getProperty(GameProperties.CARD_BACK_TAG);
+            edges = props.getProperty(GameProperties.EDGES_TAG);
+            instructions = props.getProperty(GameProperties.INSTRUCTIONS_TAG);
+            
+        }
+        
+        /**
+         * Returns the map file, in the data folder. The data path may be a
+         * 'file:' URL.
+         */
+        File getMapFile() {
+            
+            String path = dataPath + mapFile;
+            return new File(path.startsWith("file:") ? path.substring(5) : path);
+            
+        }
+        
+    }
     
 }
@@ -0,0 +1,222 @@
+package Journey.file;
+
+import Journey.game.GameProperties;
+import java.lang.ref.SoftReference;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javafx.scene.image.Image;
+import properties_manager.PropertiesManager;
+
+/**
+ * Cache of the large images of the game, such as the city cards. An image is
+ * only loaded the first time it is asked for, and is loaded in the background
+ * so the board never waits for it; the image is blank until it is loaded.
+ *
+ * Images are kept by their URL, most recently used last, while their decoded
+ * size fits within the byte budget of the cache. Beyond the budget the least
+ * recently used images are only held by soft references, so they are reused
+ * if they are asked for again before the garbage collector needs the memory.
+ *
+ * @author
+ *          Anthony G. Musco
+ * <dt><b>Date Created</b><dd>
+ *          Dec-14-2014
+ * <dt><b>Class</b><dd>
+ *          CSE 219
+ */
+public class ImageCache {
+
+    /**
+     * Bytes per pixel of a decoded image.
+     */
+    private static final int BYTES_PER_PIXEL = 4;
+
+    /**
+     * Cache shared by the game, whose budget is set by IMAGE_CACHE_BYTES.
+     */
+    private static ImageCache cache;
+
+    /**
+     * Maximum number of bytes of the images strongly held.
+     */
+    private final long budget;
+
+    /**
+     * Number of bytes of the images strongly held.
+     */
+    private long bytes;
+
+    /**
+     * Images strongly held, least recently used first.
+     */
+    private final LinkedHashMap<String, Entry> images;
+
+    /**
+     * Images evicted from the budget, until they are collected.
+     */
+    private final HashMap<String, SoftReference<Image>> evicted;
+
+    /**
+     * Constructs an empty cache.
+     *
+     * @param budget
+     *          Maximum number of bytes of the decoded images strongly held.
+     */
+    public ImageCache(long budget) {
+
+        this.budget = budget;
+        images = new LinkedHashMap<>(64, 0.75f, true);
+        evicted = new HashMap<>();
+
+    }
+
+    /**
+     * Returns the cache shared by the game.
+     *
+     * @return
+     *          The ImageCache of the game.
+     */
+    public static synchronized ImageCache getCache() {
+
+        if(cache == null) {
+
+            PropertiesManager props = PropertiesManager.getPropertiesManager();
+            cache = new ImageCache(Long.parseLong(
+                props.getProperty(GameProperties.IMAGE_CACHE_BYTES)));
+
+        }
+
+        return cache;
+
+    }
+
+    /**
+     * Returns the image at a URL, loading it in the background if it is not
+     * in the cache.
+     *
+     * @param url
+     *          URL of the image.
+     * @return
+     *          The image, which may still be loading.
+     */
+    public Image get(String url) {
+
+        return get(url, 0, 0);
+
+    }
+
+    /**
+     * Returns the image at a URL decoded at a size, loading it in the
+     * background if it is not in the cache. The image keeps its ratio within
+     * the size, and is cached apart from the image at any other size.
+     *
+     * @param url
+     *          URL of the image.
+     * @param width
+     *          Width at which to decode the image, or 0 for its own width.
+     * @param height
+     *          Height at which to decode the image, or 0 for its own height.
+     * @return
+     *          The image, which may still be loading.
+     */
+    public synchronized Image get(String url, int width, int height) {
+
+        boolean full = (width == 0 && height == 0);
+        String key = full ? url : url + "#" + width + "x" + height;
+        Entry entry = images.get(key);
+        if(entry != null)
+            return entry.image;
+
+        SoftReference<Image> reference = evicted.remove(key);
+        Image image = (reference == null) ? null : reference.get();
+        if(image == null)
+            image = full ? new Image(url, true)
+                : new Image(url, width, height, true, true, true);
+
+        entry = new Entry(image);
+        images.put(key, entry);
+        if(image.getProgress() >= 1) {
+
+            account(entry);
+
+        } else {
+
+            /* Count the image once its size is known. */
+            final Entry loading = entry;
+            image.progressProperty().addListener((observable, was, progress) -> {
+
+                if(progress.doubleValue() >= 1)
+                    account(loading);
+
+            });
+
+        }
+
+        return image;
+
+    }
+
+    /**
+     * Returns the number of bytes of the images strongly held.
+     *
+     * @return
+     *          The decoded size of the images within the budget.
+     */
+    public synchronized long getBytes() {
+
+        return bytes;
+
+    }
+
+    /**
+     * Counts the size of a loaded image, and evicts the least recently used
+     * images while the cache is over its budget.
+     */
+    private synchronized void account(Entry entry) {
+
+        if(entry.bytes > 0 || entry.image.isError())
+            return;
+
+        entry.bytes = (long) entry.image.getWidth() * (long) entry.image.getHeight()
+            * BYTES_PER_PIXEL;
+        if(!images.containsValue(entry))
+            return;
+
+        bytes += entry.bytes;
+        Iterator<Map.Entry<String, Entry>> it = images.entrySet().iterator();
+        while(bytes > budget && images.size() > 1 && it.hasNext()) {
+
+            Map.Entry<String, Entry> eldest = it.next();
+            if(eldest.getValue() == entry)
+                continue;
+            bytes -= eldest.getValue().bytes;
+            evicted.put(eldest.getKey(), new SoftReference<>(eldest.getValue().image));
+            it.remove();
+
+        }
+
+        /* Forget the images which were collected. */
+        evicted.values().removeIf(reference -> reference.get() == null);
+
+    }
+
+    /**
+     * Image strongly held by the cache, and its decoded size, or 0 until it is
+     * loaded.
+     */
+    private static class Entry {
+
+        final Image image;
+        long bytes;
+
+        Entry(Image image) {
+
+            this.image = image;
+
+        }
+
+    }
+
+}
@@ -0,0 +1,55 @@
+package Journey.file;
+
+import java.util.concurrent.ConcurrentHashMap;
+import javafx.scene.image.Image;
+
+/**
+ * Registry of the small images shared by the sprites of the game, such as the
+ * city markers and the player pieces. Only a handful of distinct files are
+ * used by hundreds of sprites, so each file is decoded once, the first time
+ * it is asked for, and the same Image is handed to every sprite.
+ *
+ * Unlike the ImageCache, the images are loaded at once, as the sprites are
+ * laid out by the size of their image, and are never evicted.
+ *
+ * @author
+ *          Anthony G. Musco
+ * <dt><b>Date Created</b><dd>
+ *          Dec-14-2014
+ * <dt><b>Class</b><dd>
+ *          CSE 219
+ */
+public class ImageRegistry {
+
+    /**
+     * Images decoded so far, by URL.
+     */
+    private static final ConcurrentHashMap<String, Image> images = new ConcurrentHashMap<>();
+
+    /**
+     * Returns the image at a URL, decoding it the first time it is asked for.
+     *
+     * @param url
+     *          URL of the image.
+     * @return
+     *          The image shared by every sprite using the URL.
+     */
+    public static Image getImage(String url) {
+
+        return images.computeIfAbsent(url, Image::new);
+
+    }
+
+    /**
+     * Returns the number of distinct images decoded so far.
+     *
+     * @return
+     *          The number of images in the registry.
+     */
+    public static int size() {
+
+        return images.size();
+
+    }
+
+}
@@ -0,0 +1,526 @@
+package Journey.file;
+
+import Journey.game.GameProperties;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javafx.scene.image.Image;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import properties_manager.PropertiesManager;
+
+/**
+ * Pyramid of tiles cut from the image of a map, so that the GameBoard only
+ * draws the part of the map in view, at the resolution nearest its zoom.
+ *
+ * Level 0 holds the image at full resolution, and every level after it half
+ * the resolution of the one before, down to a level which fits in a single
+ * tile. Each level is cut into square tiles of TILE_SIZE pixels, written once
+ * to the tile directory as
+ *
+ *     [TILE_PATH]/[map name]/[level]/[column]_[row].[jpg or png]
+ *
+ * along with a PYRAMID_FILE describing the pyramid. The pyramid is cut ahead
+ * of time from the command line, or by the 'tiles' target of the build, and
+ * otherwise on a background thread when the game finds it missing or older
+ * than the image of the map; until then the pyramid has no tiles to draw.
+ * Tiles are loaded in the background through the ImageCache, which bounds the
+ * memory they use; the last level is kept in memory, to be drawn wherever a
+ * tile is still loading.
+ *
+ * @author
+ *          Anthony G. Musco
+ * <dt><b>Date Created</b><dd>
+ *          Dec-14-2014
+ * <dt><b>Class</b><dd>
+ *          CSE 219
+ */
+public class MapTiles {
+
+    /**
+     * Name of the file describing a pyramid, in its directory.
+     */
+    public static final String PYRAMID_FILE = "pyramid.properties";
+
+    /**
+     * URL of the image of the map, and directory in which the tiles of every
+     * map are kept.
+     */
+    private final String url;
+    private final File root;
+
+    /**
+     * Directory of the pyramid.
+     */
+    private final File directory;
+
+    /**
+     * Size of a tile, in pixels.
+     */
+    private final int tileSize;
+
+    /**
+     * Extension, and format, of the tile files.
+     */
+    private final String format;
+
+    /**
+     * Width and height of the image of the map, in pixels.
+     */
+    private int width, height;
+
+    /**
+     * Width and height of each level, in pixels.
+     */
+    private int[] levelWidth, levelHeight;
+
+    /**
+     * Flag indicating that the tiles of the pyramid are cut.
+     */
+    private boolean ready;
+
+    /**
+     * Last level of the pyramid, in a single tile.
+     */
+    private Image overview;
+
+    /**
+     * Opens the pyramid of the image of a map. If its tiles were never cut or
+     * the image changed since, only the size of the image is read, and the
+     * pyramid is not ready until cut() is called. If the image cannot be read
+     * the pyramid is empty.
+     *
+     * @param url
+     *          URL of the image of the map.
+     * @param root
+     *          Directory in which the tiles of every map are kept.
+     * @param tileSize
+     *          Size of a tile, in pixels.
+     */
+    public MapTiles(String url, File root, int tileSize) {
+
+        this.url = url;
+        this.root = root;
+        File source = getSource();
+        String name = source.getName();
+        int dot = name.lastIndexOf('.');
+        String extension = (dot > 0) ? name.substring(dot + 1).toLowerCase() : "";
+
+        this.directory = new File(root, (dot > 0) ? name.substring(0, dot) : name);
+        this.tileSize = tileSize;
+        this.format = (extension.equals("jpg") || extension.equals("jpeg")) ? "jpg" : "png";
+
+        try {
+
+            ready = readPyramid(source);
+            if(!ready)
+                readSize(source);
+
+        } catch (IOException e) {
+
+            Logger.getLogger(MapTiles.class.getName()).log(Level.SEVERE,
+                "Cannot tile the map " + url, e);
+            width = height = 0;
+            levelWidth = levelHeight = new int[0];
+
+        }
+
+    }
+
+    /**
+     * Opens the pyramid of the image of a map in the directory and with the
+     * tile size of the game, TILE_PATH and TILE_SIZE.
+     *
+     * @param url
+     *          URL of the image of the map.
+     * @return
+     *          The pyramid of the map.
+     */
+    public static MapTiles getTiles(String url) {
+
+        PropertiesManager props = PropertiesManager.getPropertiesManager();
+        return new MapTiles(url, new File(props.getProperty(GameProperties.TILE_PATH)),
+            Integer.parseInt(props.getProperty(GameProperties.TILE_SIZE)));
+
+    }
+
+    /**
+     * Indicates whether the tiles of the pyramid are cut, and may be drawn.
+     *
+     * @return
+     *          True if the pyramid is ready, false otherwise.
+     */
+    public boolean isReady() {
+
+        return ready;
+
+    }
+
+    public double getWidth() {
+
+        return width;
+
+    }
+
+    public double getHeight() {
+
+        return height;
+
+    }
+
+    public int getTileSize() {
+
+        return tileSize;
+
+    }
+
+    /**
+     * Returns the number of levels of the pyramid.
+     *
+     * @return
+     *          The number of levels, or 0 if the image of the map could not
+     *          be read.
+     */
+    public int getLevels() {
+
+        return levelWidth.length;
+
+    }
+
+    /**
+     * Returns the level whose resolution is nearest to a zoom of the map,
+     * without being lower.
+     *
+     * @param scale
+     *          Zoom of the map, 1 being its full resolution.
+     * @return
+     *          The level to draw at the zoom.
+     */
+    public int getLevel(double scale) {
+
+        int level = 0;
+        while(level + 1 < levelWidth.length && getLevelScale(level + 1) >= scale)
+            level++;
+
+        return level;
+
+    }
+
+    /**
+     * Returns the resolution of a level relative to the image of the map.
+     *
+     * @param level
+     *          Level of the pyramid.
+     * @return
+     *          The width of the level over the width of the map.
+     */
+    public double getLevelScale(int level) {
+
+        return (double) levelWidth[level] / width;
+
+    }
+
+    public int getColumns(int level) {
+
+        return (levelWidth[level] + tileSize - 1) / tileSize;
+
+    }
+
+    public int getRows(int level) {
+
+        return (levelHeight[level] + tileSize - 1) / tileSize;
+
+    }
+
+    /**
+     * Returns a tile of the pyramid, loading it in the background if it is
+     * not in the ImageCache.
+     *
+     * @param level
+     *          Level of the tile.
+     * @param column
+     *          Column of the tile, from the left.
+     * @param row
+     *          Row of the tile, from the top.
+     * @return
+     *          The tile, which may still be loading.
+     */
+    public Image getTile(int level, int column, int row) {
+
+        return ImageCache.getCache().get(getTileFile(level, column, row).toURI().toString());
+
+    }
+
+    /**
+     * Returns the last level of the pyramid, which is loaded the first time
+     * it is asked for and then kept. Until the pyramid is ready, the image of
+     * the map is decoded in the background at the size of a tile instead.
+     *
+     * @return
+     *          The whole map at the lowest resolution, which may still be
+     *          loading, or null if the image of the map could not be read.
+     */
+    public Image getOverview() {
+
+        if(overview == null && ready)
+            overview = new Image(getTileFile(levelWidth.length - 1, 0, 0).toURI().toString());
+        else if(overview == null && width > 0)
+            overview = new Image(url, tileSize, tileSize, true, true, true);
+
+        return overview;
+
+    }
+
+    /**
+     * Cuts the tiles of the pyramid on a background thread, without blocking
+     * the caller.
+     *
+     * @return
+     *          A future completed with the pyramid as it is once the tiles are
+     *          cut, or as it was if they could not be cut.
+     */
+    public CompletableFuture<MapTiles> cutInBackground() {
+
+        return CompletableFuture.supplyAsync(() -> {
+
+            MapTiles tiles = new MapTiles(url, root, tileSize);
+            try {
+
+                if(!tiles.isReady())
+                    tiles.cut();
+
+            } catch (IOException e) {
+
+                Logger.getLogger(MapTiles.class.getName()).log(Level.SEVERE,
+                    "Cannot tile the map " + url, e);
+
+            }
+
+            return tiles;
+
+        }, r -> {
+
+            Thread thread = new Thread(r, "Map Tiler");
+            thread.setDaemon(true);
+            thread.start();
+
+        });
+
+    }
+
+    private File getSource() {
+
+        return new File(url.replaceFirst("^file:", ""));
+
+    }
+
+    private File getTileFile(int level, int column, int row) {
+
+        return new File(directory, level + File.separator + column + "_" + row + "." + format);
+
+    }
+
+    /**
+     * Reads the description of the pyramid, if the pyramid was cut from the
+     * image as it is now with the same tile size.
+     */
+    private boolean readPyramid(File source) throws IOException {
+
+        File file = new File(directory, PYRAMID_FILE);
+        if(!file.exists() || file.lastModified() < source.lastModified())
+            return false;
+
+        Properties pyramid = new Properties();
+        try (InputStream in = new FileInputStream(file)) {
+
+            pyramid.load(in);
+
+        }
+
+        if(Integer.parseInt(pyramid.getProperty("tileSize", "0")) != tileSize)
+            return false;
+
+        width = Integer.parseInt(pyramid.getProperty("width"));
+        height = Integer.parseInt(pyramid.getProperty("height"));
+        setLevels();
+        return true;
+
+    }
+
+    /**
+     * Reads the size of the image of the map from its header, without
+     * decoding the image.
+     */
+    private void readSize(File source) throws IOException {
+
+        try (ImageInputStream in = ImageIO.createImageInputStream(source)) {
+
+            Iterator<ImageReader> readers = (in == null) 
+                ? null : ImageIO.getImageReaders(in);
+            if(readers == null || !readers.hasNext())
+                throw new IOException("Unknown image format: " + source);
+
+            ImageReader reader = readers.next();
+            try {
+
+                reader.setInput(in);
+                width = reader.getWidth(0);
+                height = reader.getHeight(0);
+
+            } finally {
+
+                reader.dispose();
+
+            }
+
+        }
+
+        setLevels();
+
+    }
+
+    /**
+     * Computes the size of every level, halving the size of the map until it
+     * fits in a single tile.
+     */
+    private void setLevels() {
+
+        int levels = 1;
+        for(int w = width, h = height; w > tileSize || h > tileSize; levels++) {
+
+            w = (w + 1) / 2;
+            h = (h + 1) / 2;
+
+        }
+
+        levelWidth = new int[levels];
+        levelHeight = new int[levels];
+        levelWidth[0] = width;
+        levelHeight[0] = height;
+        for(int level = 1; level < levels; level++) {
+
+            levelWidth[level] = (levelWidth[level - 1] + 1) / 2;
+            levelHeight[level] = (levelHeight[level - 1] + 1) / 2;
+
+        }
+
+    }
+
+    /**
+     * Cuts the tiles of every level from the image of the map, then writes
+     * the description of the pyramid, which marks the pyramid as complete.
+     * The whole image is decoded, so this is never called on the JavaFX
+     * application thread.
+     *
+     * @throws IOException
+     *          If the image cannot be read or a tile cannot be written.
+     */
+    public void cut() throws IOException {
+
+        File source = getSource();
+        BufferedImage image = ImageIO.read(source);
+        if(image == null)
+            throw new IOException("Unknown image format: " + source);
+
+        width = image.getWidth();
+        height = image.getHeight();
+        setLevels();
+
+        for(int level = 0; level < levelWidth.length; level++) {
+
+            /* Each level is drawn from the one before, at half the size. */
+            if(level > 0)
+                image = halve(image, levelWidth[level], levelHeight[level]);
+
+            File levelDirectory = new File(directory, Integer.toString(level));
+            if(!levelDirectory.isDirectory() && !levelDirectory.mkdirs())
+                throw new IOException("Cannot create " + levelDirectory);
+
+            for(int column = 0; column < getColumns(level); column++) {
+
+                for(int row = 0; row < getRows(level); row++) {
+
+                    int x = column * tileSize, y = row * tileSize;
+                    BufferedImage tile = image.getSubimage(x, y,
+                        Math.min(tileSize, levelWidth[level] - x),
+                        Math.min(tileSize, levelHeight[level] - y));
+                    ImageIO.write(tile, format, getTileFile(level, column, row));
+
+                }
+
+            }
+
+        }
+
+        Properties pyramid = new Properties();
+        pyramid.setProperty("width", Integer.toString(width));
+        pyramid.setProperty("height", Integer.toString(height));
+        pyramid.setProperty("tileSize", Integer.toString(tileSize));
+        try (OutputStream out = new FileOutputStream(new File(directory, PYRAMID_FILE))) {
+
+            pyramid.store(out, source.getName());
+
+        }
+
+        ready = true;
+
+    }
+
+    /**
+     * Scales an image down to half its size.
+     */
+    private BufferedImage halve(BufferedImage image, int w, int h) {
+
+        int type = format.equals("jpg") ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB;
+        BufferedImage half = new BufferedImage(w, h, type);
+        Graphics2D g = half.createGraphics();
+        g.setRenderingHint(RenderingHints.KEY_INTERPOLATION,
+            RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        g.drawImage(image, 0, 0, w, h, null);
+        g.dispose();
+        return half;
+
+    }
+
+    /**
+     * Cuts the tiles of a map ahead of time:
+     *
+     *     MapTiles image directory [tileSize]
+     *
+     * @param args
+     *          Path of the image of the map, directory in which the tiles of
+     *          every map are kept, and size of a tile, 512 by default.
+     * @throws IOException
+     *          If the map cannot be tiled.
+     */
+    public static void main(String[] args) throws IOException {
+
+        if(args.length < 2) {
+
+            System.out.println("Usage: MapTiles image directory [tileSize]");
+            return;
+
+        }
+
+        int size = (args.length > 2) ? Integer.parseInt(args[2]) : 512;
+        MapTiles tiles = new MapTiles(args[0], new File(args[1]), size);
+        if(!tiles.isReady())
+            tiles.cut();
+        System.out.println(tiles.getWidth() + " x " + tiles.getHeight() + ", "
+            + tiles.getLevels() + " levels of " + size + " pixel tiles");
+
+    }
+
+}
@@ -0,0 +1,584 @@
+package Journey.file;
+
+import Journey.game.EngineState;
+import Journey.game.MapGraph;
+import Journey.game.Move;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * State of a saved game, and the binary file format in which it is saved.
+ * Only the state of the game is saved: the seed, the name, type and color of
+ * each player, the EngineState, and the turns played so far. Cities are saved
+ * by their ID in the MapGraph, along with a table of the names of the cities,
+ * so that a game is bound again to the map by name when it is read. No JavaFX
+ * objects are saved or needed.
+ *
+ * The file is written through a FileChannel, using a buffer of BUFFER_SIZE
+ * bytes, to a temporary file which then replaces the saved game, so a failed
+ * save never destroys the previous one. All values are big-endian:
+ *
+ *     int MAGIC, short VERSION, long seed
+ *     short cities, then the name of each city
+ *     byte players, then for each player:
+ *         name, byte computer, byte color, short home, short position,
+ *         int points, byte atPort, byte cards, then the ID of each card
+ *     byte current player, int turn, byte die rolled
+ *     short descriptions, then each description of a turn
+ *     int turns, then for each turn:
+ *         int turn, byte seat, short from, short to, short description,
+ *         byte move type + 1, short city ID or die value
+ *
+ * Names are a short length followed by UTF-8 bytes, and missing cities and
+ * seats are saved as -1. A turn whose move is not known, as in the files of
+ * version 1 which did not save the moves, has the move type 0.
+ *
+ * @author
+ *          Anthony G. Musco
+ * <dt><b>Date Created</b><dd>
+ *          Dec-14-2014
+ * <dt><b>Class</b><dd>
+ *          CSE 219
+ */
+public class SavedGame {
+
+    /**
+     * First four bytes of a saved game: "JTES".
+     */
+    public static final int MAGIC = 0x4A544553;
+
+    /**
+     * Version of the file format written by this class.
+     */
+    public static final short VERSION = 2;
+
+    /**
+     * Number of colors a player may have, those of the setup screen.
+     */
+    public static final int COLORS = 6;
+
+    /**
+     * Size of the buffer through which the file is written.
+     */
+    private static final int BUFFER_SIZE = 8192;
+
+    private final long seed;
+    private final String[] names;
+    private final boolean[] computer;
+    private final int[] colors;
+    private final EngineState state;
+    private final List<TurnRecord> turns;
+
+    /**
+     * ID on the map of each city ID saved in the file, or null if the game
+     * was not read from a file.
+     */
+    private int[] cityIds;
+
+    /**
+     * Constructs the state of a saved game.
+     *
+     * @param seed
+     *          Seed of the game.
+     * @param names
+     *          Name of each player, by seat.
+     * @param computer
+     *          Whether each player is a computer player, by seat.
+     * @param colors
+     *          Index of the color of each player, by seat.
+     * @param state
+     *          State of the engine playing the game.
+     * @param turns
+     *          Turns played so far.
+     */
+    public SavedGame(long seed, String[] names, boolean[] computer, int[] colors,
+      EngineState state, List<TurnRecord> turns) {
+
+        int players = state.getPlayerCount();
+        if(names.length != players || computer.length != players || colors.length != players)
+            throw new IllegalArgumentException("Expected " + players + " players.");
+
+        this.seed = seed;
+        this.names = names.clone();
+        this.computer = computer.clone();
+        this.colors = colors.clone();
+        this.state = state;
+        this.turns = Collections.unmodifiableList(new ArrayList<>(turns));
+
+    }
+
+    public long getSeed() {
+
+        return seed;
+
+    }
+
+    public String getName(int seat) {
+
+        return names[seat];
+
+    }
+
+    public boolean isComputer(int seat) {
+
+        return computer[seat];
+
+    }
+
+    public int getColor(int seat) {
+
+        return colors[seat];
+
+    }
+
+    public EngineState getState() {
+
+        return state;
+
+    }
+
+    public List<TurnRecord> getTurns() {
+
+        return turns;
+
+    }
+
+    /**
+     * Writes the game to a file, replacing the file once it is complete.
+     *
+     * @param file
+     *          Path of the file.
+     * @throws IOException
+     *          If the file cannot be written.
+     */
+    public void write(Path file) throws IOException {
+
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+          StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+
+            Output out = new Output(channel);
+            MapGraph graph = state.getGraph();
+            out.ensure(14).putInt(MAGIC).putShort(VERSION).putLong(seed);
+
+            /* The names of the cities, to bind the IDs when read. */
+            out.ensure(2).putShort((short) graph.size());
+            for(int id = 0; id < graph.size(); id++)
+                out.putString(graph.getName(id));
+
+            /* The players. */
+            int players = state.getPlayerCount();
+            out.ensure(1).put((byte) players);
+            for(int seat = 0; seat < players; seat++) {
+
+                int[] hand = state.getHand(seat);
+                out.putString(names[seat]);
+                out.ensure(12 + 2 * hand.length)
+                    .put((byte) (computer[seat] ? 1 : 0))
+                    .put((byte) colors[seat])
+                    .putShort((short) state.getHome(seat))
+                    .putShort((short) state.getPosition(seat))
+                    .putInt(state.getPoints(seat))
+                    .put((byte) (state.isAtPort(seat) ? 1 : 0))
+                    .put((byte) hand.length);
+                for(int card : hand)
+                    out.buffer.putShort((short) card);
+
+            }
+            out.ensure(6).put((byte) state.getCurrentPlayer()).putInt(state.getTurn())
+                .put((byte) (state.isDieRolled() ? 1 : 0));
+
+            /* The descriptions of the turns, which repeat, are saved once. */
+            Map<String, Integer> indexes = new HashMap<>();
+            List<String> descriptions = new ArrayList<>();
+            for(TurnRecord turn : turns)
+                if(!indexes.containsKey(turn.getDescription())) {
+
+                    indexes.put(turn.getDescription(), descriptions.size());
+                    descriptions.add(turn.getDescription());
+
+                }
+            out.ensure(2).putShort((short) descriptions.size());
+            for(String description : descriptions)
+                out.putString(description);
+
+            out.ensure(4).putInt(turns.size());
+            for(TurnRecord turn : turns) {
+
+                Move move = turn.getMove();
+                out.ensure(14).putInt(turn.getTurn()).put((byte) turn.getSeat())
+                    .putShort((short) turn.getFromCity()).putShort((short) turn.getToCity())
+                    .putShort(indexes.get(turn.getDescription()).shortValue())
+                    .put((byte) ((move == null) ? 0 : move.getType().ordinal() + 1))
+                    .putShort((short) ((move == null) ? -1 : getValue(move)));
+
+            }
+
+            out.flush();
+            channel.force(false);
+
+        }
+
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+
+    }
+
+    /**
+     * Reads a game from a file, binding its cities to a map by name.
+     *
+     * @param file
+     *          Path of the file.
+     * @param graph
+     *          Graph of the map on which the game is to be played.
+     * @return
+     *          The saved game.
+     * @throws IOException
+     *          If the file cannot be read, is not a saved game, or names a
+     *          city which is not on the map.
+     */
+    public static SavedGame read(Path file, MapGraph graph) throws IOException {
+
+        ByteBuffer in;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+
+            in = ByteBuffer.allocate((int) channel.size());
+            while(in.hasRemaining())
+                if(channel.read(in) < 0)
+                    throw new IOException("Unexpected end of " + file);
+            in.flip();
+
+        }
+
+        try {
+
+            if(in.getInt() != MAGIC)
+                throw new IOException(file + " is not a saved game.");
+            short version = in.getShort();
+            if(version > VERSION)
+                throw new IOException("Unsupported version " + version + " of " + file);
+            long seed = in.getLong();
+
+            /* Bind the saved IDs to the IDs of the map. */
+            int[] ids = new int[getCount(in, in.getShort(), 2)];
+            for(int k = 0; k < ids.length; k++) {
+
+                String name = getString(in);
+                ids[k] = graph.indexOf(name);
+                if(ids[k] < 0)
+                    throw new IOException("City " + name + " is not on the map.");
+
+            }
+
+            int players = getCount(in, in.get(), 15);
+            String[] names = new String[players];
+            boolean[] computer = new boolean[players];
+            int[] colors = new int[players];
+            int[] home = new int[players];
+            int[] position = new int[players];
+            int[] points = new int[players];
+            boolean[] atPort = new boolean[players];
+            int[][] hands = new int[players][];
+            for(int seat = 0; seat < players; seat++) {
+
+                names[seat] = getString(in);
+                computer[seat] = in.get() != 0;
+                colors[seat] = Byte.toUnsignedInt(in.get());
+                if(colors[seat] >= COLORS)
+                    throw new IOException(file + " is damaged: invalid color " + colors[seat]);
+                home[seat] = bind(ids, in.getShort());
+                position[seat] = bind(ids, in.getShort());
+                if(home[seat] < 0 || position[seat] < 0)
+                    throw new IOException(file + " is damaged: player " + seat 
+                        + " is not on the map.");
+                points[seat] = in.getInt();
+                atPort[seat] = in.get() != 0;
+                hands[seat] = new int[getCount(in, in.get(), 2)];
+                for(int k = 0; k < hands[seat].length; k++)
+                    hands[seat][k] = bind(ids, in.getShort());
+
+            }
+            int current = in.get();
+            int turn = in.getInt();
+            boolean dieRolled = in.get() != 0;
+            EngineState state = new EngineState(graph, hands, home, position, points,
+                atPort, current, turn, dieRolled);
+
+            String[] descriptions = new String[getCount(in, in.getShort(), 2)];
+            for(int k = 0; k < descriptions.length; k++)
+                descriptions[k] = getString(in);
+
+            int count = getCount(in, in.getInt(), 11);
+            List<TurnRecord> turns = new ArrayList<>(count);
+            for(int k = 0; k < count; k++) {
+
+                int number = in.getInt();
+                int seat = in.get();
+                int from = bind(ids, in.getShort());
+                int to = bind(ids, in.getShort());
+                String description = descriptions[in.getShort()];
+                Move move = null;
+                if(version > 1)
+                    move = bindMove(ids, in.get(), in.getShort());
+                turns.add(new TurnRecord(number, seat, from, to, description, move));
+
+            }
+
+            SavedGame game = new SavedGame(seed, names, computer, colors, state, turns);
+            game.cityIds = ids;
+            return game;
+
+        } catch(BufferUnderflowException | IllegalArgumentException
+          | IndexOutOfBoundsException | NegativeArraySizeException e) {
+
+            throw new IOException(file + " is damaged.", e);
+
+        }
+
+    }
+
+    /**
+     * Checks a count read from the file against the bytes left to read,
+     * given the fewest bytes each of the counted values takes, so a damaged
+     * count is never used to size an array.
+     */
+    private static int getCount(ByteBuffer in, int count, int bytes) {
+
+        if(count < 0 || (long) count * bytes > in.remaining())
+            throw new IllegalArgumentException("Invalid count: " + count);
+
+        return count;
+
+    }
+
+    /**
+     * Returns the ID on the map of a saved city ID, or -1 for no city.
+     */
+    private static int bind(int[] ids, int saved) {
+
+        return (saved < 0) ? -1 : ids[saved];
+
+    }
+
+    /**
+     * Returns a move saved as its type + 1 and its value, binding the city of
+     * a TRAVEL or FLY from its saved ID to its ID on the map.
+     */
+    private static Move bindMove(int[] ids, int type, int value) {
+
+        Move move = toMove(type, value);
+        if(move != null && (move.getType() == Move.Type.TRAVEL
+          || move.getType() == Move.Type.FLY))
+            move = toMove(type, bind(ids, value));
+
+        return move;
+
+    }
+
+    /**
+     * Returns a move recorded with the city IDs of the file of this game,
+     * such as a move of the TurnJournal following it, bound to the map on
+     * which the game was read.
+     *
+     * @param type
+     *          Type of the move + 1.
+     * @param value
+     *          City ID or die value of the move.
+     * @return
+     *          The move, or null if the type is 0 or unknown.
+     * @throws IndexOutOfBoundsException
+     *          If the city of the move was not saved in the file.
+     */
+    Move toBoundMove(int type, int value) {
+
+        return (cityIds == null) ? toMove(type, value) : bindMove(cityIds, type, value);
+
+    }
+
+    /**
+     * Returns the value saved with a move: the die value of a ROLL, the city
+     * ID of a TRAVEL or FLY, or -1.
+     */
+    static int getValue(Move move) {
+
+        return (move.getType() == Move.Type.ROLL) ? move.getDieValue() : move.getCity();
+
+    }
+
+    /**
+     * Returns the move saved as its type + 1 and its value, or null if the
+     * type is 0 or unknown.
+     */
+    static Move toMove(int type, int value) {
+
+        Move.Type[] types = Move.Type.values();
+        if(type < 1 || type > types.length)
+            return null;
+
+        switch(types[type - 1]) {
+
+            case ROLL:       return Move.roll(value);
+            case TRAVEL:     return Move.travel(value);
+            case WAIT_FERRY: return Move.waitFerry();
+            case FLY:        return Move.fly(value);
+            default:         return Move.pass();
+
+        }
+
+    }
+
+    /**
+     * Reads a name saved by Output.putString().
+     */
+    private static String getString(ByteBuffer in) {
+
+        byte[] bytes = new byte[in.getShort() & 0xFFFF];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+
+    }
+
+    /**
+     * Buffer through which a file is written. The buffer is written to the
+     * channel whenever the next values would not fit.
+     */
+    private static class Output {
+
+        private final FileChannel channel;
+        private final ByteBuffer buffer;
+
+        Output(FileChannel channel) {
+
+            this.channel = channel;
+            buffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+        }
+
+        /**
+         * Makes room for the indicated number of bytes and returns the
+         * buffer into which to put them.
+         */
+        ByteBuffer ensure(int bytes) throws IOException {
+
+            if(buffer.remaining() < bytes)
+                flush();
+
+            return buffer;
+
+        }
+
+        void putString(String s) throws IOException {
+
+            byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+            if(bytes.length > 0xFFFF)
+                throw new IOException("Name too long: " + s);
+
+            ensure(2).putShort((short) bytes.length);
+            for(int offset = 0; offset < bytes.length; ) {
+
+                int length = Math.min(bytes.length - offset, ensure(1).remaining());
+                buffer.put(bytes, offset, length);
+                offset += length;
+
+            }
+
+        }
+
+        void flush() throws IOException {
+
+            buffer.flip();
+            while(buffer.hasRemaining())
+                channel.write(buffer);
+            buffer.clear();
+
+        }
+
+    }
+
+    /**
+     * Turn recorded in the history of a saved game.
+     */
+    public static class TurnRecord {
+
+        private final int turn, seat, fromCity, toCity;
+        private final String description;
+        private final Move move;
+
+        /**
+         * Constructs the record of a turn.
+         *
+         * @param turn
+         *          Number of the turn.
+         * @param seat
+         *          Seat of the player, or -1.
+         * @param fromCity
+         *          ID of the city the player left, or -1.
+         * @param toCity
+         *          ID of the city the player reached, or -1.
+         * @param description
+         *          Description of the turn.
+         * @param move
+         *          Move played in the turn, or null if it is not known.
+         */
+        public TurnRecord(int turn, int seat, int fromCity, int toCity, String description,
+          Move move) {
+
+            this.turn = turn;
+            this.seat = seat;
+            this.fromCity = fromCity;
+            this.toCity = toCity;
+            this.description = (description == null) ? "" : description;
+            this.move = move;
+
+        }
+
+        public int getTurn() {
+
+            return turn;
+
+        }
+
+        public int getSeat() {
+
+            return seat;
+
+        }
+
+        public int getFromCity() {
+
+            return fromCity;
+
+        }
+
+        public int getToCity() {
+
+            return toCity;
+
+        }
+
+        public String getDescription() {
+
+            return description;
+
+        }
+
+        public Move getMove() {
+
+            return move;
+
+        }
+
+    }
+
+}
@@ -0,0 +1,206 @@
+package Journey.file;
+
+import Journey.game.GameProperties;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import javafx.scene.image.Image;
+import javafx.scene.image.WritablePixelFormat;
+import javax.imageio.ImageIO;
+import properties_manager.PropertiesManager;
+
+/**
+ * Cache of the small copies of large images, such as the cards shown in the
+ * trays of the players. A thumbnail is decoded from its image at the size it
+ * is shown, so the full image is never held for it, and is then written to
+ * the thumbnail directory as a PNG file, so later games only read the small
+ * file. The thumbnails are held in memory by the ImageCache.
+ *
+ * A thumbnail file is decoded again whenever its image is newer than it.
+ *
+ * @author
+ *          Anthony G. Musco
+ * <dt><b>Date Created</b><dd>
+ *          Dec-14-2014
+ * <dt><b>Class</b><dd>
+ *          CSE 219
+ */
+public class ThumbnailCache {
+
+    /**
+     * Cache shared by the game, in the directory set by THUMBNAIL_PATH.
+     */
+    private static ThumbnailCache cache;
+
+    /**
+     * Directory of the thumbnail files.
+     */
+    private final File directory;
+
+    /**
+     * Thumbnail files being written.
+     */
+    private final Set<File> pending;
+
+    /**
+     * Thread writing the thumbnail files, so the board never waits for them.
+     */
+    private final ExecutorService writer;
+
+    /**
+     * Constructs a cache keeping its thumbnails in a directory, which is
+     * created when the first thumbnail is written.
+     *
+     * @param directory
+     *          Directory of the thumbnail files.
+     */
+    public ThumbnailCache(File directory) {
+
+        this.directory = directory;
+        pending = new HashSet<>();
+        writer = Executors.newSingleThreadExecutor(r -> {
+
+            Thread thread = new Thread(r, "Thumbnail Writer");
+            thread.setDaemon(true);
+            return thread;
+
+        });
+
+    }
+
+    /**
+     * Returns the cache shared by the game.
+     *
+     * @return
+     *          The ThumbnailCache of the game.
+     */
+    public static synchronized ThumbnailCache getCache() {
+
+        if(cache == null) {
+
+            PropertiesManager props = PropertiesManager.getPropertiesManager();
+            cache = new ThumbnailCache(new File(props.getProperty(GameProperties.THUMBNAIL_PATH)));
+
+        }
+
+        return cache;
+
+    }
+
+    /**
+     * Returns the thumbnail of an image, reading it from its file if it was
+     * written before, or decoding it from the image otherwise. Either way it
+     * is loaded in the background.
+     *
+     * @param url
+     *          URL of the image.
+     * @param width
+     *          Width of the thumbnail, in pixels.
+     * @param height
+     *          Height of the thumbnail, in pixels.
+     * @return
+     *          The thumbnail, which keeps the ratio of the image within the
+     *          size, and may still be loading.
+     */
+    public Image get(String url, int width, int height) {
+
+        File file = getFile(url, width, height);
+        File source = url.startsWith("file:") ? new File(url.substring(5)) : null;
+        if(file.exists() && (source == null || file.lastModified() >= source.lastModified()))
+            return ImageCache.getCache().get(file.toURI().toString());
+
+        Image thumbnail = ImageCache.getCache().get(url, width, height);
+        if(thumbnail.getProgress() >= 1) {
+
+            store(thumbnail, file);
+
+        } else {
+
+            thumbnail.progressProperty().addListener((observable, was, progress) -> {
+
+                if(progress.doubleValue() >= 1)
+                    store(thumbnail, file);
+
+            });
+
+        }
+
+        return thumbnail;
+
+    }
+
+    /**
+     * Returns the file of the thumbnail of an image at a size, named after
+     * the path of the image.
+     */
+    private File getFile(String url, int width, int height) {
+
+        String name = url.replaceFirst("^file:(\\./)?", "").replaceAll("[/\\\\:]+", "_");
+        int dot = name.lastIndexOf('.');
+        if(dot > 0)
+            name = name.substring(0, dot);
+
+        return new File(directory, name + "_" + width + "x" + height + ".png");
+
+    }
+
+    /**
+     * Writes a decoded thumbnail to its file in the background. The pixels
+     * are copied at once, as the image may only be read on the application
+     * thread.
+     */
+    private void store(Image thumbnail, File file) {
+
+        if(thumbnail.isError())
+            return;
+
+        synchronized(pending) {
+
+            if(!pending.add(file))
+                return;
+
+        }
+
+        int w = (int) thumbnail.getWidth(), h = (int) thumbnail.getHeight();
+        int[] pixels = new int[w * h];
+        thumbnail.getPixelReader().getPixels(0, 0, w, h,
+            WritablePixelFormat.getIntArgbInstance(), pixels, 0, w);
+
+        writer.execute(() -> {
+
+            try {
+
+                BufferedImage image = new BufferedImage(w, h, BufferedImage.TYPE_INT_ARGB);
+                image.setRGB(0, 0, w, h, pixels, 0, w);
+
+                /* Write beside the file first, so a partial file is never read. */
+                directory.mkdirs();
+                File temp = new File(directory, file.getName() + ".tmp");
+                ImageIO.write(image, "png", temp);
+                Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+
+            } catch (IOException e) {
+
+                System.out.println("Thumbnail not saved: " + e.getMessage());
+
+            } finally {
+
+                synchronized(pending) {
+
+                    pending.remove(file);
+
+                }
+
+            }
+
+        });
+
+    }
+
+}
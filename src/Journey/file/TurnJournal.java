@@ -0,0 +1,305 @@
+package Journey.file;
+
+import Journey.game.EngineEvent;
+import Journey.game.EngineState;
+import Journey.game.GameEngine;
+import Journey.game.MapGraph;
+import Journey.game.Move;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Autosave of the game being played. Every move is appended to a journal in
+ * a memory-mapped file, at a cost of RECORD_SIZE bytes, and every
+ * SNAPSHOT_INTERVAL moves the whole game is written as a SavedGame snapshot
+ * and the journal is started again. The records reach the file as soon as
+ * they are put in the mapped buffer, so they survive a crash of the game.
+ * The journal is forced to the storage device at each snapshot and when it
+ * is closed, so a crash of the system loses at most the moves since the
+ * last snapshot.
+ *
+ * A crashed session is recovered by reading the snapshot and playing the
+ * moves of the journal after it with the GameEngine, which also rebuilds the
+ * turns they add to the history. The journal names the snapshot it follows
+ * by the seed, turn, and length of the history of the game, and is ignored
+ * if it follows any other snapshot.
+ *
+ * The records name cities by their IDs in the snapshot, which are bound to
+ * the map by name as the snapshot is, so that a journal is replayed on the
+ * right cities even if the map changed since.
+ *
+ * The journal is a header followed by the records, big-endian:
+ *
+ *     int MAGIC, short VERSION, long seed, int turn, int history
+ *     byte move type + 1, short city ID or die value
+ *
+ * A record whose type is 0 marks the end of the journal.
+ *
+ * @author
+ *          Anthony G. Musco
+ * <dt><b>Date Created</b><dd>
+ *          Dec-14-2014
+ * <dt><b>Class</b><dd>
+ *          CSE 219
+ */
+public class TurnJournal implements Closeable {
+
+    /**
+     * First four bytes of a journal: "JTEJ".
+     */
+    public static final int MAGIC = 0x4A54454A;
+
+    /**
+     * Version of the journal format written by this class.
+     */
+    public static final short VERSION = 1;
+
+    /**
+     * Number of moves between snapshots.
+     */
+    public static final int SNAPSHOT_INTERVAL = 64;
+
+    /**
+     * Size of the header and of each record, in bytes.
+     */
+    private static final int HEADER_SIZE = 22, RECORD_SIZE = 3;
+
+    /**
+     * Size of the mapped region of the journal, in bytes. The region is mapped
+     * again at twice the size if it fills between snapshots.
+     */
+    private static final int INITIAL_CAPACITY = 4096;
+
+    private final Path snapshotFile, journalFile;
+    private final FileChannel channel;
+    private MappedByteBuffer journal;
+    private int records;
+
+    /**
+     * Opens the autosave of a new game, discarding any previous journal. A
+     * snapshot must be taken before the first move is appended.
+     *
+     * @param snapshotFile
+     *          Path of the snapshot.
+     * @param journalFile
+     *          Path of the journal.
+     * @throws IOException
+     *          If the journal cannot be opened.
+     */
+    public TurnJournal(Path snapshotFile, Path journalFile) throws IOException {
+
+        this.snapshotFile = snapshotFile;
+        this.journalFile = journalFile;
+        channel = FileChannel.open(journalFile, StandardOpenOption.CREATE,
+            StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ,
+            StandardOpenOption.WRITE);
+        journal = channel.map(FileChannel.MapMode.READ_WRITE, 0, INITIAL_CAPACITY);
+
+    }
+
+    /**
+     * Writes a snapshot of the game and starts the journal again. Until the
+     * new journal header is written, the old journal still names the old
+     * snapshot and is ignored by recover().
+     *
+     * @param game
+     *          The game being played.
+     * @throws IOException
+     *          If the snapshot cannot be written.
+     */
+    public void snapshot(SavedGame game) throws IOException {
+
+        game.write(snapshotFile);
+
+        /* Clear the records, then name the new snapshot. */
+        for(int k = HEADER_SIZE; k < HEADER_SIZE + records * RECORD_SIZE; k++)
+            journal.put(k, (byte) 0);
+        journal.putInt(0, MAGIC);
+        journal.putShort(4, VERSION);
+        journal.putLong(6, game.getSeed());
+        journal.putInt(14, game.getState().getTurn());
+        journal.putInt(18, game.getTurns().size());
+        records = 0;
+        force();
+
+    }
+
+    /**
+     * Appends a move to the journal.
+     *
+     * @param move
+     *          Move played since the last record.
+     * @throws IOException
+     *          If the journal cannot be grown.
+     */
+    public void append(Move move) throws IOException {
+
+        int offset = HEADER_SIZE + records * RECORD_SIZE;
+        if(offset + 2 * RECORD_SIZE > journal.capacity())
+            journal = channel.map(FileChannel.MapMode.READ_WRITE, 0, 2L * journal.capacity());
+
+        journal.putShort(offset + 1, (short) SavedGame.getValue(move));
+        journal.put(offset, (byte) (move.getType().ordinal() + 1));
+        records++;
+
+    }
+
+    /**
+     * Indicates whether enough moves were appended since the last snapshot
+     * that a new snapshot should be taken.
+     *
+     * @return
+     *          True if a snapshot is due.
+     */
+    public boolean needsSnapshot() {
+
+        return records >= SNAPSHOT_INTERVAL;
+
+    }
+
+    /**
+     * Writes the journal to the storage device, so it also survives a crash
+     * of the system.
+     */
+    public void force() {
+
+        journal.force();
+
+    }
+
+    @Override
+    public void close() throws IOException {
+
+        force();
+        channel.close();
+
+    }
+
+    /**
+     * Closes the autosave and deletes its files, once the game is over.
+     *
+     * @throws IOException
+     *          If the files cannot be deleted.
+     */
+    public void delete() throws IOException {
+
+        close();
+        Files.deleteIfExists(journalFile);
+        Files.deleteIfExists(snapshotFile);
+
+    }
+
+    /**
+     * Recovers an autosaved game: the snapshot, followed by the moves of the
+     * journal. Moves the engine rejects end the recovery, as they can only be
+     * the remains of a record being written in a crash.
+     *
+     * @param snapshotFile
+     *          Path of the snapshot.
+     * @param journalFile
+     *          Path of the journal.
+     * @param graph
+     *          Graph of the map on which the game is to be played.
+     * @return
+     *          The recovered game, or null if there is no snapshot.
+     * @throws IOException
+     *          If the snapshot cannot be read.
+     */
+    public static SavedGame recover(Path snapshotFile, Path journalFile, MapGraph graph)
+      throws IOException {
+
+        if(!Files.exists(snapshotFile))
+            return null;
+
+        SavedGame snapshot = SavedGame.read(snapshotFile, graph);
+        List<Move> moves = readMoves(journalFile, snapshot);
+        if(moves.isEmpty())
+            return snapshot;
+
+        /* Play the moves, rebuilding the history as the board does. */
+        GameEngine engine = new GameEngine(snapshot.getState());
+        List<SavedGame.TurnRecord> turns = new ArrayList<>(snapshot.getTurns());
+        int[] turn = new int[1];
+        engine.addListener((EngineEvent event, EngineState state) -> {
+
+            String description = event.describe();
+            if(description != null)
+                turns.add(new SavedGame.TurnRecord(turn[0], event.getPlayer(),
+                    event.getFrom(), event.getTo(), description, event.getMove()));
+
+        });
+
+        for(Move move : moves) {
+
+            if(engine.check(move) != null)
+                break;
+            turn[0] = engine.getState().getTurn();
+            engine.play(move);
+
+        }
+
+        int players = snapshot.getState().getPlayerCount();
+        String[] names = new String[players];
+        boolean[] computer = new boolean[players];
+        int[] colors = new int[players];
+        for(int seat = 0; seat < players; seat++) {
+
+            names[seat] = snapshot.getName(seat);
+            computer[seat] = snapshot.isComputer(seat);
+            colors[seat] = snapshot.getColor(seat);
+
+        }
+
+        return new SavedGame(snapshot.getSeed(), names, computer, colors,
+            engine.getState(), turns);
+
+    }
+
+    /**
+     * Reads the moves of the journal which follows the snapshot.
+     */
+    private static List<Move> readMoves(Path journalFile, SavedGame snapshot)
+      throws IOException {
+
+        List<Move> moves = new ArrayList<>();
+        if(!Files.exists(journalFile))
+            return moves;
+
+        try (FileChannel channel = FileChannel.open(journalFile, StandardOpenOption.READ)) {
+
+            MappedByteBuffer in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if(in.capacity() < HEADER_SIZE || in.getInt() != MAGIC || in.getShort() > VERSION
+              || in.getLong() != snapshot.getSeed()
+              || in.getInt() != snapshot.getState().getTurn()
+              || in.getInt() != snapshot.getTurns().size())
+                return moves;
+
+            while(in.remaining() >= RECORD_SIZE) {
+
+                Move move = snapshot.toBoundMove(in.get(), in.getShort());
+                if(move == null)
+                    break;
+                moves.add(move);
+
+            }
+
+        } catch(BufferUnderflowException | IndexOutOfBoundsException e) {
+
+            /* The journal ends in a partial record, or one naming a city
+             * which the snapshot did not save. */
+
+        }
+
+        return moves;
+
+    }
+
+}
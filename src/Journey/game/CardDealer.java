@@ -0,0 +1,122 @@
+package Journey.game;
+
+import java.util.SplittableRandom;
+
+/**
+ * Deals the city cards of a game. The cards are kept in one pool per city
+ * color, and each pool is shuffled once with a Fisher-Yates shuffle when the
+ * dealer is constructed. The cards of a hand cycle through the city colors,
+ * so a card is dealt by drawing the next card of its color, and a hand is
+ * dealt in time proportional to its size.
+ *
+ * The same graph and seed always deal the same hands, so the seed of a game
+ * is all that is needed to deal it again.
+ *
+ * @author
+ *          Anthony G. Musco
+ * <dt><b>Date Created</b><dd>
+ *          Dec-14-2014
+ * <dt><b>Class</b><dd>
+ *          CSE 219
+ */
+public class CardDealer {
+
+    /**
+     * Shuffled IDs of the cities of each color, indexed by MapGraph color.
+     */
+    private final int[][] pools;
+
+    /**
+     * Number of cards already dealt from each pool.
+     */
+    private final int[] dealt;
+
+    /**
+     * Constructs a dealer and shuffles its cards.
+     *
+     * @param graph
+     *          Graph of the map, whose cities are the cards.
+     * @param random
+     *          Source of randomness for the shuffle.
+     */
+    public CardDealer(MapGraph graph, SplittableRandom random) {
+
+        /* Sort the cities into their color pools. */
+        int[] sizes = new int[MapGraph.COLORS];
+        for(int id = 0; id < graph.size(); id++)
+            sizes[graph.getColor(id)]++;
+
+        pools = new int[MapGraph.COLORS][];
+        for(int color = 0; color < MapGraph.COLORS; color++)
+            pools[color] = new int[sizes[color]];
+
+        dealt = new int[MapGraph.COLORS];
+        for(int id = 0; id < graph.size(); id++) {
+
+            int color = graph.getColor(id);
+            pools[color][dealt[color]++] = id;
+
+        }
+
+        /* Shuffle each pool once. */
+        for(int color = 0; color < MapGraph.COLORS; color++) {
+
+            int[] pool = pools[color];
+            for(int i = pool.length - 1; i > 0; i--) {
+
+                int j = random.nextInt(i + 1);
+                int temp = pool[j];
+                pool[j] = pool[i];
+                pool[i] = temp;
+
+            }
+            dealt[color] = 0;
+
+        }
+
+    }
+
+    /**
+     * Deals the next card of a color.
+     *
+     * @param color
+     *          MapGraph color of the card.
+     * @return
+     *          The ID of the city dealt.
+     * @throws IllegalStateException
+     *          If no card of the color is left.
+     */
+    public int deal(int color) {
+
+        if(dealt[color] == pools[color].length)
+            throw new IllegalStateException("No cards left of color " + color);
+
+        return pools[color][dealt[color]++];
+
+    }
+
+    /**
+     * Deals a hand to each player. The k-th card of each hand has color
+     * k % MapGraph.COLORS, so the first card, the player's home city, is red.
+     *
+     * @param players
+     *          Number of players.
+     * @param handSize
+     *          Number of cards in each hand.
+     * @return
+     *          The IDs of the cities dealt to each player, by seat.
+     * @throws IllegalStateException
+     *          If not enough cards are left.
+     */
+    public int[][] deal(int players, int handSize) {
+
+        int[][] hands = new int[players][handSize];
+        for(int i = 0; i < players; i++)
+            for(int j = 0; j < handSize; j++)
+                hands[i][j] = deal(j % MapGraph.COLORS);
+
+        return hands;
+
+    }
+
+}
@@ -5,8 +5,11 @@ import Journey.ui.PlayerCardsTray;
 import javafx.animation.ScaleTransition;
 import javafx.animation.SequentialTransition;
 import javafx.animation.TranslateTransition;
+import javafx.beans.value.ChangeListener;
+import javafx.beans.value.ObservableValue;
 import javafx.scene.image.Image;
 import javafx.util.Duration;
+import properties_manager.PropertiesManager;
 
 /**
  * Class which depicts a city card for the game. This class allows the card to
@@ -57,15 +60,28 @@ public class CityCard extends Sprite{
     private DisplayStatus status;
     
     /**
-     * Image for the front of the card.
+     * Image for the front of the card, decoded at the size of the card in the 
+     * tray.
+     */
+    private Image thumbnail;
+    
+    /**
+     * Image for the front of the card, loaded the first time the card is 
+     * enlarged.
      */
     private Image frontImage;
     
     /**
-     * Image for the back of the card.
+     * Image for the back of the card, loaded the first time the card is 
+     * flipped.
      */
     private Image backImage;
     
+    /**
+     * Flag indicating that the back of the card is shown.
+     */
+    private boolean faceDown = false;
+    
     /**
      * Flag used when constructing the edges to the city card.
      */
@@ -99,12 +115,18 @@ public class CityCard extends Sprite{
     void initImages() {
         
         if (constructed) {
-            this.frontImage = city.getFrontImage();
-            this.backImage = city.getBackImage();
-            this.selected = city.getFrontImage();
-            this.unselected = city.getFrontImage();
+            /* Keep the size of the card while its image is loading. */
+            PropertiesManager props = PropertiesManager.getPropertiesManager();
+            setFitWidth(Double.parseDouble(props.getProperty(GameProperties.CARD_WIDTH)));
+            setFitHeight(Double.parseDouble(props.getProperty(GameProperties.CARD_HEIGHT)));
+            
+            this.thumbnail = city.getFrontThumbnail(
+                (int) Math.round(getFitWidth() * PlayerCardsTray.scale),
+                (int) Math.round(getFitHeight() * PlayerCardsTray.scale));
+            this.selected = thumbnail;
+            this.unselected = thumbnail;
             status = DisplayStatus.IN_TRAY;
-            setImage(frontImage);  
+            setImage(thumbnail);  
         }
         
     }
@@ -114,11 +136,48 @@ public class CityCard extends Sprite{
      */
     public void flip() {
         
-        if(getImage() == frontImage) {
+        faceDown = !faceDown;
+        if(faceDown) {
+            if(backImage == null)
+                backImage = city.getBackImage();
             setImage(backImage);
         } else {
-            setImage(frontImage);
+            showFront();
+        }
+    }
+    
+    /**
+     * Shows the full image of the front of the card, once it is loaded. The
+     * thumbnail is shown until then.
+     */
+    private void showFront() {
+        
+        if(frontImage == null) {
+            
+            frontImage = city.getFrontImage();
+            if(frontImage.getProgress() < 1)
+                frontImage.progressProperty().addListener(new ChangeListener<Number>() {
+                    
+                    @Override
+                    public void changed(ObservableValue<? extends Number> observable, 
+                      Number was, Number progress) {
+                        
+                        if(progress.doubleValue() < 1)
+                            return;
+                        
+                        /* Only if the card still shows its front. */
+                        observable.removeListener(this);
+                        if(!faceDown && status != DisplayStatus.IN_TRAY)
+                            setImage(frontImage);
+                        
+                    }
+                    
+                });
+            
         }
+        
+        setImage((frontImage.getProgress() >= 1) ? frontImage : thumbnail);
+        
     }
     
     /**
@@ -187,6 +246,7 @@ public class CityCard extends Sprite{
                 SequentialTransition(moveCardToCenter, enlargeCard);
                 
                 this.status = DisplayStatus.CENTER_UP;
+                showFront();
                 playCardTransition.play();
                 
                 break;
@@ -219,6 +279,12 @@ public class CityCard extends Sprite{
                 /* Play animations sequentially. */
                 SequentialTransition hideCardTransition = new 
                     SequentialTransition(minimizeCard, moveCardToTray);
+                
+                /* Show the thumbnail again once the card is back in the tray. */
+                hideCardTransition.setOnFinished(e->{
+                    if(status == DisplayStatus.IN_TRAY && !faceDown)
+                        setImage(thumbnail);
+                });
                 this.status = DisplayStatus.IN_TRAY;
                 hideCardTransition.play();
                 break;
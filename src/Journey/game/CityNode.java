@@ -1,5 +1,8 @@
 package Journey.game;
 
+import Journey.file.ImageCache;
+import Journey.file.ImageRegistry;
+import Journey.file.ThumbnailCache;
 import java.io.Serializable;
 import java.util.ArrayList;
 import javafx.scene.image.Image;
@@ -38,15 +41,17 @@ public class CityNode extends Sprite implements Serializable {
     boolean isFlightCity;
     
     /**
-     * Used for pathfinding.
+     * Graph of the map to which this city belongs, and the ID of this city in
+     * the graph. Used by the path finding engine.
      */
-    public CityNode prev;
+    MapGraph graph;
+    int cityId = -1;
     
-    /* Image which represents the front of the card for this CityNode. */
-    Image cardFront;
+    /* URL of the image of the front of the card for this CityNode. */
+    String cardFront;
     
-    /* Image which represents the back of the card for this CityNode. */
-    Image cardBack;
+    /* URL of the image of the back of the card for this CityNode. */
+    String cardBack;
     
     /**
      * Collection of Edges to other CityNodes.
@@ -79,12 +84,12 @@ public class CityNode extends Sprite implements Serializable {
      * @param isFlightCity
      *          Whether the city exists on the game flight plan.
      * @param cardFront
-     *          Path to the image for front of this card.
+     *          URL of the image for front of this card, or null.
      * @param cardBack
-     *          Path to the image for the back of this card.
+     *          URL of the image for the back of this card, or null.
      */
     public CityNode(Color color, String name, double x, double y, int section, double flightX,
-            double flightY, boolean isFlightCity, Image cardFront, Image cardBack) {
+            double flightY, boolean isFlightCity, String cardFront, String cardBack) {
         
         super(color, name, x, y);
         this.section = section;
@@ -176,33 +181,55 @@ public class CityNode extends Sprite implements Serializable {
             
         }
         
-        unselected = new Image(imgPath + selStr);
-        selected = new Image(imgPath + unselStr);
+        unselected = ImageRegistry.getImage(imgPath + selStr);
+        selected = ImageRegistry.getImage(imgPath + unselStr);
         
         setImage(unselected);
         
     }
     /**
-     * Returns the reference to the front image associated with this CityNode.
+     * Returns the front image associated with this CityNode. The image is 
+     * loaded in the background through the ImageCache the first time it is 
+     * asked for.
      * 
      * @return
-     *          The reference to the image of the front of this card.
+     *          The image of the front of this card, or null if it has none.
      */     
     public Image getFrontImage() {
         
-        return cardFront;
+        return (cardFront == null) ? null : ImageCache.getCache().get(cardFront);
+        
+    }
+    
+    /**
+     * Returns a small copy of the front image associated with this CityNode, 
+     * decoded at the size at which it is shown, through the ThumbnailCache.
+     * 
+     * @param width
+     *          Width of the thumbnail, in pixels.
+     * @param height
+     *          Height of the thumbnail, in pixels.
+     * @return
+     *          The thumbnail of the front of this card, or null if it has none.
+     */
+    public Image getFrontThumbnail(int width, int height) {
+        
+        return (cardFront == null) ? null 
+            : ThumbnailCache.getCache().get(cardFront, width, height);
         
     }
         
     /**
-     * Returns the reference to the back image associated with this CityNode.
+     * Returns the back image associated with this CityNode. The image is 
+     * loaded in the background through the ImageCache the first time it is 
+     * asked for.
      * 
      * @return
-     *          The reference to the image of the back of this card.
+     *          The image of the back of this card, or null if it has none.
      */
     public Image getBackImage() {
         
-        return cardBack;
+        return (cardBack == null) ? null : ImageCache.getCache().get(cardBack);
         
     }  
     
@@ -251,8 +278,8 @@ public class CityNode extends Sprite implements Serializable {
         
         if(indicated) {
            
-            double offsetY = (getImage().getHeight() * scale * 2);
-            double offsetX = ((getImage().getWidth() * scale) / 2.4);
+            double offsetY = (getImage().getHeight() * 2);
+            double offsetX = (getImage().getWidth() / 2.4);
             indicator.setX(getX() + offsetX);
             indicator.setY(getY() + offsetY);
             indicator.setScaleX(getScaleX() * 3);
@@ -311,5 +338,32 @@ public class CityNode extends Sprite implements Serializable {
         return section;
     
     }
+
+    public int getCityId() {
+    
+        return cityId;
+    
+    }
+
+    public MapGraph getGraph() {
+    
+        return graph;
+    
+    }
+
+    /**
+     * Binds this sprite to its city in the graph of the map.
+     * 
+     * @param graph
+     *          Graph of the map to which this city belongs.
+     * @param id
+     *          ID of this city in the graph.
+     */
+    public void setGraph(MapGraph graph, int id) {
+    
+        this.graph = graph;
+        this.cityId = id;
+    
+    }
     
 }
@@ -0,0 +1,172 @@
+package Journey.game;
+
+/**
+ * Strategy of the computer players. A computer player follows the shortest
+ * route through the cities in its hand, as planned by the PathFinder, one
+ * move at a time: by road, by waiting for the ferry and then crossing, or by
+ * flying wherever the route joins two flight cities.
+ *
+ * The static chooseMove() is shared with the JavaFX layer, which plans routes
+ * for its Player sprites. A ComputerStrategy instance plans and follows the
+ * routes of every seat of a headless game, and must only be used by one
+ * thread at a time.
+ *
+ * @author
+ *          Anthony G. Musco
+ * <dt><b>Date Created</b><dd>
+ *          Dec-13-2014
+ * <dt><b>Class</b><dd>
+ *          CSE 219
+ */
+public class ComputerStrategy {
+
+    /**
+     * PathFinder for the map of the game.
+     */
+    private final PathFinder pathFinder;
+
+    /**
+     * Route of each seat, excluding the city at which it began.
+     */
+    private final int[][] routes;
+
+    /**
+     * Index of the next city on the route of each seat.
+     */
+    private final int[] cursor;
+
+    /**
+     * City at which each seat is expected to be. If a seat is found anywhere
+     * else, its route is planned again.
+     */
+    private final int[] expected;
+
+    /**
+     * Number of routes planned so far.
+     */
+    private int plans;
+
+    /**
+     * Constructs the strategy for a game.
+     *
+     * @param pathFinder
+     *          PathFinder for the map of the game.
+     * @param players
+     *          Number of seats in the game.
+     */
+    public ComputerStrategy(PathFinder pathFinder, int players) {
+
+        this.pathFinder = pathFinder;
+        routes = new int[players][];
+        cursor = new int[players];
+        expected = new int[players];
+
+    }
+
+    /**
+     * Returns the next move of the current player, which must not need to
+     * roll the die (see GameEngine.needsRoll()). The move is assumed to be
+     * played.
+     *
+     * @param s
+     *          State of the game.
+     * @return
+     *          The move of the current player.
+     */
+    public Move nextMove(EngineState s) {
+
+        int p = s.getCurrentPlayer();
+        int here = s.getPosition(p);
+        if(routes[p] == null || here != expected[p]) {
+
+            routes[p] = pathFinder.findShortestPath(here, s.getHand(p), s.getHome(p));
+            cursor[p] = 0;
+            expected[p] = here;
+            plans++;
+
+        }
+
+        int[] route = routes[p];
+        int next = (route != null && cursor[p] < route.length) ? route[cursor[p]] : -1;
+        Move move = chooseMove(s, next);
+        if((move.getType() == Move.Type.TRAVEL || move.getType() == Move.Type.FLY)
+          && move.getCity() == next) {
+
+            cursor[p]++;
+            expected[p] = next;
+
+        } else if(move.getType() == Move.Type.TRAVEL) {
+
+            /* Left the route; plan again on arrival. */
+            expected[p] = move.getCity();
+            routes[p] = null;
+
+        }
+
+        return move;
+
+    }
+
+    /**
+     * Returns the number of routes planned so far.
+     *
+     * @return
+     *          The number of routes planned.
+     */
+    public int getPlanCount() {
+
+        return plans;
+
+    }
+
+    /**
+     * Chooses the move of the current player towards the next city on its
+     * route. Neighbors across the sea are reached by first waiting for the
+     * ferry; cities which are not neighbors are reached by flight, or by
+     * passing the turn until the player has enough points for the fare.
+     *
+     * @param s
+     *          State of the game.
+     * @param next
+     *          ID of the next city on the route, or -1 if there is none.
+     * @return
+     *          The move of the current player.
+     */
+    public static Move chooseMove(EngineState s, int next) {
+
+        int p = s.getCurrentPlayer();
+        MapGraph graph = s.getGraph();
+        int here = s.getPosition(p);
+
+        /* Waiting at port, the player must cross. */
+        if(s.isAtPort(p)) {
+
+            int edge = (next < 0) ? -1 : graph.findEdge(here, next);
+            if(edge >= 0 && graph.getEdgeType(edge) == MapGraph.SEA)
+                return Move.travel(next);
+            for(int e = graph.edgeStart(here); e < graph.edgeEnd(here); e++)
+                if(graph.getEdgeType(e) == MapGraph.SEA)
+                    return Move.travel(graph.getTarget(e));
+
+        }
+
+        if(next < 0)
+            return Move.pass();
+
+        int edge = graph.findEdge(here, next);
+        if(edge < 0) {
+
+            /* Cities which are not neighbors are joined by a flight. */
+            Move fly = Move.fly(next);
+            return (GameEngine.check(s, fly) == null) ? fly : Move.pass();
+
+        }
+
+        if(graph.getEdgeType(edge) == MapGraph.SEA)
+            return Move.waitFerry();
+
+        return Move.travel(next);
+
+    }
+
+}
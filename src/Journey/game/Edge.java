@@ -2,6 +2,9 @@ package Journey.game;
 
 import java.io.Serializable;
 import java.util.HashMap;
+import javafx.beans.property.DoubleProperty;
+import javafx.beans.property.SimpleDoubleProperty;
+import javafx.beans.value.ObservableDoubleValue;
 import javafx.scene.image.Image;
 import javafx.scene.paint.Color;
 import javafx.scene.shape.Line;
@@ -46,6 +49,11 @@ public class Edge extends Line implements Serializable {
      */
     private boolean active = false;
     
+    /**
+     * Width of the stroke of this edge on the screen, in pixels.
+     */
+    private final transient DoubleProperty width = new SimpleDoubleProperty(1);
+    
     /**
      * Constructor which builds an Edge object based on a neighborName and a type.
      * 
@@ -84,7 +92,7 @@ public class Edge extends Line implements Serializable {
             endXProperty().bind(neighborNode.xProperty().add(img.getWidth()/2));
             endYProperty().bind(neighborNode.yProperty().add(img.getHeight()/2));
             setStroke(Color.BLACK);
-            setStrokeWidth(1);
+            width.set(1);
         }catch(Exception e) {
             startXProperty().unbind();
             startYProperty().unbind();
@@ -97,6 +105,19 @@ public class Edge extends Line implements Serializable {
         toBack();
     }
     
+    /**
+     * Keeps the stroke of this edge the same width on the screen at any zoom
+     * of the layer it is drawn in.
+     * 
+     * @param scale 
+     *          Scale of the layer of this edge.
+     */
+    public void bindScale(ObservableDoubleValue scale) {
+        
+        strokeWidthProperty().bind(width.divide(scale));
+        
+    }
+    
     public CityNode getNeighbor() {
         
         return neighborNode;
@@ -119,11 +140,11 @@ public class Edge extends Line implements Serializable {
                 setStroke(Color.RED);
             else
                 setStroke(Color.BLUE);
-            setStrokeWidth(5);
+            width.set(5);
             setVisible(true);
         } else {
             setStroke(Color.BLACK);
-            setStrokeWidth(1);
+            width.set(1);
             setVisible(false);
         }
         
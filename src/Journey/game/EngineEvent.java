@@ -0,0 +1,143 @@
+package Journey.game;
+
+/**
+ * Event published by the GameEngine as it applies a move. The JavaFX layer
+ * subscribes to these events to animate the game; simulations ignore them.
+ *
+ * @author
+ *          Anthony G. Musco
+ * <dt><b>Date Created</b><dd>
+ *          Dec-13-2014
+ * <dt><b>Class</b><dd>
+ *          CSE 219
+ */
+public class EngineEvent {
+
+    /**
+     * Enumeration listing the types of events.
+     *     ROLLED:            The player rolled the die. Value is the roll.
+     *     MOVED:             The player moved by road or sea from one city to
+     *                        another. Value is the MapGraph edge type.
+     *     FLEW:              The player flew from one city to another. Value
+     *                        is the fare.
+     *     CARD_PLAYED:       The player played the card of the city reached.
+     *     HOME_EARLY:        The player reached home before visiting every
+     *                        other city in their hand.
+     *     WAITING_FOR_FERRY: The player ended the turn waiting for the ferry.
+     *     PASSED:            The player ended the turn without moving.
+     *     TURN_STARTED:      A new turn began for the player.
+     *     GAME_WON:          The player won the game.
+     */
+    public enum Type { ROLLED, MOVED, FLEW, CARD_PLAYED, HOME_EARLY,
+        WAITING_FOR_FERRY, PASSED, TURN_STARTED, GAME_WON };
+
+    private final Type type;
+    private final int player, from, to, value;
+
+    /**
+     * Constructs an event.
+     *
+     * @param type
+     *          Type of the event.
+     * @param player
+     *          Seat of the player concerned.
+     * @param from
+     *          ID of the city the player left, or -1.
+     * @param to
+     *          ID of the city the player reached, or -1.
+     * @param value
+     *          Value attached to the event, see Type.
+     */
+    public EngineEvent(Type type, int player, int from, int to, int value) {
+
+        this.type = type;
+        this.player = player;
+        this.from = from;
+        this.to = to;
+        this.value = value;
+
+    }
+
+    public Type getType() {
+
+        return type;
+
+    }
+
+    public int getPlayer() {
+
+        return player;
+
+    }
+
+    public int getFrom() {
+
+        return from;
+
+    }
+
+    public int getTo() {
+
+        return to;
+
+    }
+
+    public int getValue() {
+
+        return value;
+
+    }
+
+    /**
+     * Returns the description of the event in the history of the game.
+     *
+     * @return
+     *          The description of the turn, or null if the event is not
+     *          recorded in the history.
+     */
+    public String describe() {
+
+        switch(type) {
+
+            case ROLLED:            return "Rolled a " + value;
+            case MOVED:             return "Move to City.";
+            case FLEW:              return "Fly to City.";
+            case WAITING_FOR_FERRY: return "Waiting for ferry.";
+            case PASSED:            return "Passed the turn.";
+            default:                return null;
+
+        }
+
+    }
+
+    /**
+     * Returns the move which published the event, so that the history of a
+     * game records the moves from which it can be played again.
+     *
+     * @return
+     *          The move of the current player, or null if the event follows
+     *          from another event rather than from a move.
+     */
+    public Move getMove() {
+
+        switch(type) {
+
+            case ROLLED:            return Move.roll(value);
+            case MOVED:             return Move.travel(to);
+            case FLEW:              return Move.fly(to);
+            case WAITING_FOR_FERRY: return Move.waitFerry();
+            case PASSED:            return Move.pass();
+            default:                return null;
+
+        }
+
+    }
+
+    @Override
+    public String toString() {
+
+        return type + " seat " + player + " " + from + "->" + to + " (" + value + ")";
+
+    }
+
+}
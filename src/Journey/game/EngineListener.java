@@ -0,0 +1,26 @@
+package Journey.game;
+
+/**
+ * Subscriber to the events published by a GameEngine.
+ *
+ * @author
+ *          Anthony G. Musco
+ * <dt><b>Date Created</b><dd>
+ *          Dec-13-2014
+ * <dt><b>Class</b><dd>
+ *          CSE 219
+ */
+public interface EngineListener {
+
+    /**
+     * Called for each event of a move, in order, once the move has been
+     * applied.
+     *
+     * @param event
+     *          The event.
+     * @param state
+     *          State of the game after the move.
+     */
+    void handle(EngineEvent event, EngineState state);
+
+}
@@ -0,0 +1,300 @@
+package Journey.game;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * Immutable state of a game as seen by the GameEngine: the position, points
+ * and hand of each player, whose turn it is, and the winner once there is
+ * one. Players are identified by their seat, which is their index in the
+ * order of play, and cities by their ID in the MapGraph. A state holds no
+ * JavaFX objects, so games can be played without a toolkit.
+ *
+ * @author
+ *          Anthony G. Musco
+ * <dt><b>Date Created</b><dd>
+ *          Dec-13-2014
+ * <dt><b>Class</b><dd>
+ *          CSE 219
+ */
+public class EngineState implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Value of getWinner() while the game is being played.
+     */
+    public static final int NO_WINNER = -1;
+
+    /**
+     * Graph of the map on which the game is played.
+     */
+    final MapGraph graph;
+
+    /**
+     * City, points, and waiting-for-ferry flag of each player, by seat.
+     */
+    final int[] position, points;
+    final boolean[] atPort;
+
+    /**
+     * Cards held by each player, by seat. The first card of each hand is the
+     * player's home city, which is played last.
+     */
+    final int[][] hands;
+
+    /**
+     * Home city of each player, by seat.
+     */
+    final int[] home;
+
+    /**
+     * Seat of the current player, number of the current turn, and seat of the
+     * winner.
+     */
+    int current, turn, winner;
+
+    /**
+     * Whether the current player has rolled the die this turn.
+     */
+    boolean dieRolled;
+
+    /**
+     * Constructs the state of a new game. Every player begins at their home
+     * city, which is the first card of their hand, with no points. The player
+     * in seat 0 plays first.
+     *
+     * @param graph
+     *          Graph of the map on which the game is played.
+     * @param hands
+     *          Cards dealt to each player, by seat, home city first.
+     */
+    public EngineState(MapGraph graph, int[][] hands) {
+
+        int players = hands.length;
+        if(players == 0)
+            throw new IllegalArgumentException("A game requires players.");
+
+        this.graph = graph;
+        this.hands = new int[players][];
+        home = new int[players];
+        position = new int[players];
+        points = new int[players];
+        atPort = new boolean[players];
+        for(int p = 0; p < players; p++) {
+
+            if(hands[p].length == 0)
+                throw new IllegalArgumentException("Empty hand for seat " + p);
+            this.hands[p] = hands[p].clone();
+            home[p] = hands[p][0];
+            position[p] = home[p];
+
+        }
+
+        current = 0;
+        turn = 0;
+        winner = NO_WINNER;
+        dieRolled = false;
+
+    }
+
+    /**
+     * Constructs the state of a game in progress, such as a saved game. A
+     * player whose hand is empty has won.
+     *
+     * @param graph
+     *          Graph of the map on which the game is played.
+     * @param hands
+     *          Cards held by each player, by seat.
+     * @param home
+     *          Home city of each player, by seat.
+     * @param position
+     *          City of each player, by seat.
+     * @param points
+     *          Points of each player, by seat.
+     * @param atPort
+     *          Whether each player is waiting for the ferry, by seat.
+     * @param current
+     *          Seat of the current player.
+     * @param turn
+     *          Number of the current turn.
+     * @param dieRolled
+     *          Whether the current player has rolled the die this turn.
+     */
+    public EngineState(MapGraph graph, int[][] hands, int[] home, int[] position,
+      int[] points, boolean[] atPort, int current, int turn, boolean dieRolled) {
+
+        int players = hands.length;
+        if(players == 0)
+            throw new IllegalArgumentException("A game requires players.");
+        if(home.length != players || position.length != players
+          || points.length != players || atPort.length != players)
+            throw new IllegalArgumentException("Expected " + players + " seats.");
+        if(current < 0 || current >= players)
+            throw new IllegalArgumentException("No seat " + current);
+
+        this.graph = graph;
+        this.hands = new int[players][];
+        for(int p = 0; p < players; p++)
+            this.hands[p] = hands[p].clone();
+        this.home = home.clone();
+        this.position = position.clone();
+        this.points = points.clone();
+        this.atPort = atPort.clone();
+        this.current = current;
+        this.turn = turn;
+        this.dieRolled = dieRolled;
+
+        winner = NO_WINNER;
+        for(int p = 0; p < players && winner == NO_WINNER; p++)
+            if(hands[p].length == 0)
+                winner = p;
+
+    }
+
+    /**
+     * Copy constructor used by the GameEngine to build the state which
+     * follows a move. Hands are shared until they change.
+     */
+    EngineState(EngineState other) {
+
+        graph = other.graph;
+        hands = other.hands.clone();
+        home = other.home;
+        position = other.position.clone();
+        points = other.points.clone();
+        atPort = other.atPort.clone();
+        current = other.current;
+        turn = other.turn;
+        winner = other.winner;
+        dieRolled = other.dieRolled;
+
+    }
+
+    public MapGraph getGraph() {
+
+        return graph;
+
+    }
+
+    public int getPlayerCount() {
+
+        return hands.length;
+
+    }
+
+    /**
+     * Returns the seat of the player whose turn it is.
+     *
+     * @return
+     *          The seat of the current player.
+     */
+    public int getCurrentPlayer() {
+
+        return current;
+
+    }
+
+    public int getTurn() {
+
+        return turn;
+
+    }
+
+    public boolean isDieRolled() {
+
+        return dieRolled;
+
+    }
+
+    /**
+     * Returns the seat of the winner of the game.
+     *
+     * @return
+     *          The seat of the winner, or NO_WINNER if the game is not over.
+     */
+    public int getWinner() {
+
+        return winner;
+
+    }
+
+    public boolean isOver() {
+
+        return winner != NO_WINNER;
+
+    }
+
+    public int getPosition(int seat) {
+
+        return position[seat];
+
+    }
+
+    public int getPoints(int seat) {
+
+        return points[seat];
+
+    }
+
+    public boolean isAtPort(int seat) {
+
+        return atPort[seat];
+
+    }
+
+    public int getHome(int seat) {
+
+        return home[seat];
+
+    }
+
+    public int getHandSize(int seat) {
+
+        return hands[seat].length;
+
+    }
+
+    /**
+     * Returns the cards held by a player.
+     *
+     * @param seat
+     *          Seat of the player.
+     * @return
+     *          A copy of the IDs of the cities in the player's hand.
+     */
+    public int[] getHand(int seat) {
+
+        return hands[seat].clone();
+
+    }
+
+    /**
+     * Indicates whether a player holds the card of a city.
+     *
+     * @param seat
+     *          Seat of the player.
+     * @param city
+     *          ID of the city.
+     * @return
+     *          True if the city is in the player's hand.
+     */
+    public boolean holds(int seat, int city) {
+
+        for(int card : hands[seat])
+            if(card == city)
+                return true;
+
+        return false;
+
+    }
+
+    @Override
+    public String toString() {
+
+        return "Turn " + turn + ", seat " + current + " at " + Arrays.toString(position)
+            + " with " + Arrays.toString(points) + " points";
+
+    }
+
+}
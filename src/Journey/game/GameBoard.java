@@ -1,21 +1,39 @@
 package Journey.game;
 
 import static Journey.game.Player.countOfPlayers;
+import Journey.file.MapTiles;
 import Journey.ui.GamePlayPane;
 import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.Map;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 import java.util.PriorityQueue;
+import javafx.animation.AnimationTimer;
+import javafx.application.Platform;
+import javafx.geometry.Point2D;
+import javafx.geometry.Rectangle2D;
+import javafx.scene.Group;
 import javafx.scene.canvas.Canvas;
 import javafx.scene.canvas.GraphicsContext;
 import javafx.scene.image.Image;
+import javafx.scene.image.ImageView;
 import javafx.scene.input.KeyCode;
 import javafx.scene.input.KeyEvent;
+import javafx.scene.transform.Scale;
+import javafx.scene.transform.Translate;
 
 /**
  * Surface on which the game is played. Wraps the map image in a StackPane, 
  * on top of which CityNodes and edges are rendered.
  * 
+ * The map is drawn from the tiles of its MapTiles pyramid, at the level 
+ * nearest the zoom of the board, and only the tiles in view are drawn.
+ * 
+ * The sprites are laid out at their map coordinates in a single layer over 
+ * the map, which is translated and scaled as the map is drawn. Moving or 
+ * zooming the map only changes the transforms of the layer.
+ * 
  * @author 
  *          Anthony G. Musco
  * <dt><b>Date Created</b><dd>
@@ -31,6 +49,11 @@ public class GameBoard extends Canvas {
      */
     public static final double MAP_SHIFT_AMOUNT = 75;
     
+    /**
+     * Size of the cells of the index of the cities, in map pixels.
+     */
+    public static final double CELL_SIZE = 256;
+    
     /**
      * Origin points for the map relative to the canvas origin (0,0). If these
      * values are negative, it indicates that the viewport begins at the 
@@ -68,10 +91,34 @@ public class GameBoard extends Canvas {
     private double mouseX, mouseY, mouseMapX, mouseMapY;
     
     /**
-     * Image on which the Sprites are to be drawn. Represents the map on which
-     * the game is to be played.
+     * Tiles of the image on which the Sprites are to be drawn. Represents the 
+     * map on which the game is to be played.
+     */
+    private MapTiles map;
+    
+    /**
+     * Tiles in view which are still loading. The map is drawn again as each
+     * one is loaded.
+     */
+    private final Set<Image> loading;
+    
+    /**
+     * Timer which renders the changes of the board at the next pulse, so 
+     * that bursts of drags, key presses and zoom steps are drawn once.
      */
-    private final Image map;
+    private final AnimationTimer redraw;
+    
+    /**
+     * Flag indicating that the viewport changed since the last render, so the
+     * whole board is to be drawn again.
+     */
+    private boolean viewChanged;
+    
+    /**
+     * Regions of the board to be painted again at the next render, such as 
+     * tiles which were loaded.
+     */
+    private final List<Rectangle2D> dirty;
     
     /**
      * GamePlayPane in which this game board sits. This reference is required
@@ -92,20 +139,130 @@ public class GameBoard extends Canvas {
     ArrayList<Player> players;
     
     /**
-     * Public constructor for the GameMap which initializes the map Image to
-     * the indicated parameter.
+     * Index of the cities by their position on the map, from which only the
+     * cities in view are shown.
+     */
+    private final SpatialGrid<CityNode> cityIndex;
+    
+    /**
+     * Cities shown by the last render.
+     */
+    private final Set<CityNode> shown;
+    
+    /**
+     * Layer of the cities, edges and players, in map coordinates.
+     */
+    private final Group layer;
+    
+    /**
+     * Transforms of the layer: the origin of the map on the board, and the 
+     * scale of the map.
+     */
+    private final Translate origin;
+    private final Scale zoom;
+    
+    /**
+     * Public constructor for the GameMap which initializes the map tiles to
+     * the indicated parameter. If the tiles are not cut yet, they are cut in
+     * the background, and an overview of the map is drawn until they are.
      * 
      * @param map 
-     *          Image to initialize the map for the GameBoard.
+     *          Tiles of the map for the GameBoard.
      */
-    public GameBoard(Image map, GamePlayPane parent) {
+    public GameBoard(MapTiles map, GamePlayPane parent) {
 
         this.map = map;
         this.parent = parent;
+        loading = new HashSet<>();
+        dirty = new ArrayList<>();
         cities = new HashMap<>();
         players = new ArrayList<>();
+        cityIndex = new SpatialGrid<>(CELL_SIZE);
+        shown = new HashSet<>();
         scale = 1;
-        drawMap();
+        
+        /* The layer takes no part in the layout of the pane it is in. */
+        origin = new Translate();
+        zoom = new Scale(1, 1, 0, 0);
+        layer = new Group();
+        layer.getTransforms().addAll(origin, zoom);
+        layer.setManaged(false);
+        
+        /* Render the pending changes at the next pulse, then wait for more. */
+        redraw = new AnimationTimer() {
+            
+            @Override
+            public void handle(long now) {
+                
+                stop();
+                flush();
+                
+            }
+            
+        };
+        requestRedraw();
+        
+        if(!map.isReady())
+            map.cutInBackground().thenAcceptAsync(this::setMap, Platform::runLater);
+        
+    }
+    
+    /**
+     * Replaces the tiles of the map, once they are cut, and draws the board 
+     * again.
+     */
+    private void setMap(MapTiles map) {
+        
+        this.map = map;
+        loading.clear();
+        requestRedraw();
+        
+    }
+    
+    /**
+     * Requests that the whole board be drawn again at the next pulse, after a
+     * change of the viewport. Any number of requests within a pulse are drawn
+     * once.
+     */
+    public void requestRedraw() {
+        
+        viewChanged = true;
+        dirty.clear();
+        redraw.start();
+        
+    }
+    
+    /**
+     * Requests that a region of the map be painted again at the next pulse.
+     * 
+     * @param region 
+     *          Region of the board, in the coordinates of the canvas.
+     */
+    public void invalidate(Rectangle2D region) {
+        
+        if(!viewChanged)
+            dirty.add(region);
+        redraw.start();
+        
+    }
+    
+    /**
+     * Renders the changes requested since the last render at once: the whole
+     * board if the viewport changed, or else only the dirty regions.
+     */
+    public void flush() {
+        
+        if(viewChanged) {
+            
+            drawMap();
+            
+        } else {
+            
+            for(Rectangle2D region : dirty)
+                drawTiles(region);
+            dirty.clear();
+            
+        }
         
     }
     
@@ -115,16 +272,178 @@ public class GameBoard extends Canvas {
      */
     public final void drawMap() {
         
+        viewChanged = false;
+        dirty.clear();
         calculateDimensions();
         
         /* Draw the map at the origin point with the indicated scale. */
-        getGraphicsContext2D().drawImage(map, mapOriginX, 
-            mapOriginY, map.getWidth() * scale, 
-            map.getHeight() * scale);
+        drawTiles(new Rectangle2D(0, 0, getWidth(), getHeight()));
         
         drawNodes();
         //debugStats();
-        drawPanes();
+        
+    }
+    
+    /**
+     * Draws the tiles of the map in a region of the board, from the level of
+     * the pyramid nearest the scale. Where a tile is still loading, the same 
+     * part of the overview of the map is drawn until it is loaded.
+     * 
+     * @param region 
+     *          Region of the board, in the coordinates of the canvas.
+     */
+    private void drawTiles(Rectangle2D region) {
+        
+        if(region.getWidth() <= 0 || region.getHeight() <= 0)
+            return;
+        
+        if(!map.isReady()) {
+            
+            drawOverview(region);
+            return;
+            
+        }
+        
+        GraphicsContext gc = getGraphicsContext2D();
+        int level = map.getLevel(scale);
+        
+        /* Size of a tile on the board. */
+        double step = map.getTileSize() / map.getLevelScale(level) * scale;
+        
+        int firstColumn = Math.max(0, (int) Math.floor((region.getMinX() - mapOriginX) / step));
+        int lastColumn = Math.min(map.getColumns(level) - 1, 
+            (int) Math.floor((region.getMaxX() - mapOriginX) / step));
+        int firstRow = Math.max(0, (int) Math.floor((region.getMinY() - mapOriginY) / step));
+        int lastRow = Math.min(map.getRows(level) - 1, 
+            (int) Math.floor((region.getMaxY() - mapOriginY) / step));
+        
+        gc.save();
+        gc.beginPath();
+        gc.rect(region.getMinX(), region.getMinY(), region.getWidth(), region.getHeight());
+        gc.clip();
+        
+        for(int column = firstColumn; column <= lastColumn; column++) {
+            
+            for(int row = firstRow; row <= lastRow; row++) {
+                
+                Rectangle2D bounds = getTileBounds(level, column, row);
+                Image tile = map.getTile(level, column, row);
+                if(tile.getProgress() >= 1 && !tile.isError()) {
+                    
+                    gc.drawImage(tile, bounds.getMinX(), bounds.getMinY(), 
+                        bounds.getWidth(), bounds.getHeight());
+                    
+                } else {
+                    
+                    /* The part of the map under the tile. */
+                    double span = map.getTileSize() / map.getLevelScale(level);
+                    double x = column * span, y = row * span;
+                    Image overview = map.getOverview();
+                    double f = overview.getWidth() / map.getWidth();
+                    gc.drawImage(overview, x * f, y * f, 
+                        Math.min(span, map.getWidth() - x) * f, 
+                        Math.min(span, map.getHeight() - y) * f, 
+                        bounds.getMinX(), bounds.getMinY(), 
+                        bounds.getWidth(), bounds.getHeight());
+                    awaitTile(tile, level, column, row);
+                    
+                }
+                
+            }
+            
+        }
+        
+        gc.restore();
+        
+    }
+    
+    /**
+     * Draws the overview of the map in a region of the board, while the tiles
+     * are still being cut. The board is drawn again once the overview is 
+     * loaded.
+     * 
+     * @param region 
+     *          Region of the board, in the coordinates of the canvas.
+     */
+    private void drawOverview(Rectangle2D region) {
+        
+        Image overview = map.getOverview();
+        if(overview == null || overview.isError())
+            return;
+        
+        if(overview.getProgress() < 1) {
+            
+            if(loading.add(overview))
+                overview.progressProperty().addListener((observable, was, progress) -> {
+                    
+                    if(progress.doubleValue() >= 1 && loading.remove(overview))
+                        requestRedraw();
+                    
+                });
+            return;
+            
+        }
+        
+        GraphicsContext gc = getGraphicsContext2D();
+        gc.save();
+        gc.beginPath();
+        gc.rect(region.getMinX(), region.getMinY(), region.getWidth(), region.getHeight());
+        gc.clip();
+        gc.drawImage(overview, mapOriginX, mapOriginY, 
+            map.getWidth() * scale, map.getHeight() * scale);
+        gc.restore();
+        
+    }
+    
+    /**
+     * Returns the region of the board covered by a tile. The edges are 
+     * rounded so neighboring tiles leave no seams.
+     * 
+     * @param level
+     *          Level of the tile.
+     * @param column
+     *          Column of the tile.
+     * @param row
+     *          Row of the tile.
+     * @return 
+     *          The region of the tile, in the coordinates of the canvas.
+     */
+    private Rectangle2D getTileBounds(int level, int column, int row) {
+        
+        double span = map.getTileSize() / map.getLevelScale(level);
+        double x = column * span, y = row * span;
+        double x0 = Math.floor(mapOriginX + x * scale);
+        double y0 = Math.floor(mapOriginY + y * scale);
+        double x1 = Math.floor(mapOriginX + Math.min(x + span, map.getWidth()) * scale);
+        double y1 = Math.floor(mapOriginY + Math.min(y + span, map.getHeight()) * scale);
+        return new Rectangle2D(x0, y0, x1 - x0, y1 - y0);
+        
+    }
+    
+    /**
+     * Paints a tile again once it is loaded, if it is still in view.
+     * 
+     * @param tile 
+     *          Tile which is still loading.
+     * @param level
+     *          Level of the tile.
+     * @param column
+     *          Column of the tile.
+     * @param row
+     *          Row of the tile.
+     */
+    private void awaitTile(Image tile, int level, int column, int row) {
+        
+        if(tile.isError() || !loading.add(tile))
+            return;
+        
+        tile.progressProperty().addListener((observable, was, progress) -> {
+            
+            if(progress.doubleValue() >= 1 && loading.remove(tile) 
+              && map.getLevel(scale) == level)
+                invalidate(getTileBounds(level, column, row));
+            
+        });
         
     }
     
@@ -210,7 +529,7 @@ public class GameBoard extends Canvas {
         }
         
         /* Draw the map, then draw the nodes on top of the map. */
-        drawMap();
+        requestRedraw();
         
         /* Reset the drag point. */
         dragStartX = dragNewX;
@@ -271,7 +590,7 @@ public class GameBoard extends Canvas {
         }
         
         /* Redraw the map, then draw all nodes on top of the map. */
-        drawMap();
+        requestRedraw();
         
     }
     
@@ -388,30 +707,34 @@ public class GameBoard extends Canvas {
     }
     
     /**
-     * Draws all of the nodes on the game board using the boards graphics
-     * context. Cities are drawn on the board first, so that players can be 
-     * seen as standing "on top" of them.
+     * Moves the layer of the nodes with the map, then shows only the cities 
+     * in view. The players move with the layer, so they are left where they
+     * are.
      */
     private void drawNodes() {
         
-        /* Draw all of the cities at their corresponding location. */
-        for (Map.Entry<String, CityNode> entry : cities.entrySet()) {
-            
-            CityNode city = entry.getValue();
-            city.center(mapOriginX + offsetX, mapOriginY + offsetY, scale);
-            city.toFront();
+        origin.setX(mapOriginX);
+        origin.setY(mapOriginY);
+        zoom.setX(scale);
+        zoom.setY(scale);
+        
+        /* Find the cities in view, and hide those which left it. */
+        List<CityNode> inView = cityIndex.query(-mapOriginX / scale, 
+            -mapOriginY / scale, (viewWidth - mapOriginX) / scale, 
+            (viewHeight - mapOriginY) / scale);
+        Set<CityNode> visible = new HashSet<>(inView);
+        for (CityNode city : shown)
+            if(!visible.contains(city))
+                city.setVisible(false);
+        shown.clear();
+        
+        /* Show the cities in view. */
+        for (CityNode city : inView) {
             
-        }
-        
-        /* Draw all of the players at their corresponding location. */
-        for (Player p : players) {
-
-            p.center(mapOriginX + offsetX, mapOriginY + offsetY, scale);
-            p.toFront();
+            city.setVisible(true);
+            shown.add(city);
             
         }
-        if(CityNode.indicator != null)
-            CityNode.indicator.toFront();
         
     }
 
@@ -423,7 +746,21 @@ public class GameBoard extends Canvas {
      */
     public void addPlayer(Player player) {
        
+        /* Players are shown "on top" of the cities, under the indicator. */
         players.add(player);
+        layer.getChildren().add(player);
+        if(CityNode.indicator != null && CityNode.indicator.getParent() == layer)
+            CityNode.indicator.toFront();
+        
+    }
+    
+    /**
+     * Removes the players of the previous game from the game board.
+     */
+    public void clearPlayers() {
+        
+        layer.getChildren().removeAll(players);
+        players.clear();
         
     }
 
@@ -436,6 +773,77 @@ public class GameBoard extends Canvas {
     public void addCity(CityNode city) {
         
         cities.put(city.getName(), city);
+        cityIndex.add(city);
+        shown.add(city);
+        
+        /* Cities are placed once, their edges behind every node. */
+        city.center();
+        for(Edge edge : city.getEdges())
+            edge.bindScale(zoom.xProperty());
+        layer.getChildren().add(city);
+        layer.getChildren().addAll(0, city.getEdges());
+        
+    }
+    
+    /**
+     * Removes the cities of the previous game, and their edges, from the game
+     * board.
+     */
+    public void clearCities() {
+        
+        for (CityNode city : cities.values()) {
+            
+            layer.getChildren().remove(city);
+            layer.getChildren().removeAll(city.getEdges());
+            
+        }
+        cities.clear();
+        cityIndex.clear();
+        shown.clear();
+        
+    }
+    
+    /**
+     * Shows the indicator of the city cards over the cities.
+     * 
+     * @param indicator 
+     *          Image pointing to the city of a card.
+     */
+    public void setIndicator(ImageView indicator) {
+        
+        if(indicator != null && indicator.getParent() != layer)
+            layer.getChildren().add(indicator);
+        
+    }
+    
+    /**
+     * Returns the layer of the nodes on the map, which is to be laid over the
+     * game board.
+     * 
+     * @return 
+     *          The Group of the cities, edges, and players.
+     */
+    public Group getLayer() {
+        
+        return layer;
+        
+    }
+    
+    /**
+     * Returns the city at a point of the scene, such as the mouse.
+     * 
+     * @param sceneX
+     *          Horizontal coordinate of the point in the scene.
+     * @param sceneY
+     *          Vertical coordinate of the point in the scene.
+     * @return 
+     *          The city under the point, or null if there is none in view.
+     */
+    public CityNode getCityAt(double sceneX, double sceneY) {
+        
+        Point2D point = layer.sceneToLocal(sceneX, sceneY);
+        CityNode city = cityIndex.hitTest(point.getX(), point.getY());
+        return (city != null && city.isVisible()) ? city : null;
         
     }
      
@@ -487,13 +895,6 @@ public class GameBoard extends Canvas {
         
     }
 
-    private void drawPanes() {
- 
-        if(parent != null)
-            parent.drawPanes();
-        
-    }
-
     /**
      * Calculates the layout dimensions for this gameboard.
      */
@@ -526,12 +927,19 @@ public class GameBoard extends Canvas {
 
     public void initPlayerPositions() {
         
+        /* The layer must be in place before the players are placed on it. */
+        flush();
+        
+        /* Players start at their own size in the center of the view. */
+        Point2D center = layer.parentToLocal(viewWidth / 2, viewHeight / 2);
         for(Player p : players) {
             
-            p.setScaleX(1);
-            p.setScaleY(1);
-            p.setX((getWidth() / 2) - (p.getImage().getWidth() / 3));
-            p.setY((getHeight() / 2) - (p.getImage().getHeight() / 2) );
+            p.setTranslateX(0);
+            p.setTranslateY(0);
+            p.setScaleX(1 / scale);
+            p.setScaleY(1 / scale);
+            p.setX(center.getX() - (p.getImage().getWidth() / 2));
+            p.setY(center.getY() - (p.getImage().getHeight() / 2));
             
         }
         
@@ -1,6 +1,5 @@
 package Journey.game;
 
-import static Journey.game.CityNode.CityColor;
 import Journey.manager.GameManager.GameState;
 import Journey.ui.JourneyUI;
 import Journey.ui.MessageBox;
@@ -8,7 +7,10 @@ import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.GregorianCalendar;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.SplittableRandom;
+import javafx.animation.ParallelTransition;
 import javafx.animation.PauseTransition;
 import javafx.animation.SequentialTransition;
 import javafx.collections.FXCollections;
@@ -38,11 +40,6 @@ public class GameData implements Serializable {
      */
     public static final int HAND_SIZE = 9;
     
-    /**
-     * Number of iterations of the Fisher-Yates shuffle.
-     */
-    public static final int SHUFFLE_TIMES = 5;
-    
     /**
      * Collection of players currently playing the game.
      */
@@ -50,7 +47,7 @@ public class GameData implements Serializable {
     
     /**
      * Collection of CityNode cards for the game. When the game begins, the
-     * deck is shuffled and distributed to the players.
+     * cards are dealt to the players by a CardDealer.
      */
     public ArrayList<CityNode> deck;
     HashMap<String, CityNode> cities;
@@ -75,6 +72,12 @@ public class GameData implements Serializable {
      */
     public boolean dieRolled;
     
+    /**
+     * Seed from which the cards of this game are dealt and its die rolled. 
+     * The same seed always deals the same hands.
+     */
+    public long seed;
+    
     /**
      * Start and end times of the game.
      */
@@ -92,6 +95,32 @@ public class GameData implements Serializable {
     
     volatile private JourneyUI ui;
     
+    /**
+     * Route finder for the map of this game. Shared by every player, and safe
+     * to query from any thread. Rebuilt from the cities when a saved game is
+     * loaded.
+     */
+    private transient PathFinder pathFinder;
+    
+    /**
+     * Engine playing the moves of this game. The Player sprites follow the
+     * state of the engine. Rebuilt from the players when a saved game is 
+     * loaded.
+     */
+    private transient GameEngine engine;
+    
+    /**
+     * Operations played by the engine since the game was started or loaded,
+     * which may be undone and redone.
+     */
+    private transient OperationStack operations;
+    
+    /**
+     * Source of randomness of the deal of this game, seeded from the seed of
+     * the game.
+     */
+    private transient SplittableRandom random;
+    
     /**
      * Default constructor for the GameData. This initializes all variables and
      * sets the game up to be played.
@@ -122,6 +151,9 @@ public class GameData implements Serializable {
             deck.add(node);
         }
         
+        /* Index the map for path finding. */
+        pathFinder = new PathFinder(map.values());
+        
         /* Add the list of turns for the game. */
         turns = FXCollections.observableArrayList();
         
@@ -130,12 +162,33 @@ public class GameData implements Serializable {
         
         /* Set the players. */
         this.players = players;
+        for(Player p : players)
+            p.setGameData(this);
         
         currentPlayer = null;
         
         /* Initialize die rolled flag to false. */
         dieRolled = false;
         
+        /* Choose the seed of the game. */
+        seed = new SplittableRandom().nextLong();
+        
+    }
+    
+    /**
+     * Returns the route finder for the map of this game, indexing the map
+     * first if necessary.
+     * 
+     * @return 
+     *          The PathFinder of this game.
+     */
+    public synchronized PathFinder getPathFinder() {
+        
+        if(pathFinder == null)
+            pathFinder = new PathFinder(cities.values());
+        
+        return pathFinder;
+        
     }
     
     /**
@@ -150,26 +203,247 @@ public class GameData implements Serializable {
         /* Set the turn to 0. */
         currentTurn = 0;
         
+        /* Seed the deal and the die. */
+        random = new SplittableRandom(seed);
+        
         /* Set the start time of the game. */
         startTime = new GregorianCalendar();
         
         /* Update the game state to 'playing'. */
         state = GameState.PLAYING;
         
-        /* Deal the cards and return the animation of the deal. */
-        return dealCards();
+        /* Deal the cards, and start the engine on the hands dealt. */
+        SequentialTransition deal = dealCards();
+        engine = newEngine();
+        operations = new OperationStack(engine.getState());
+        
+        /* Return the animation of the deal. */
+        return deal;
+        
+    }
+    
+    /**
+     * Continues a saved game. Every player is dealt the cards left in their
+     * hand and moved to their city, and the engine continues from the saved
+     * state. The players must be on the game board.
+     * 
+     * @param saved
+     *          State of the saved game.
+     * @param seed
+     *          Seed of the saved game.
+     * @param history
+     *          Turns played before the game was saved.
+     * @return 
+     *          The animation of dealing the hands and moving the players.
+     */
+    public SequentialTransition restore(EngineState saved, long seed, List<Turn> history) {
+        
+        /* Continue the engine and the turn from the saved state. */
+        this.seed = seed;
+        random = null;
+        engine = new GameEngine(saved);
+        operations = new OperationStack(saved);
+        currentTurn = saved.getTurn();
+        currentPlayer = players.get(saved.getCurrentPlayer());
+        dieRolled = saved.isDieRolled();
+        state = GameState.PLAYING;
+        startTime = new GregorianCalendar();
+        turns.setAll(history);
+        
+        /* Deal the hands and move the players to their cities. */
+        List<CityNode> cards = getPathFinder().getCities();
+        ParallelTransition deal = new ParallelTransition();
+        ParallelTransition move = new ParallelTransition();
+        for(int seat = 0; seat < players.size(); seat++) {
+            
+            Player p = players.get(seat);
+            p.setHomeCity(cards.get(saved.getHome(seat)));
+            for(int card : saved.getHand(seat))
+                deal.getChildren().add(p.dealCity(cards.get(card)));
+            move.getChildren().add(p.moveToCity(cards.get(saved.getPosition(seat))));
+            p.setPoints(saved.getPoints(seat));
+            p.setAtPort(saved.isAtPort(seat));
+            
+        }
+        
+        SequentialTransition st = new SequentialTransition(deal, move);
+        st.setAutoReverse(false);
+        return st;
+        
+    }
+    
+    /**
+     * Returns the engine playing the moves of this game, rebuilding it from 
+     * the players first if necessary.
+     * 
+     * @return 
+     *          The GameEngine of this game.
+     */
+    public synchronized GameEngine getEngine() {
+        
+        if(engine == null)
+            engine = newEngine();
+        
+        return engine;
+        
+    }
+    
+    /**
+     * Returns the stack of the operations played in this game.
+     * 
+     * @return 
+     *          The OperationStack of this game.
+     */
+    public synchronized OperationStack getOperations() {
+        
+        if(operations == null)
+            operations = new OperationStack(getEngine().getState());
+        
+        return operations;
+        
+    }
+    
+    /**
+     * Returns the game to an earlier or later state, after moves were undone
+     * or redone. The engine continues from the state, the turns of the moves
+     * undone are removed from the history, and every player is dealt the 
+     * cards returned to their hand and moved to their city.
+     * 
+     * @param s
+     *          State to which the game returns.
+     * @param undone
+     *          Number of moves undone, whose turns are removed.
+     * @return 
+     *          The animation of dealing the cards and moving the players.
+     */
+    public ParallelTransition rewind(EngineState s, int undone) {
+        
+        engine = new GameEngine(s);
+        turns.remove(Math.max(0, turns.size() - undone), turns.size());
+        
+        List<CityNode> cards = getPathFinder().getCities();
+        ParallelTransition pt = new ParallelTransition();
+        for(int seat = 0; seat < players.size(); seat++) {
+            
+            Player p = players.get(seat);
+            for(int card : s.getHand(seat))
+                if(!p.getHand().contains(cards.get(card)))
+                    pt.getChildren().add(p.dealCity(cards.get(card)));
+            
+            CityNode city = cards.get(s.getPosition(seat));
+            if(p.getCurrentCity() != city)
+                pt.getChildren().add(p.moveToCity(city));
+            p.setPoints(s.getPoints(seat));
+            p.setAtPort(s.isAtPort(seat));
+            p.invalidateShortestPath();
+            
+        }
+        
+        return pt;
+        
+    }
+    
+    /**
+     * Constructs an engine whose state matches the players: their hands, 
+     * cities, points, and the current turn.
+     */
+    private GameEngine newEngine() {
+        
+        int[][] hands = new int[players.size()][];
+        for(int seat = 0; seat < hands.length; seat++) {
+            
+            ArrayList<CityNode> hand = players.get(seat).getHand();
+            hands[seat] = new int[hand.size()];
+            for(int k = 0; k < hand.size(); k++)
+                hands[seat][k] = hand.get(k).getCityId();
+            
+        }
+        
+        int[] home = new int[hands.length];
+        int[] position = new int[hands.length];
+        int[] points = new int[hands.length];
+        boolean[] atPort = new boolean[hands.length];
+        for(int seat = 0; seat < hands.length; seat++) {
+            
+            Player p = players.get(seat);
+            home[seat] = (p.getHomeCity() != null) ? p.getHomeCity().getCityId() : hands[seat][0];
+            position[seat] = (p.getCurrentCity() != null) ? p.getCurrentCity().getCityId() : home[seat];
+            points[seat] = (currentPlayer == null) ? 0 : p.getPoints();
+            atPort[seat] = p.isAtPort();
+            
+        }
+        
+        EngineState s = new EngineState(getPathFinder().getGraph(), hands, home,
+            position, points, atPort, 
+            (currentPlayer == null) ? 0 : players.indexOf(currentPlayer), 
+            currentTurn, dieRolled);
+        return new GameEngine(s);
+        
+    }
+    
+    /**
+     * Rolls the die. The die is rolled once a turn, and the roll is drawn 
+     * from the seed of the game and the turn of the engine, so a roll which
+     * is undone comes up again when the die is rolled at that turn again.
+     * 
+     * @return 
+     *          A random value from 1 to GameEngine.DIE_SIDES.
+     */
+    public int rollDie() {
+        
+        long turn = getEngine().getState().getTurn();
+        return new SplittableRandom(seed ^ (turn * 0x9E3779B97F4A7C15L))
+            .nextInt(GameEngine.DIE_SIDES) + 1;
+        
+    }
+    
+    /**
+     * Returns the source of randomness of this game. A game which was loaded
+     * continues with a source seeded from its seed and current turn.
+     */
+    private SplittableRandom getRandom() {
+        
+        if(random == null)
+            random = new SplittableRandom(seed ^ currentTurn);
+        
+        return random;
+        
+    }
+    
+    /**
+     * Public getter method for the seed of this game.
+     * 
+     * @return 
+     *          The seed from which the cards were dealt.
+     */
+    public long getSeed() {
+        
+        return seed;
+        
+    }
+    
+    /**
+     * Sets the seed of this game, so that the game is dealt as a previous 
+     * game with the same seed was. Has no effect once the game has begun.
+     * 
+     * @param seed
+     *          Seed of the game.
+     */
+    public void setSeed(long seed) {
+        
+        this.seed = seed;
         
     }
 
     /**
-     * Clears every player's hand to an empty HashMap of CityNode cards, and 
-     * deals new CityNode cards from the top of the deck. Each Player will 
-     * receive HAND_SIZE number of cards.
+     * Deals HAND_SIZE new CityNode cards to every player, cycling through the
+     * city colors, from a CardDealer seeded by this game.
      */
     private SequentialTransition dealCards() {
 
-        /* Shuffle the deck. */
-        shuffle();
+        /* Shuffle the cards. */
+        CardDealer dealer = new CardDealer(getPathFinder().getGraph(), getRandom());
+        List<CityNode> cards = getPathFinder().getCities();
         
         /* Construct the sequential transition of dealing the hand. */
         SequentialTransition st = new SequentialTransition();
@@ -180,16 +454,9 @@ public class GameData implements Serializable {
             SequentialTransition st2 = new SequentialTransition();
             for(int j = 0; j < HAND_SIZE; j++) {
                 
-                /* While the card is the incorrect color, cycle card to bottom. */
-                while(!deck.get(0).getColor().equals(
-                        CityColor[j % CityColor.length])) {
-                    
-                    deck.add(deck.remove(0));
-                    
-                }
-                
-                /* Deal the next card. */
-                st2.getChildren().add(players.get(i).dealCity(deck.remove(0)));
+                /* Deal the next card of the color. */
+                CityNode card = cards.get(dealer.deal(j % MapGraph.COLORS));
+                st2.getChildren().add(players.get(i).dealCity(card));
                 
                 /* Put the card tray to the back of the stack pane. */
                 players.get(i).getCardTray().toBack();
@@ -217,51 +484,38 @@ public class GameData implements Serializable {
     }    
     
     /**
-     * Shuffles the deck to a random ordering.
+     * Deals the hands of a game without any sprites, the way dealCards() 
+     * deals them. The first card of each hand is the player's home city.
+     * 
+     * @param graph
+     *          Graph of the map.
+     * @param players
+     *          Number of players.
+     * @param random
+     *          Source of randomness for the shuffle.
+     * @return 
+     *          The IDs of the cities dealt to each player, by seat.
      */
-    private void shuffle() {
-
-        int count = SHUFFLE_TIMES;
+    public static int[][] dealHands(MapGraph graph, int players, SplittableRandom random) {
         
-        while(count > 0 ) {
-            
-            for(int i = 0; i < deck.size(); i++) {
-
-                /* For each card at i, swap with random card. */
-                int j = (int) (Math.random() * deck.size());
-                CityNode temp = deck.get(j);
-                deck.set(j, deck.get(i));
-                deck.set(i, temp);
-
-            }
-            count--;
-            
-        }
+        return new CardDealer(graph, random).deal(players, HAND_SIZE);
         
     }
     
     /**
-     * If the current players points are less than or equal to 0, this method
-     * sets the value of current player to the next player in line to play the 
-     * game. Otherwise the player remains the same.
+     * Sets the current player to the player whose turn it is in the state of
+     * the engine. The engine passes the turn once the current player has no
+     * points left, skipping players with negative points.
      * 
      * @return
      *          A reference to the next player in line to play the game.
      */
     public Player getNextPlayer() {
         
-        /* Get next player if current turn is over. */
-        if(currentPlayer.getPoints() <= 0) {
-            currentPlayer = players.get(++currentTurn % players.size());
-            
-            dieRolled = false;
-        }
-        
-        /*Skip players with negative points.*/
-        while(currentPlayer.getPoints() < 0) {
-            currentPlayer.addPoints(1); /* Increment points (skip turn). */
-            currentPlayer = players.get(++currentTurn % players.size());
-        }
+        EngineState s = getEngine().getState();
+        currentPlayer = players.get(s.getCurrentPlayer());
+        currentTurn = s.getTurn();
+        dieRolled = s.isDieRolled();
             
         /* Return the next player. */
         currentPlayer.getCardTray().toFront();
@@ -269,6 +523,24 @@ public class GameData implements Serializable {
         
     }
 
+    /**
+     * Returns the player who will play after the current move, without
+     * advancing the turn. Players who will skip their turn are passed over.
+     * Used to prepare the next turn while the current one is animated.
+     * 
+     * @return 
+     *          The player expected to play next, or null if the game has not
+     *          begun.
+     */
+    public Player peekNextPlayer() {
+        
+        if(currentPlayer == null || players.isEmpty())
+            return null;
+        
+        return players.get(getEngine().getState().getCurrentPlayer());
+        
+    }
+
     /**
      * Sets the winner of this game to the indicated player and sets it state 
      * to OVER. If there is no winner, (winner == null), then the game ends
@@ -323,15 +595,32 @@ public class GameData implements Serializable {
         
     }
     
+    /**
+     * Records a turn in the history of the game.
+     * 
+     * @param player
+     *          Player who played the turn.
+     * @param fromCity
+     *          City the player left, or null.
+     * @param toCity
+     *          City the player reached, or null.
+     * @param description
+     *          Description of the turn.
+     * @param move
+     *          Move the player played, from which the turn can be played 
+     *          again, or null.
+     */
     public void addTurn(Player player, CityNode fromCity, CityNode toCity, 
-      String description){
+      String description, Move move){
         
         String playerName = (player == null) ? "N/a" : player.getName();
         String fromCityName = (fromCity == null) ? "N/a" : fromCity.getName();
         String toCityName = (toCity == null) ? "N/a" : toCity.getName();
         
-        turns.add(new Turn(currentTurn, playerName, fromCityName, toCityName,
-          description));
+        turns.add(new Turn(currentTurn, players.indexOf(player), playerName, 
+          (fromCity == null) ? -1 : fromCity.getCityId(), fromCityName, 
+          (toCity == null) ? -1 : toCity.getCityId(), toCityName, description, 
+          move));
         
     }
 
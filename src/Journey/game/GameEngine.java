@@ -0,0 +1,373 @@
+package Journey.game;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Rules of the Journey game. The engine turns a state and a move into the
+ * state which follows it, and never touches the JavaFX objects of the board,
+ * so complete games can be played without a toolkit.
+ *
+ * The rules are static functions of the state, and may be applied directly by
+ * simulations. An engine instance additionally holds the state of one game
+ * and publishes the events of each move it plays to its listeners, which is
+ * how the board learns what to animate.
+ *
+ * @author
+ *          Anthony G. Musco
+ * <dt><b>Date Created</b><dd>
+ *          Dec-13-2014
+ * <dt><b>Class</b><dd>
+ *          CSE 219
+ */
+public class GameEngine {
+
+    /**
+     * Number of sides of the die.
+     */
+    public static final int DIE_SIDES = 6;
+
+    /**
+     * Current state of the game.
+     */
+    private EngineState state;
+
+    /**
+     * Subscribers to the events of the game.
+     */
+    private final List<EngineListener> listeners;
+
+    /**
+     * Constructs an engine playing the game from the indicated state.
+     *
+     * @param initial
+     *          State at which the game begins.
+     */
+    public GameEngine(EngineState initial) {
+
+        state = initial;
+        listeners = new CopyOnWriteArrayList<>();
+
+    }
+
+    public EngineState getState() {
+
+        return state;
+
+    }
+
+    public void addListener(EngineListener listener) {
+
+        listeners.add(listener);
+
+    }
+
+    public void removeListener(EngineListener listener) {
+
+        listeners.remove(listener);
+
+    }
+
+    /**
+     * Returns the reason the move may not be played in the current state.
+     *
+     * @param move
+     *          The move of the current player.
+     * @return
+     *          A message explaining why the move is illegal, or null if the
+     *          move is legal.
+     */
+    public String check(Move move) {
+
+        return check(state, move);
+
+    }
+
+    /**
+     * Plays a move of the current player and publishes its events.
+     *
+     * @param move
+     *          The move of the current player.
+     * @return
+     *          The state after the move.
+     * @throws IllegalArgumentException
+     *          If the move is illegal.
+     */
+    public EngineState play(Move move) {
+
+        List<EngineEvent> events = new ArrayList<>();
+        state = apply(state, move, events);
+        for(EngineEvent event : events)
+            for(EngineListener listener : listeners)
+                listener.handle(event, state);
+
+        return state;
+
+    }
+
+    /**
+     * Indicates whether the current player must roll the die before moving.
+     *
+     * @param s
+     *          State of the game.
+     * @return
+     *          True if the next move of the current player must be a ROLL.
+     */
+    public static boolean needsRoll(EngineState s) {
+
+        return !s.isOver() && !s.dieRolled && !s.atPort[s.current];
+
+    }
+
+    /**
+     * Returns the reason a move may not be played in the indicated state.
+     *
+     * @param s
+     *          State of the game.
+     * @param move
+     *          The move of the current player.
+     * @return
+     *          A message explaining why the move is illegal, or null if the
+     *          move is legal.
+     */
+    public static String check(EngineState s, Move move) {
+
+        if(s.isOver())
+            return "The game is over.";
+
+        int p = s.current;
+        MapGraph graph = s.graph;
+        int here = s.position[p];
+        switch(move.getType()) {
+
+            case ROLL:
+                if(s.dieRolled)
+                    return "Die already rolled.";
+                if(s.atPort[p])
+                    return "Must select a port city!";
+                if(move.getDieValue() < 1 || move.getDieValue() > DIE_SIDES)
+                    return "Invalid roll: " + move.getDieValue();
+                return null;
+
+            case TRAVEL:
+                if(!isCity(s, move.getCity()))
+                    return "No such city.";
+                if(!s.atPort[p] && !s.dieRolled)
+                    return "Must first roll die.";
+                int edge = graph.findEdge(here, move.getCity());
+                if(edge < 0)
+                    return "Cannot move to " + graph.getName(move.getCity());
+                if(graph.getEdgeType(edge) == MapGraph.SEA && !s.atPort[p])
+                    return "Cannot move accross port!";
+                if(graph.getEdgeType(edge) != MapGraph.SEA && s.atPort[p])
+                    return "Must select a port city!";
+                if(!s.atPort[p] && s.points[p] <= 0)
+                    return "No points left.";
+                return null;
+
+            case WAIT_FERRY:
+                if(s.atPort[p])
+                    return "Already waiting for the ferry.";
+                for(int e = graph.edgeStart(here); e < graph.edgeEnd(here); e++)
+                    if(graph.getEdgeType(e) == MapGraph.SEA)
+                        return null;
+                return "Cannot take ferry here.";
+
+            case FLY:
+                int to = move.getCity();
+                if(!isCity(s, to) || to == here || !graph.isFlightCity(here)
+                  || !graph.isFlightCity(to))
+                    return "Cannot fly from here.";
+                int fare = TurnCostModel.getFlightFare(graph.getSection(here),
+                    graph.getSection(to));
+                if(fare == RouteCostModel.UNAVAILABLE || s.points[p] < fare)
+                    return "Cannot fly from here.";
+                return null;
+
+            case PASS:
+                return null;
+
+        }
+
+        return "Unknown move.";
+
+    }
+
+    /**
+     * Applies a move of the current player.
+     *
+     * @param s
+     *          State of the game.
+     * @param move
+     *          The move of the current player.
+     * @return
+     *          The state after the move.
+     * @throws IllegalArgumentException
+     *          If the move is illegal.
+     */
+    public static EngineState apply(EngineState s, Move move) {
+
+        return apply(s, move, null);
+
+    }
+
+    /**
+     * Applies a move of the current player, adding its events to the list if
+     * one is given.
+     */
+    static EngineState apply(EngineState s, Move move, List<EngineEvent> events) {
+
+        String reason = check(s, move);
+        if(reason != null)
+            throw new IllegalArgumentException(reason);
+
+        EngineState next = new EngineState(s);
+        int p = next.current;
+        int here = next.position[p];
+        switch(move.getType()) {
+
+            case ROLL:
+                next.points[p] += move.getDieValue();
+                next.dieRolled = true;
+                publish(events, EngineEvent.Type.ROLLED, p, -1, -1, move.getDieValue());
+                break;
+
+            case TRAVEL:
+                int to = move.getCity();
+                int edge = s.graph.findEdge(here, to);
+                byte type = s.graph.getEdgeType(edge);
+                next.position[p] = to;
+                if(type == MapGraph.SEA) {
+
+                    /* Crossing by sea takes the whole turn. */
+                    next.atPort[p] = false;
+                    next.points[p] = 0;
+
+                } else {
+
+                    next.points[p]--;
+
+                }
+                publish(events, EngineEvent.Type.MOVED, p, here, to, type);
+                arrive(next, events);
+                break;
+
+            case WAIT_FERRY:
+                next.atPort[p] = true;
+                next.points[p] = 0;
+                publish(events, EngineEvent.Type.WAITING_FOR_FERRY, p, here, -1, 0);
+                break;
+
+            case FLY:
+                int dest = move.getCity();
+                int fare = TurnCostModel.getFlightFare(s.graph.getSection(here),
+                    s.graph.getSection(dest));
+                next.position[p] = dest;
+                next.atPort[p] = false;
+                next.points[p] = 0;
+                publish(events, EngineEvent.Type.FLEW, p, here, dest, fare);
+                arrive(next, events);
+                break;
+
+            case PASS:
+                next.points[p] = 0;
+                publish(events, EngineEvent.Type.PASSED, p, here, -1, 0);
+                break;
+
+        }
+
+        /* Hand the turn on once the player has no points left. */
+        if(!next.isOver() && next.points[p] <= 0)
+            advance(next, events);
+
+        return next;
+
+    }
+
+    /**
+     * Plays the card of the city the current player arrived at, if the player
+     * holds it. Playing a card ends the turn, and playing the home card last
+     * wins the game.
+     */
+    private static void arrive(EngineState s, List<EngineEvent> events) {
+
+        int p = s.current;
+        int city = s.position[p];
+        int[] hand = s.hands[p];
+        int index = -1;
+        for(int k = 0; k < hand.length && index < 0; k++)
+            if(hand[k] == city)
+                index = k;
+        if(index < 0)
+            return;
+
+        if(city == s.home[p] && hand.length > 1) {
+
+            publish(events, EngineEvent.Type.HOME_EARLY, p, -1, city, 0);
+            return;
+
+        }
+
+        /* Remove the card, keeping the order of the rest of the hand. */
+        int[] rest = new int[hand.length - 1];
+        System.arraycopy(hand, 0, rest, 0, index);
+        System.arraycopy(hand, index + 1, rest, index, rest.length - index);
+        s.hands[p] = rest;
+        publish(events, EngineEvent.Type.CARD_PLAYED, p, -1, city, 0);
+
+        if(rest.length == 0) {
+
+            s.winner = p;
+            publish(events, EngineEvent.Type.GAME_WON, p, -1, city, 0);
+
+        } else {
+
+            s.points[p] = 0;
+
+        }
+
+    }
+
+    /**
+     * Passes the turn to the next player. Players with negative points miss
+     * their turn, recovering one point each time.
+     */
+    private static void advance(EngineState s, List<EngineEvent> events) {
+
+        int players = s.hands.length;
+        s.dieRolled = false;
+        s.current = (s.current + 1) % players;
+        s.turn++;
+        while(s.points[s.current] < 0) {
+
+            s.points[s.current]++;
+            s.current = (s.current + 1) % players;
+            s.turn++;
+
+        }
+        publish(events, EngineEvent.Type.TURN_STARTED, s.current, -1, -1, s.turn);
+
+    }
+
+    /**
+     * Indicates whether the ID is a city of the map.
+     */
+    private static boolean isCity(EngineState s, int city) {
+
+        return city >= 0 && city < s.graph.size();
+
+    }
+
+    /**
+     * Adds an event to the list, if events are being recorded.
+     */
+    private static void publish(List<EngineEvent> events, EngineEvent.Type type,
+      int player, int from, int to, int value) {
+
+        if(events != null)
+            events.add(new EngineEvent(type, player, from, to, value));
+
+    }
+
+}
@@ -17,11 +17,12 @@ public enum GameProperties {
     PROPERTIES_FILE_NAME, SCHEMA_FILE_NAME, ABOUT_GAME_FILE,
     
     /* Directories for Files */
-    DATA_PATH, IMG_PATH, AUDIO_PATH, LOAD_FILE_NAME,
+    DATA_PATH, IMG_PATH, AUDIO_PATH, LOAD_FILE_NAME, AUTOSAVE_FILE_NAME,
+    JOURNAL_FILE_NAME, THUMBNAIL_PATH, TILE_PATH,
     
     /* Dimensions */
     WINDOW_WIDTH, WINDOW_HEIGHT, PANE_WIDTH, PANE_HEIGHT, EDIT_PANE_WIDTH,
-    BUTTON_WIDTH, BUTTON_HEIGHT,
+    BUTTON_WIDTH, BUTTON_HEIGHT, CARD_WIDTH, CARD_HEIGHT,
     
     /* Map File */
     MAP_FILE_NAME, MAP_GLOBAL_IMAGE, CITY_NODE_TAG, NAME_TAG, QUARTER_TAG,
@@ -46,7 +47,7 @@ public enum GameProperties {
     THEME_MUSIC_FILE,
     
     /* Game Constants */
-    MAX_PLAYERS,
+    MAX_PLAYERS, IMAGE_CACHE_BYTES, TILE_SIZE,
     
     /* Sound Effects */
     GAME_MUSIC_MP3, GAME_OVER_MP3
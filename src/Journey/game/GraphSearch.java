@@ -0,0 +1,298 @@
+package Journey.game;
+
+import java.util.Arrays;
+
+/**
+ * Breadth first search engine over the city graph. Searches run directly on
+ * the offset/target arrays of the MapGraph, so a search never touches the
+ * JavaFX objects of the board. The queue is a primitive ring buffer and the visited set is an epoch
+ * stamped array, so once constructed the engine allocates nothing per query.
+ *
+ * The search state lives in the engine, so an engine must only be used by one
+ * thread at a time. Copies share the indexed map and receive their own search
+ * state.
+ *
+ * @author
+ *          Anthony G. Musco
+ * <dt><b>Date Created</b><dd>
+ *          Dec-10-2014
+ * <dt><b>Class</b><dd>
+ *          CSE 219
+ */
+public class GraphSearch implements SingleSourceSearch {
+
+    /**
+     * Value returned by queries when the destination cannot be reached.
+     */
+    public static final int UNREACHABLE = -1;
+
+    /**
+     * Graph of the map being searched.
+     */
+    private final MapGraph graph;
+
+    /**
+     * Neighbors of city i are stored in targets[offsets[i]] through
+     * targets[offsets[i + 1] - 1].
+     */
+    private final int[] offsets, targets;
+
+    /**
+     * Ring buffer of city IDs waiting to be expanded.
+     */
+    private final int[] queue;
+
+    /**
+     * Epoch at which each city was last visited. A city is visited during the
+     * current search if and only if its stamp equals the current epoch.
+     */
+    private final int[] stamp;
+
+    /**
+     * ID of the city from which each visited city was reached.
+     */
+    private final int[] prev;
+
+    /**
+     * Distance in moves from the origin of the search to each visited city.
+     */
+    private final int[] depth;
+
+    /**
+     * Epoch of the current search.
+     */
+    private int epoch;
+
+    /**
+     * Number of cities queued during the last search.
+     */
+    private int reached;
+
+    /**
+     * Constructs the search engine for the graph of a map.
+     *
+     * @param graph
+     *          The graph of the map to search.
+     */
+    public GraphSearch(MapGraph graph) {
+
+        this.graph = graph;
+        offsets = graph.offsets;
+        targets = graph.targets;
+
+        int size = graph.size();
+        queue = new int[size];
+        stamp = new int[size];
+        prev = new int[size];
+        depth = new int[size];
+        epoch = 0;
+
+    }
+
+    /**
+     * Constructs a search engine over the same map as another engine. The
+     * indexed map is shared, and the copy receives its own search state.
+     *
+     * @param other
+     *          The engine to copy.
+     */
+    public GraphSearch(GraphSearch other) {
+
+        graph = other.graph;
+        offsets = other.offsets;
+        targets = other.targets;
+
+        int size = graph.size();
+        queue = new int[size];
+        stamp = new int[size];
+        prev = new int[size];
+        depth = new int[size];
+        epoch = 0;
+
+    }
+
+    /**
+     * Returns the number of cities indexed by this engine.
+     *
+     * @return
+     *          The number of cities in the map.
+     */
+    @Override
+    public int size() {
+
+        return graph.size();
+
+    }
+
+    /**
+     * Returns the graph searched by this engine.
+     *
+     * @return
+     *          The graph of the map.
+     */
+    public MapGraph getGraph() {
+
+        return graph;
+
+    }
+
+    /**
+     * Returns the minimum number of moves between two cities.
+     *
+     * @param from
+     *          ID of the origin city.
+     * @param to
+     *          ID of the destination city.
+     * @return
+     *          The number of moves between the cities, or UNREACHABLE.
+     */
+    public int distance(int from, int to) {
+
+        return search(from, to) ? depth[to] : UNREACHABLE;
+
+    }
+
+    /**
+     * Finds a shortest path between two cities and writes the IDs of its
+     * cities, origin first and destination last, into the indicated buffer.
+     *
+     * @param from
+     *          ID of the origin city.
+     * @param to
+     *          ID of the destination city.
+     * @param path
+     *          Buffer of at least size() entries receiving the path.
+     * @return
+     *          The number of cities in the path, or UNREACHABLE.
+     */
+    public int findPath(int from, int to, int[] path) {
+
+        if(!search(from, to))
+            return UNREACHABLE;
+
+        /* Walk back from the destination, filling the buffer from the end. */
+        int length = depth[to] + 1;
+        int cursor = to;
+        for(int k = length - 1; k >= 0; k--) {
+
+            path[k] = cursor;
+            cursor = prev[cursor];
+
+        }
+
+        return length;
+
+    }
+
+    /**
+     * Runs a complete breadth first search from the origin. For every city the
+     * number of moves from the origin and the first city after the origin on
+     * a shortest path to it are written to the indicated buffers. Cities which
+     * cannot be reached receive UNREACHABLE in both buffers.
+     *
+     * @param from
+     *          ID of the origin city.
+     * @param distance
+     *          Buffer of at least size() entries receiving the distances.
+     * @param firstHop
+     *          Buffer of at least size() entries receiving the first hops.
+     */
+    @Override
+    public void searchAll(int from, int[] distance, int[] firstHop) {
+
+        Arrays.fill(distance, 0, size(), UNREACHABLE);
+        Arrays.fill(firstHop, 0, size(), UNREACHABLE);
+        search(from, UNREACHABLE);
+
+        /* Every city is queued at most once, so the queue now holds each
+         * reached city in the order it was visited. */
+        for(int k = 0; k < reached; k++) {
+
+            int city = queue[k];
+            distance[city] = depth[city];
+            if(city == from)
+                firstHop[city] = from;
+            else if(prev[city] == from)
+                firstHop[city] = city;
+            else
+                firstHop[city] = firstHop[prev[city]];
+
+        }
+
+    }
+
+    /**
+     * Runs a breadth first search from the origin until the destination is
+     * reached or the component is exhausted.
+     *
+     * @param from
+     *          ID of the origin city.
+     * @param to
+     *          ID of the destination city.
+     * @return
+     *          True if the destination was reached, false otherwise.
+     */
+    private boolean search(int from, int to) {
+
+        nextEpoch();
+
+        int head = 0, tail = 0, count = 0;
+        stamp[from] = epoch;
+        prev[from] = -1;
+        depth[from] = 0;
+        queue[tail] = from;
+        tail = (tail + 1) % queue.length;
+        count++;
+
+        while(count > 0) {
+
+            int cursor = queue[head];
+            head = (head + 1) % queue.length;
+            count--;
+
+            if(cursor == to) {
+
+                reached = tail == 0 ? queue.length : tail;
+                return true;
+
+            }
+
+            for(int k = offsets[cursor]; k < offsets[cursor + 1]; k++) {
+
+                int city = targets[k];
+                if(stamp[city] != epoch) {
+
+                    stamp[city] = epoch;
+                    prev[city] = cursor;
+                    depth[city] = depth[cursor] + 1;
+                    queue[tail] = city;
+                    tail = (tail + 1) % queue.length;
+                    count++;
+
+                }
+
+            }
+
+        }
+
+        reached = tail == 0 ? queue.length : tail;
+        return false;
+
+    }
+
+    /**
+     * Advances the search epoch, clearing the stamps only when the counter
+     * wraps around.
+     */
+    private void nextEpoch() {
+
+        if(++epoch == 0) {
+
+            Arrays.fill(stamp, 0);
+            epoch = 1;
+
+        }
+
+    }
+
+}
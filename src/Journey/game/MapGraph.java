@@ -0,0 +1,373 @@
+package Journey.game;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * Immutable graph of the cities of a map, independent of the JavaFX objects
+ * which draw it. Cities are identified by integer IDs, assigned in the order
+ * they are added, and every attribute of the cities is stored in a primitive
+ * array indexed by ID. The edges of city i are stored in compressed sparse row
+ * form: their targets and types occupy indexes offsets[i] through
+ * (offsets[i + 1] - 1) of the targets and types arrays.
+ *
+ * Graphs are assembled with a MapGraph.Builder by the FileLoader. Each
+ * CityNode sprite references the graph and its ID within it, so routing, the
+ * computer players and simulations can work on the graph without a toolkit.
+ *
+ * @author
+ *          Anthony G. Musco
+ * <dt><b>Date Created</b><dd>
+ *          Dec-13-2014
+ * <dt><b>Class</b><dd>
+ *          CSE 219
+ */
+public class MapGraph implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Edge types, stored as bytes.
+     */
+    public static final byte ROAD = 0, SEA = 1;
+
+    /**
+     * City colors, stored as bytes, in the order of CityNode.CityColor.
+     */
+    public static final byte RED = 0, GREEN = 1, YELLOW = 2;
+
+    /**
+     * Number of city colors.
+     */
+    public static final int COLORS = 3;
+
+    /**
+     * Names of the cities, and the ID of each name.
+     */
+    private final String[] names;
+    private final HashMap<String, Integer> ids;
+
+    /**
+     * Color and flight plan section of each city.
+     */
+    final byte[] colors;
+    final int[] sections;
+
+    /**
+     * Whether each city is on the flight plan.
+     */
+    final boolean[] flight;
+
+    /**
+     * Coordinates of each city on the map and on the flight plan.
+     */
+    final double[] mapX, mapY, flightX, flightY;
+
+    /**
+     * Edges of city i are stored at offsets[i] through offsets[i + 1] - 1.
+     */
+    final int[] offsets, targets;
+
+    /**
+     * Type of each edge, ROAD or SEA.
+     */
+    final byte[] types;
+
+    /**
+     * Constructs the graph from a completed Builder.
+     */
+    private MapGraph(Builder b) {
+
+        int size = b.names.size();
+        names = b.names.toArray(new String[size]);
+        ids = new HashMap<>(b.ids);
+        colors = Arrays.copyOf(b.colors, size);
+        sections = Arrays.copyOf(b.sections, size);
+        flight = Arrays.copyOf(b.flight, size);
+        mapX = Arrays.copyOf(b.mapX, size);
+        mapY = Arrays.copyOf(b.mapY, size);
+        flightX = Arrays.copyOf(b.flightX, size);
+        flightY = Arrays.copyOf(b.flightY, size);
+
+        /* Resolve the neighbor names, skipping those not on the map. */
+        int[] resolved = new int[b.edgeNames.size()];
+        offsets = new int[size + 1];
+        for(int k = 0; k < resolved.length; k++) {
+
+            Integer target = ids.get(b.edgeNames.get(k));
+            resolved[k] = (target == null) ? -1 : target;
+            if(target != null)
+                offsets[b.edgeSources[k] + 1]++;
+
+        }
+        for(int i = 0; i < size; i++)
+            offsets[i + 1] += offsets[i];
+
+        /* Place each edge in the row of its city, keeping file order. */
+        targets = new int[offsets[size]];
+        types = new byte[offsets[size]];
+        int[] next = Arrays.copyOf(offsets, size);
+        for(int k = 0; k < resolved.length; k++) {
+
+            if(resolved[k] < 0)
+                continue;
+            int slot = next[b.edgeSources[k]]++;
+            targets[slot] = resolved[k];
+            types[slot] = b.edgeTypes[k];
+
+        }
+
+    }
+
+    /**
+     * Returns the number of cities in the graph.
+     *
+     * @return
+     *          The number of cities in the map.
+     */
+    public int size() {
+
+        return names.length;
+
+    }
+
+    /**
+     * Returns the ID of the city with the indicated name.
+     *
+     * @param name
+     *          Name of the city.
+     * @return
+     *          The ID of the city, or -1 if there is no such city.
+     */
+    public int indexOf(String name) {
+
+        Integer id = ids.get(name);
+        return (id == null) ? -1 : id;
+
+    }
+
+    public String getName(int id) {
+
+        return names[id];
+
+    }
+
+    public byte getColor(int id) {
+
+        return colors[id];
+
+    }
+
+    public int getSection(int id) {
+
+        return sections[id];
+
+    }
+
+    public boolean isFlightCity(int id) {
+
+        return flight[id];
+
+    }
+
+    public double getMapX(int id) {
+
+        return mapX[id];
+
+    }
+
+    public double getMapY(int id) {
+
+        return mapY[id];
+
+    }
+
+    public double getFlightX(int id) {
+
+        return flightX[id];
+
+    }
+
+    public double getFlightY(int id) {
+
+        return flightY[id];
+
+    }
+
+    /**
+     * Returns the index of the first edge of the city. The edges of the city
+     * are the indexes from edgeStart(id) up to, excluding, edgeEnd(id).
+     *
+     * @param id
+     *          ID of the city.
+     * @return
+     *          Index of the first edge of the city.
+     */
+    public int edgeStart(int id) {
+
+        return offsets[id];
+
+    }
+
+    public int edgeEnd(int id) {
+
+        return offsets[id + 1];
+
+    }
+
+    public int getTarget(int edge) {
+
+        return targets[edge];
+
+    }
+
+    public byte getEdgeType(int edge) {
+
+        return types[edge];
+
+    }
+
+    /**
+     * Returns the index of the edge between two cities.
+     *
+     * @param from
+     *          ID of the city holding the edge.
+     * @param to
+     *          ID of the city to which the edge leads.
+     * @return
+     *          Index of the edge, or -1 if the cities are not neighbors.
+     */
+    public int findEdge(int from, int to) {
+
+        for(int k = offsets[from]; k < offsets[from + 1]; k++)
+            if(targets[k] == to)
+                return k;
+
+        return -1;
+
+    }
+
+    /**
+     * Returns the color byte for the name of a color, as written in the map
+     * file.
+     *
+     * @param color
+     *          Name of the color, e.g. "RED".
+     * @return
+     *          RED, GREEN or YELLOW, or -1 if the color is unknown.
+     */
+    public static byte colorOf(String color) {
+
+        switch(color.trim().toUpperCase()) {
+            case "RED":
+                return RED;
+            case "GREEN":
+                return GREEN;
+            case "YELLOW":
+                return YELLOW;
+            default:
+                return -1;
+        }
+
+    }
+
+    /**
+     * Assembles a MapGraph one city at a time, as the map file is read.
+     * Edges may name cities which have not been added yet; the names are
+     * resolved when the graph is built.
+     */
+    public static class Builder {
+
+        private final ArrayList<String> names = new ArrayList<>();
+        private final HashMap<String, Integer> ids = new HashMap<>();
+        private byte[] colors = new byte[16];
+        private int[] sections = new int[16];
+        private boolean[] flight = new boolean[16];
+        private double[] mapX = new double[16], mapY = new double[16];
+        private double[] flightX = new double[16], flightY = new double[16];
+        private final ArrayList<String> edgeNames = new ArrayList<>();
+        private int[] edgeSources = new int[64];
+        private byte[] edgeTypes = new byte[64];
+
+        /**
+         * Adds a city to the graph.
+         *
+         * @return
+         *          The ID of the new city.
+         */
+        public int addCity(String name, byte color, int section, boolean isFlight,
+          double x, double y, double flightX, double flightY) {
+
+            if(ids.containsKey(name))
+                throw new IllegalArgumentException("Duplicate city: " + name);
+
+            int id = names.size();
+            if(id == colors.length) {
+
+                int capacity = id * 2;
+                colors = Arrays.copyOf(colors, capacity);
+                sections = Arrays.copyOf(sections, capacity);
+                flight = Arrays.copyOf(flight, capacity);
+                mapX = Arrays.copyOf(mapX, capacity);
+                mapY = Arrays.copyOf(mapY, capacity);
+                this.flightX = Arrays.copyOf(this.flightX, capacity);
+                this.flightY = Arrays.copyOf(this.flightY, capacity);
+
+            }
+
+            names.add(name);
+            ids.put(name, id);
+            colors[id] = color;
+            sections[id] = section;
+            flight[id] = isFlight;
+            mapX[id] = x;
+            mapY[id] = y;
+            this.flightX[id] = flightX;
+            this.flightY[id] = flightY;
+            return id;
+
+        }
+
+        /**
+         * Adds an edge from a city to the city with the indicated name.
+         *
+         * @param from
+         *          ID of the city holding the edge.
+         * @param neighbor
+         *          Name of the city to which the edge leads.
+         * @param type
+         *          ROAD or SEA.
+         */
+        public void addEdge(int from, String neighbor, byte type) {
+
+            int k = edgeNames.size();
+            if(k == edgeSources.length) {
+
+                edgeSources = Arrays.copyOf(edgeSources, k * 2);
+                edgeTypes = Arrays.copyOf(edgeTypes, k * 2);
+
+            }
+
+            edgeNames.add(neighbor);
+            edgeSources[k] = from;
+            edgeTypes[k] = type;
+
+        }
+
+        /**
+         * Builds the immutable graph.
+         *
+         * @return
+         *          The graph of the cities added so far.
+         */
+        public MapGraph build() {
+
+            return new MapGraph(this);
+
+        }
+
+    }
+
+}
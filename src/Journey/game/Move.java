@@ -0,0 +1,119 @@
+package Journey.game;
+
+import java.io.Serializable;
+
+/**
+ * A single move made by the current player of a game, as applied by the
+ * GameEngine. Moves are immutable and identify cities by their ID in the
+ * MapGraph, so a sequence of moves fully describes a game.
+ *
+ * @author
+ *          Anthony G. Musco
+ * <dt><b>Date Created</b><dd>
+ *          Dec-13-2014
+ * <dt><b>Class</b><dd>
+ *          CSE 219
+ */
+public class Move implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Enumeration listing the types of moves.
+     *     ROLL:        Roll the die, adding its value to the player's points.
+     *     TRAVEL:      Move to a neighboring city, by road or by sea.
+     *     WAIT_FERRY:  End the turn waiting for the ferry at a port city.
+     *     FLY:         Fly to another city on the flight plan.
+     *     PASS:        End the turn without moving.
+     */
+    public enum Type { ROLL, TRAVEL, WAIT_FERRY, FLY, PASS };
+
+    /**
+     * Type of this move.
+     */
+    private final Type type;
+
+    /**
+     * Value of the die for ROLL moves, or the ID of the destination city for
+     * TRAVEL and FLY moves. Unused otherwise.
+     */
+    private final int value;
+
+    /**
+     * Constructs a move of the indicated type.
+     */
+    private Move(Type type, int value) {
+
+        this.type = type;
+        this.value = value;
+
+    }
+
+    public static Move roll(int dieValue) {
+
+        return new Move(Type.ROLL, dieValue);
+
+    }
+
+    public static Move travel(int city) {
+
+        return new Move(Type.TRAVEL, city);
+
+    }
+
+    public static Move waitFerry() {
+
+        return new Move(Type.WAIT_FERRY, -1);
+
+    }
+
+    public static Move fly(int city) {
+
+        return new Move(Type.FLY, city);
+
+    }
+
+    public static Move pass() {
+
+        return new Move(Type.PASS, -1);
+
+    }
+
+    public Type getType() {
+
+        return type;
+
+    }
+
+    /**
+     * Returns the value of the die rolled by a ROLL move.
+     *
+     * @return
+     *          The value of the die.
+     */
+    public int getDieValue() {
+
+        return value;
+
+    }
+
+    /**
+     * Returns the destination of a TRAVEL or FLY move.
+     *
+     * @return
+     *          The ID of the destination city.
+     */
+    public int getCity() {
+
+        return value;
+
+    }
+
+    @Override
+    public String toString() {
+
+        return (value < 0) ? type.name() : type.name() + " " + value;
+
+    }
+
+}
@@ -0,0 +1,499 @@
+package Journey.game;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Stack of the operations played in a game, which may be undone and redone
+ * without limit. Every move played by the GameEngine is recorded as a
+ * GameOperation made of the changes it caused, each stored as a compact
+ * delta: a move along a road or sea, a flight, waiting for the ferry, playing
+ * a card, a change of points, and the change of the turn. Applying and
+ * undoing the changes moves a private copy of the state of the game forward
+ * and back, so a move costs a few small objects however long the game.
+ *
+ * Every CHECKPOINT_INTERVAL moves the state of the game is kept, so that
+ * seek() jumps to any move by applying at most that many operations.
+ *
+ * @author
+ *          Anthony G. Musco
+ * <dt><b>Date Created</b><dd>
+ *          Dec-14-2014
+ * <dt><b>Class</b><dd>
+ *          CSE 219
+ */
+public class OperationStack {
+
+    /**
+     * Number of moves between the states kept for seeking.
+     */
+    public static final int CHECKPOINT_INTERVAL = 64;
+
+    /**
+     * State of the game after the operations done, changed in place by the
+     * operations. Never handed out; see getState().
+     */
+    private EngineState state;
+
+    /**
+     * Operations done, in the order played, and operations undone, the next
+     * to redo last.
+     */
+    private final List<MoveOperation> done, undone;
+
+    /**
+     * State of the game after every CHECKPOINT_INTERVAL-th move.
+     */
+    private final List<EngineState> checkpoints;
+
+    /**
+     * Constructs an empty stack for a game.
+     *
+     * @param initial
+     *          State of the game before the first operation.
+     */
+    public OperationStack(EngineState initial) {
+
+        state = new EngineState(initial);
+        done = new ArrayList<>();
+        undone = new ArrayList<>();
+        checkpoints = new ArrayList<>();
+        checkpoints.add(new EngineState(state));
+
+    }
+
+    /**
+     * Returns the state of the game after the operations done.
+     *
+     * @return
+     *          A copy of the state of the game.
+     */
+    public EngineState getState() {
+
+        return new EngineState(state);
+
+    }
+
+    /**
+     * Records a move played by the engine. If the move is the next to redo,
+     * it is redone, and the other operations undone may still be redone;
+     * otherwise they are discarded.
+     *
+     * @param move
+     *          The move played.
+     * @param after
+     *          State of the game after the move.
+     */
+    public void record(Move move, EngineState after) {
+
+        if(canRedo()) {
+
+            Move next = undone.get(undone.size() - 1).move;
+            if(next.getType() == move.getType() && next.getCity() == move.getCity()) {
+
+                redo();
+                return;
+
+            }
+
+            /* A new line of play; the states after it are unknown. */
+            undone.clear();
+            while((checkpoints.size() - 1) * CHECKPOINT_INTERVAL > done.size())
+                checkpoints.remove(checkpoints.size() - 1);
+
+        }
+
+        MoveOperation operation = new MoveOperation(move, state, after);
+        operation.apply();
+        push(operation);
+
+    }
+
+    public boolean canUndo() {
+
+        return !done.isEmpty();
+
+    }
+
+    public boolean canRedo() {
+
+        return !undone.isEmpty();
+
+    }
+
+    /**
+     * Returns the number of operations done.
+     *
+     * @return
+     *          The number of moves played since the stack was constructed,
+     *          less those undone.
+     */
+    public int size() {
+
+        return done.size();
+
+    }
+
+    /**
+     * Undoes the last operation done.
+     *
+     * @return
+     *          The move undone.
+     * @throws IllegalStateException
+     *          If no operation was done.
+     */
+    public Move undo() {
+
+        if(!canUndo())
+            throw new IllegalStateException("Nothing to undo.");
+
+        MoveOperation operation = done.remove(done.size() - 1);
+        operation.undo();
+        undone.add(operation);
+        return operation.move;
+
+    }
+
+    /**
+     * Returns the move which redo() would play again.
+     *
+     * @return
+     *          The next move to redo, or null if there is none.
+     */
+    public Move peekRedo() {
+
+        return canRedo() ? undone.get(undone.size() - 1).move : null;
+
+    }
+
+    /**
+     * Redoes the last operation undone.
+     *
+     * @return
+     *          The move redone.
+     * @throws IllegalStateException
+     *          If no operation was undone.
+     */
+    public Move redo() {
+
+        if(!canRedo())
+            throw new IllegalStateException("Nothing to redo.");
+
+        MoveOperation operation = undone.remove(undone.size() - 1);
+        operation.apply();
+        push(operation);
+        return operation.move;
+
+    }
+
+    /**
+     * Undoes or redoes operations until the indicated number is done. Far
+     * jumps start from the nearest checkpoint.
+     *
+     * @param index
+     *          Number of operations to be done, from 0 to size() plus the
+     *          number of operations undone.
+     * @return
+     *          A copy of the state of the game.
+     */
+    public EngineState seek(int index) {
+
+        if(index < 0 || index > done.size() + undone.size())
+            throw new IndexOutOfBoundsException("Move " + index);
+
+        if(Math.abs(index - done.size()) > CHECKPOINT_INTERVAL / 2) {
+
+            /* Move the operations across without applying them. */
+            int k = Math.min(index / CHECKPOINT_INTERVAL, checkpoints.size() - 1);
+            while(done.size() > k * CHECKPOINT_INTERVAL)
+                undone.add(done.remove(done.size() - 1));
+            while(done.size() < k * CHECKPOINT_INTERVAL)
+                done.add(undone.remove(undone.size() - 1));
+            state = new EngineState(checkpoints.get(k));
+
+        }
+
+        while(done.size() > index)
+            undo();
+        while(done.size() < index)
+            redo();
+
+        return getState();
+
+    }
+
+    /**
+     * Adds an operation which was applied to the operations done, keeping a
+     * checkpoint if one is due.
+     */
+    private void push(MoveOperation operation) {
+
+        done.add(operation);
+        if(done.size() % CHECKPOINT_INTERVAL == 0
+          && checkpoints.size() * CHECKPOINT_INTERVAL == done.size())
+            checkpoints.add(new EngineState(state));
+
+    }
+
+    /**
+     * Operation of a single move: the changes it caused, in order.
+     */
+    private class MoveOperation implements GameOperation {
+
+        private final Move move;
+        private final GameOperation[] changes;
+
+        /**
+         * Constructs the operation taking the game from one state to the
+         * other.
+         */
+        MoveOperation(Move move, EngineState before, EngineState after) {
+
+            this.move = move;
+            List<GameOperation> list = new ArrayList<>(4);
+            for(int p = 0; p < before.getPlayerCount(); p++) {
+
+                if(before.position[p] != after.position[p])
+                    list.add((move.getType() == Move.Type.FLY)
+                        ? new Flight(p, before.position[p], after.position[p])
+                        : new Travel(p, before.position[p], after.position[p]));
+
+                if(before.atPort[p] != after.atPort[p])
+                    list.add(new FerryWait(p, after.atPort[p]));
+
+                int[] from = before.hands[p], to = after.hands[p];
+                if(from.length != to.length) {
+
+                    if(from.length != to.length + 1)
+                        throw new IllegalArgumentException("Unexpected change of hand.");
+                    int k = 0;
+                    while(k < to.length && from[k] == to[k])
+                        k++;
+                    list.add(new CardPlay(p, k, from[k]));
+
+                }
+
+                if(before.points[p] != after.points[p])
+                    list.add(new PointsChange(p, after.points[p] - before.points[p]));
+
+            }
+
+            if(before.current != after.current || before.turn != after.turn
+              || before.dieRolled != after.dieRolled || before.winner != after.winner)
+                list.add(new TurnChange(before, after));
+
+            changes = list.toArray(new GameOperation[list.size()]);
+
+        }
+
+        @Override
+        public void apply() {
+
+            for(GameOperation change : changes)
+                change.apply();
+
+        }
+
+        @Override
+        public void undo() {
+
+            for(int k = changes.length - 1; k >= 0; k--)
+                changes[k].undo();
+
+        }
+
+    }
+
+    /**
+     * A player moving to a neighboring city, by road or by sea.
+     */
+    private class Travel implements GameOperation {
+
+        private final int seat, from, to;
+
+        Travel(int seat, int from, int to) {
+
+            this.seat = seat;
+            this.from = from;
+            this.to = to;
+
+        }
+
+        @Override
+        public void apply() {
+
+            state.position[seat] = to;
+
+        }
+
+        @Override
+        public void undo() {
+
+            state.position[seat] = from;
+
+        }
+
+    }
+
+    /**
+     * A player flying to another city. The fare is a separate change of
+     * points.
+     */
+    private class Flight extends Travel {
+
+        Flight(int seat, int from, int to) {
+
+            super(seat, from, to);
+
+        }
+
+    }
+
+    /**
+     * A player beginning or ending a wait for the ferry.
+     */
+    private class FerryWait implements GameOperation {
+
+        private final int seat;
+        private final boolean waiting;
+
+        FerryWait(int seat, boolean waiting) {
+
+            this.seat = seat;
+            this.waiting = waiting;
+
+        }
+
+        @Override
+        public void apply() {
+
+            state.atPort[seat] = waiting;
+
+        }
+
+        @Override
+        public void undo() {
+
+            state.atPort[seat] = !waiting;
+
+        }
+
+    }
+
+    /**
+     * A player playing a card of their hand. Hands are shared between states,
+     * so they are replaced rather than changed.
+     */
+    private class CardPlay implements GameOperation {
+
+        private final int seat, index, city;
+
+        CardPlay(int seat, int index, int city) {
+
+            this.seat = seat;
+            this.index = index;
+            this.city = city;
+
+        }
+
+        @Override
+        public void apply() {
+
+            int[] hand = state.hands[seat];
+            int[] next = new int[hand.length - 1];
+            System.arraycopy(hand, 0, next, 0, index);
+            System.arraycopy(hand, index + 1, next, index, next.length - index);
+            state.hands[seat] = next;
+
+        }
+
+        @Override
+        public void undo() {
+
+            int[] hand = state.hands[seat];
+            int[] previous = new int[hand.length + 1];
+            System.arraycopy(hand, 0, previous, 0, index);
+            previous[index] = city;
+            System.arraycopy(hand, index, previous, index + 1, hand.length - index);
+            state.hands[seat] = previous;
+
+        }
+
+    }
+
+    /**
+     * A change of the points of a player: a roll, a step, or points lost to
+     * a crossing, a flight, or the end of a turn.
+     */
+    private class PointsChange implements GameOperation {
+
+        private final int seat, delta;
+
+        PointsChange(int seat, int delta) {
+
+            this.seat = seat;
+            this.delta = delta;
+
+        }
+
+        @Override
+        public void apply() {
+
+            state.points[seat] += delta;
+
+        }
+
+        @Override
+        public void undo() {
+
+            state.points[seat] -= delta;
+
+        }
+
+    }
+
+    /**
+     * The turn passing to another player, the die being rolled, or the game
+     * being won.
+     */
+    private class TurnChange implements GameOperation {
+
+        private final int fromPlayer, toPlayer, fromTurn, toTurn, fromWinner, toWinner;
+        private final boolean fromRolled, toRolled;
+
+        TurnChange(EngineState before, EngineState after) {
+
+            fromPlayer = before.current;
+            toPlayer = after.current;
+            fromTurn = before.turn;
+            toTurn = after.turn;
+            fromWinner = before.winner;
+            toWinner = after.winner;
+            fromRolled = before.dieRolled;
+            toRolled = after.dieRolled;
+
+        }
+
+        @Override
+        public void apply() {
+
+            state.current = toPlayer;
+            state.turn = toTurn;
+            state.winner = toWinner;
+            state.dieRolled = toRolled;
+
+        }
+
+        @Override
+        public void undo() {
+
+            state.current = fromPlayer;
+            state.turn = fromTurn;
+            state.winner = fromWinner;
+            state.dieRolled = fromRolled;
+
+        }
+
+    }
+
+}
@@ -6,137 +6,658 @@
 package Journey.game;
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
 
 /**
+ * Finds the routes travelled by players across a single map. A PathFinder is
+ * built once per map and is immutable afterwards: it never writes to the
+ * CityNodes it indexes, and each query works in its own scratch buffers. Any
+ * number of threads may therefore search the same map at once, for example an
+ * AI player planning its turn while a hint is drawn on the board.
+ * 
+ * Routes are found on the MapGraph of the map, by city ID. A PathFinder built
+ * from the graph alone answers queries by ID without any JavaFX objects; one
+ * built with the CityNodes of the map also answers queries by CityNode.
  *
  * @author Anthony
  */
 public class PathFinder {
     
-    /* Hashmap of visited cities. */
-    public static HashMap<String, CityNode> visitedCities;
+    /**
+     * Enumeration listing the ways the legs of a route can be found.
+     *     TABLE:   Legs are looked up in the precomputed route table.
+     *     A_STAR:  Legs are searched on demand with an A* search guided by
+     *              the map coordinates of the cities.
+     */
+    public enum SearchMode { TABLE, A_STAR };
     
-    public static ArrayList<CityNode> findShortestPath(CityNode origin, 
-      ArrayList<CityNode> destinations) {
+    /* Graph of the map. */
+    private final MapGraph graph;
+    
+    /* CityNodes of the map, indexed by ID. Empty when built from the graph
+     * alone. */
+    private final List<CityNode> cities;
+    
+    /* All-pairs route table, in moves. */
+    private final RouteTable table;
+    
+    /* Cost model used to price the routes travelled by players. */
+    private final RouteCostModel costModel;
+    
+    /* Router pricing moves with the cost model. Only copies are searched. */
+    private final WeightedRouter router;
+    
+    /* All-pairs route table, priced by the cost model. Only built in TABLE
+     * mode. */
+    private final RouteTable turnTable;
+    
+    /* How the legs of each route are found. */
+    private final SearchMode searchMode;
+    
+    /**
+     * Indexes the cities of a newly loaded map and builds its route tables
+     * with the default cost model. This is done once per map, after which all
+     * route queries on the map are table lookups.
+     * 
+     * @param cities
+     *          The CityNodes of the map, all referencing the same MapGraph.
+     */
+    public PathFinder(Collection<CityNode> cities) {
         
-        if(origin == null || destinations == null || destinations.isEmpty())
-            return null;
+        this(graphOf(cities), cities, new TurnCostModel(), SearchMode.TABLE);
         
-        int size = destinations.size();
-        ArrayList<CityNode>[][] paths = new ArrayList[size][size];
-        int i = 0;
-        for(CityNode start : destinations) {
-            int j = 0;
-            for(CityNode dest : destinations) {
-                if(dest != start)
-                    paths[i][j++] = pathHelper(start, dest);
-                else
-                    paths[i][j++] = null;
-            }
-            i++;
-        }
+    }
+    
+    /**
+     * Builds the route tables of a map from its graph alone. Such a 
+     * PathFinder only answers queries by city ID.
+     * 
+     * @param graph
+     *          The graph of the map.
+     */
+    public PathFinder(MapGraph graph) {
         
-        return djikstrasAlgorithm(paths, destinations);
+        this(graph, null, new TurnCostModel(), SearchMode.TABLE);
         
     }
     
-    private static ArrayList<CityNode> pathHelper(CityNode origin, CityNode dest) {
+    /**
+     * Indexes the cities of a newly loaded map and builds its route tables.
+     * 
+     * @param graph
+     *          The graph of the map.
+     * @param cities
+     *          The CityNodes of the map, or null to answer queries by city ID
+     *          only.
+     * @param model
+     *          Cost model pricing road, sea, and flight moves.
+     * @param mode
+     *          How the legs of each route are found.
+     */
+    public PathFinder(MapGraph graph, Collection<CityNode> cities, 
+      RouteCostModel model, SearchMode mode) {
         
-        /* Declare queue. */
-        ArrayList<CityNode> queue = new ArrayList<>();
-        origin.prev = null;
-        visitedCities = new HashMap<>(180);
-        visitedCities.put(origin.getName(), origin);
-        queue.add(origin);
-        while(!queue.isEmpty()) {
+        this.graph = graph;
+        table = new RouteTable(new GraphSearch(graph));
+        costModel = model;
+        router = new WeightedRouter(graph, model);
+        turnTable = (mode == SearchMode.TABLE) ? new RouteTable(router) : null;
+        searchMode = mode;
+        
+        /* Index the sprites by ID. */
+        if(cities == null) {
+            
+            this.cities = Collections.emptyList();
             
-            if(queue.get(0) == dest)
-                return buildPath(dest);
+        } else {
             
-            CityNode cursor = queue.remove(0);
-            for(Edge e : cursor.getEdges()) {
+            CityNode[] byId = new CityNode[graph.size()];
+            for(CityNode city : cities) {
                 
-                CityNode city = e.getNeighbor();
+                int id = city.getCityId();
+                if(city.getGraph() != graph || id < 0 || id >= byId.length 
+                  || byId[id] != null)
+                    throw new IllegalArgumentException("Invalid city ID: " + city.getName());
+                byId[id] = city;
                 
-                if(city != null && !visitedCities.containsValue(e.getNeighbor())) {              
-                    e.getNeighbor().prev = cursor;
-                    visitedCities.put(e.getNeighborName(), e.getNeighbor());
-                    queue.add(e.getNeighbor());
-                }
             }
+            this.cities = Collections.unmodifiableList(Arrays.asList(byId));
+            
         }
         
-        return null;
+    }
+    
+    /**
+     * Private constructor which shares the indexed map of another PathFinder.
+     */
+    private PathFinder(PathFinder other, RouteCostModel model, SearchMode mode) {
+        
+        graph = other.graph;
+        cities = other.cities;
+        table = other.table;
+        costModel = model;
+        router = (model == other.costModel) ? other.router : new WeightedRouter(graph, model);
+        if(mode != SearchMode.TABLE)
+            turnTable = null;
+        else if(model == other.costModel && other.turnTable != null)
+            turnTable = other.turnTable;
+        else
+            turnTable = new RouteTable(router);
+        searchMode = mode;
+        
+    }
+    
+    /**
+     * Returns the graph shared by a collection of CityNodes.
+     */
+    private static MapGraph graphOf(Collection<CityNode> cities) {
+        
+        if(cities.isEmpty())
+            throw new IllegalArgumentException("Map has no cities.");
+        
+        return cities.iterator().next().getGraph();
+        
+    }
+    
+    /**
+     * Returns a PathFinder for the same map which prices routes with the
+     * indicated cost model.
+     * 
+     * @param model
+     *          Cost model pricing road, sea, and flight moves.
+     * @return 
+     *          A PathFinder using the indicated cost model.
+     */
+    public PathFinder withCostModel(RouteCostModel model) {
+        
+        return new PathFinder(this, model, searchMode);
+        
+    }
+    
+    /**
+     * Returns a PathFinder for the same map which finds the legs of each route
+     * with the indicated mode. Both modes find routes of the same cost; A_STAR
+     * trades the table lookups for a search of only the part of the map 
+     * between the two cities, and never builds the priced route table.
+     * 
+     * @param mode
+     *          The search mode.
+     * @return 
+     *          A PathFinder using the indicated search mode.
+     */
+    public PathFinder withSearchMode(SearchMode mode) {
+        
+        return new PathFinder(this, costModel, mode);
+        
+    }
+    
+    /**
+     * Returns the cost model pricing the routes of this PathFinder.
+     * 
+     * @return 
+     *          The cost model of this PathFinder.
+     */
+    public RouteCostModel getCostModel() {
+        
+        return costModel;
+        
+    }
+    
+    /**
+     * Returns the search mode of this PathFinder.
+     * 
+     * @return 
+     *          How the legs of each route are found.
+     */
+    public SearchMode getSearchMode() {
+        
+        return searchMode;
+        
+    }
+    
+    /**
+     * Returns the graph of the map.
+     * 
+     * @return 
+     *          The MapGraph on which routes are found.
+     */
+    public MapGraph getGraph() {
+        
+        return graph;
+        
+    }
+    
+    /**
+     * Returns the CityNodes of the map, indexed by ID.
+     * 
+     * @return 
+     *          Unmodifiable list of the cities of the map, which is empty if
+     *          this PathFinder was built from the graph alone.
+     */
+    public List<CityNode> getCities() {
+        
+        return cities;
+        
+    }
+    
+    /**
+     * Indicates whether the city belongs to the map indexed by this PathFinder.
+     * 
+     * @param city
+     *          City to test.
+     * @return 
+     *          True if the city is indexed by this PathFinder.
+     */
+    public boolean indexes(CityNode city) {
+        
+        if(city == null)
+            return false;
+        
+        int id = city.getCityId();
+        return id >= 0 && id < cities.size() && cities.get(id) == city;
+        
+    }
+    
+    /**
+     * Returns the minimum number of moves between two cities.
+     * 
+     * @param from
+     *          City at which the route starts.
+     * @param to
+     *          City at which the route ends.
+     * @return 
+     *          The number of moves between the cities, or -1 if there is no
+     *          route between them.
+     */
+    public int getDistance(CityNode from, CityNode to) {
+        
+        if(!indexes(from) || !indexes(to))
+            return GraphSearch.UNREACHABLE;
+        
+        return getDistance(from.getCityId(), to.getCityId());
+        
+    }
+    
+    /**
+     * Returns the minimum number of moves between two cities.
+     * 
+     * @param from
+     *          ID of the city at which the route starts.
+     * @param to
+     *          ID of the city at which the route ends.
+     * @return 
+     *          The number of moves between the cities, or -1 if there is no
+     *          route between them.
+     */
+    public int getDistance(int from, int to) {
+        
+        return table.distance(from, to);
+        
+    }
+    
+    /**
+     * Returns the cost of the cheapest route between two cities, as priced by
+     * the cost model.
+     * 
+     * @param from
+     *          City at which the route starts.
+     * @param to
+     *          City at which the route ends.
+     * @return 
+     *          The cost of the route, or -1 if there is no route between them.
+     */
+    public int getRouteCost(CityNode from, CityNode to) {
+        
+        if(!indexes(from) || !indexes(to))
+            return GraphSearch.UNREACHABLE;
+        
+        return getRouteCost(from.getCityId(), to.getCityId());
+        
+    }
+    
+    /**
+     * Returns the cost of the cheapest route between two cities, as priced by
+     * the cost model.
+     * 
+     * @param from
+     *          ID of the city at which the route starts.
+     * @param to
+     *          ID of the city at which the route ends.
+     * @return 
+     *          The cost of the route, or -1 if there is no route between them.
+     */
+    public int getRouteCost(int from, int to) {
+        
+        return (turnTable != null) ? turnTable.distance(from, to) 
+            : new WeightedRouter(router).cost(from, to);
+        
+    }
+    
+    /**
+     * Finds the shortest route which starts at the origin, visits every city in
+     * the list of destinations, and ends at the first destination in the list,
+     * which is taken to be the home city. Routes are priced by the cost model,
+     * so they may include sea crossings and flights.
+     * 
+     * @param origin
+     *          City at which the route starts.
+     * @param destinations
+     *          Cities to visit, beginning with the home city.
+     * @return 
+     *          The cities along the route, excluding the origin, or null if
+     *          no route exists.
+     */
+    public ArrayList<CityNode> findShortestPath(CityNode origin, 
+      ArrayList<CityNode> destinations) {
+        
+        if(destinations == null || destinations.isEmpty())
+            return null;
+        
+        return findShortestPath(origin, destinations, destinations.get(0));
         
     }
     
-    private static ArrayList<CityNode> buildPath(CityNode dest) {
+    /**
+     * Finds the shortest route which starts at the origin, visits every city in
+     * the list of destinations, and ends at the home city. The order of the
+     * destinations is planned by the TourPlanner over the route costs of the
+     * cost model. Consecutive cities on the returned route which are not 
+     * neighbors on the map are joined by a flight.
+     * 
+     * @param origin
+     *          City at which the route starts.
+     * @param destinations
+     *          Cities to visit. May include the home city. The list is only
+     *          read, and must not be modified during the call.
+     * @param home
+     *          City at which the route must end.
+     * @return 
+     *          The cities along the route, excluding the origin, or null if
+     *          no route exists.
+     */
+    public ArrayList<CityNode> findShortestPath(CityNode origin, 
+      ArrayList<CityNode> destinations, CityNode home) {
         
-        ArrayList<CityNode> path = new ArrayList<>();
-        while(dest != null) {
+        if(!indexes(origin) || destinations == null || !indexes(home))
+            return null;
+        
+        int count = 0;
+        int[] stops = new int[destinations.size()];
+        for(CityNode city : destinations)
+            if(indexes(city))
+                stops[count++] = city.getCityId();
+        
+        int[] path = findShortestPath(origin.getCityId(), 
+            Arrays.copyOf(stops, count), home.getCityId());
+        if(path == null)
+            return null;
+        
+        ArrayList<CityNode> route = new ArrayList<>(path.length);
+        for(int id : path)
+            route.add(cities.get(id));
+        
+        return route;
+        
+    }
+    
+    /**
+     * Finds the shortest route which starts at the origin, visits every city in
+     * the list of destinations, and ends at the home city. The order of the
+     * destinations is planned by the TourPlanner over the route costs of the
+     * cost model. Consecutive cities on the returned route which are not 
+     * neighbors on the map are joined by a flight.
+     * 
+     * @param origin
+     *          ID of the city at which the route starts.
+     * @param destinations
+     *          IDs of the cities to visit. May include the home city.
+     * @param home
+     *          ID of the city at which the route must end.
+     * @return 
+     *          IDs of the cities along the route, excluding the origin, or 
+     *          null if no route exists.
+     */
+    public int[] findShortestPath(int origin, int[] destinations, int home) {
+        
+        /* Scratch state for this query only. */
+        WeightedRouter query = newQuery();
+        int[] pathBuffer = new int[graph.size()];
+        
+        /* Node 0 is the origin, the last node is home, stops are between. */
+        int n = 0;
+        int[] nodes = new int[destinations.length + 2];
+        nodes[n++] = origin;
+        for(int city : destinations)
+            if(city != home && indexOf(nodes, n, city) < 0)
+                nodes[n++] = city;
+        nodes[n++] = home;
+        
+        /* Build the cost matrix from the priced routes. */
+        int[] cost = new int[n * n];
+        for(int i = 0; i < n; i++) {
+            for(int j = 0; j < n; j++) {
+                int price = (i == j) ? 0 : (query != null) 
+                    ? query.cost(nodes[i], nodes[j]) : turnTable.distance(nodes[i], nodes[j]);
+                cost[i * n + j] = (price == GraphSearch.UNREACHABLE) 
+                    ? TourPlanner.INFINITY : price;
+            }
+        }
+        
+        /* Plan the tour and expand each leg into the cities along it. */
+        int[] order = TourPlanner.planTour(cost, n);
+        int[] path = new int[(n - 1) * graph.size()];
+        int length = 0;
+        for(int k = 1; k < n; k++) {
             
-            path.add(dest);
-            String destName = (dest.prev == null) ? null : dest.prev.getName();
-            dest = dest.prev;
+            int leg = findLeg(nodes[order[k - 1]], nodes[order[k]], query, pathBuffer);
+            if(leg == GraphSearch.UNREACHABLE)
+                return null;
+            
+            System.arraycopy(pathBuffer, 1, path, length, leg - 1);
+            length += leg - 1;
             
         }
         
-        return path;
+        return Arrays.copyOf(path, length);
         
     }
-
-    private static ArrayList<CityNode> djikstrasAlgorithm(ArrayList<CityNode>[][] paths, ArrayList<CityNode> dest) {
     
-        ArrayList<Integer> selectedCities = new ArrayList<>();
-        ArrayList<CityNode> path = new ArrayList<>();
+    /**
+     * Repairs a planned route after one of its destinations was removed, for
+     * example when its card was played early. Only the legs leading into and
+     * out of the removed city are replaced, by a single leg between the
+     * destinations on either side of it; the rest of the route is reused.
+     * 
+     * @param origin
+     *          City at which the route starts.
+     * @param path
+     *          The planned route, excluding the origin. Not modified.
+     * @param removed
+     *          City which is no longer a destination.
+     * @param destinations
+     *          Cities which remain to be visited.
+     * @param home
+     *          City at which the route must end.
+     * @return 
+     *          The repaired route, excluding the origin, or null if the route
+     *          cannot be repaired and must be planned again.
+     */
+    public ArrayList<CityNode> removeStop(CityNode origin, 
+      ArrayList<CityNode> path, CityNode removed, 
+      ArrayList<CityNode> destinations, CityNode home) {
         
-        int i = 0, count = 0;
+        if(!indexes(origin) || path == null || removed == home)
+            return null;
         
-        /* For each city in the path matrix, find the shortest path. */
-        while(count < paths.length) {
+        /* The removed city is no longer ahead on the route. */
+        int index = path.lastIndexOf(removed);
+        if(index < 0)
+            return isComplete(origin, path, destinations, home) ? new ArrayList<>(path) : null;
+        
+        /* Find the destinations on either side of the removed city. No other
+         * destination lies between them, so the leg joining them replaces 
+         * nothing but roads. */
+        int before = index - 1;
+        while(before >= 0 && !isStop(path.get(before), destinations, home))
+            before--;
+        int after = index + 1;
+        while(after < path.size() && !isStop(path.get(after), destinations, home))
+            after++;
+        if(after == path.size())
+            return null;
+        
+        CityNode start = (before < 0) ? origin : path.get(before);
+        ArrayList<CityNode> repaired = new ArrayList<>(path.size());
+        repaired.addAll(path.subList(0, before + 1));
+        if(!appendLeg(start.getCityId(), path.get(after).getCityId(), 
+          newQuery(), new int[graph.size()], repaired))
+            return null;
+        repaired.addAll(path.subList(after + 1, path.size()));
+        
+        return isComplete(origin, repaired, destinations, home) ? repaired : null;
+        
+    }
+    
+    /**
+     * Repairs a planned route after the player was moved off it, for example
+     * by an instruction. If the player is further along the route, the rest
+     * of the route is kept as it is. Otherwise the player rejoins the route at
+     * its next destination, and the route after it is reused.
+     * 
+     * @param origin
+     *          City at which the player now is.
+     * @param path
+     *          The planned route, excluding the city at which it began. Not
+     *          modified.
+     * @param destinations
+     *          Cities which remain to be visited.
+     * @param home
+     *          City at which the route must end.
+     * @return 
+     *          The repaired route, excluding the origin, or null if the route
+     *          cannot be repaired and must be planned again.
+     */
+    public ArrayList<CityNode> rejoinPath(CityNode origin, 
+      ArrayList<CityNode> path, ArrayList<CityNode> destinations, CityNode home) {
+        
+        if(!indexes(origin) || path == null)
+            return null;
+        
+        /* Find the next destination on the route. */
+        int next = 0;
+        while(next < path.size() && !isStop(path.get(next), destinations, home))
+            next++;
+        if(next == path.size())
+            return null;
+        
+        ArrayList<CityNode> repaired = new ArrayList<>(path.size());
+        int index = path.subList(0, next + 1).indexOf(origin);
+        if(index >= 0) {
             
-            int indexOfShortestRoute = -1;
-            for(int j = 1; j < paths[i].length; j++) {
-                
-                /* Path is null or already included, skip. */
-                if(paths[i][j] == null || selectedCities.contains(j))
-                    continue;
-                
-                if(indexOfShortestRoute == -1)
-                    indexOfShortestRoute = j;
-                else if(paths[i][j].size() < paths[i][indexOfShortestRoute].size())
-                    indexOfShortestRoute = j;
-                
-            }
-            if (indexOfShortestRoute < 0) break;
-            ArrayList<CityNode> toCity = paths[i][indexOfShortestRoute];
-            for(int k = (toCity.size() - 1); k >= 0; k--) {
-
-                if(path.size() == 0 || toCity.get(k) != path.get(path.size() - 1))
-                    path.add(toCity.get(k));
-                
-                
-            }
-            selectedCities.add(indexOfShortestRoute);
-            i = indexOfShortestRoute;
-            count++;
+            /* The player moved ahead along the route. */
+            repaired.addAll(path.subList(index + 1, path.size()));
+            
+        } else {
+            
+            if(!appendLeg(origin.getCityId(), path.get(next).getCityId(), 
+              newQuery(), new int[graph.size()], repaired))
+                return null;
+            repaired.addAll(path.subList(next + 1, path.size()));
             
         }
-        ArrayList<CityNode> toCity = paths[i][0];
-        for(int k = (toCity.size() - 1); k >= 0; k--) {
-
-            if(path.size() == 0 || toCity.get(k) != path.get(path.size() - 1))
-                path.add(toCity.get(k));
-
-
-        }
-        path.remove(0);
-        String isDestination;
-        for(int t = 0; t < path.size(); t++) {
-            isDestination = (dest.contains(path.get(t))) ? " -> CARD" : "";
-        }
-        return path;
+        
+        return isComplete(origin, repaired, destinations, home) ? repaired : null;
+        
+    }
+    
+    /**
+     * Returns the router for a single query in A_STAR mode, or null when legs
+     * are looked up in the route table.
+     */
+    private WeightedRouter newQuery() {
+        
+        return (searchMode == SearchMode.A_STAR) ? new WeightedRouter(router) : null;
+        
+    }
+    
+    /**
+     * Writes the cheapest leg between two cities, origin first, into the 
+     * buffer.
+     * 
+     * @return 
+     *          The number of cities in the leg, or GraphSearch.UNREACHABLE.
+     */
+    private int findLeg(int from, int to, WeightedRouter query, int[] pathBuffer) {
+        
+        return (query != null) ? query.findPath(from, to, pathBuffer) 
+            : turnTable.findPath(from, to, pathBuffer);
+        
+    }
+    
+    /**
+     * Appends the cheapest leg between two cities, excluding its first city,
+     * to the route.
+     * 
+     * @return 
+     *          True if the leg was found, false if no route exists.
+     */
+    private boolean appendLeg(int from, int to, WeightedRouter query, 
+      int[] pathBuffer, ArrayList<CityNode> path) {
+        
+        int length = findLeg(from, to, query, pathBuffer);
+        if(length == GraphSearch.UNREACHABLE)
+            return false;
+        
+        for(int t = 1; t < length; t++)
+            path.add(cities.get(pathBuffer[t]));
+        
+        return true;
+        
+    }
+    
+    /**
+     * Returns the index of the city among the first n entries of the array, 
+     * or -1.
+     */
+    private static int indexOf(int[] ids, int n, int city) {
+        
+        for(int k = 0; k < n; k++)
+            if(ids[k] == city)
+                return k;
+        
+        return -1;
         
     }
+    
+    /**
+     * Indicates whether the city is a destination of the route.
+     */
+    private static boolean isStop(CityNode city, ArrayList<CityNode> destinations, 
+      CityNode home) {
+        
+        return city == home || destinations.contains(city);
+        
+    }
+    
+    /**
+     * Indicates whether the route visits every destination other than its
+     * origin and ends at home.
+     */
+    private static boolean isComplete(CityNode origin, ArrayList<CityNode> path, 
+      ArrayList<CityNode> destinations, CityNode home) {
+        
+        if(path.isEmpty() || path.get(path.size() - 1) != home)
+            return false;
+        
+        for(CityNode city : destinations)
+            if(city != origin && !path.contains(city))
+                return false;
+        
+        return true;
+        
+    }
+    
 }
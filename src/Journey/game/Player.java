@@ -1,5 +1,6 @@
 package Journey.game;
 
+import Journey.file.ImageRegistry;
 import Journey.ui.JourneyUI;
 import Journey.ui.PlayerCardsTray;
 import java.io.Serializable;
@@ -7,7 +8,7 @@ import java.util.ArrayList;
 import javafx.animation.ParallelTransition;
 import javafx.animation.ScaleTransition;
 import javafx.animation.TranslateTransition;
-import javafx.scene.image.Image;
+import javafx.geometry.Point2D;
 import javafx.scene.paint.Color;
 import javafx.util.Duration;
 import properties_manager.PropertiesManager;
@@ -77,6 +78,12 @@ public class Player extends Sprite implements Serializable {
      */
     ArrayList<CityNode> shortestPath;
     
+    /**
+     * City at which the shortest path begins. If the player is found anywhere
+     * else, the player was moved off the path and the path is repaired.
+     */
+    CityNode pathOrigin;
+    
     /**
      * Card tray for the player.
      */
@@ -110,6 +117,18 @@ public class Player extends Sprite implements Serializable {
         
     }
 
+    /**
+     * Sets this player's move points to the indicated value.
+     * 
+     * @param points 
+     *          The move points left for this player.
+     */
+    public void setPoints(int points) {
+        
+        movePoints = points;
+        
+    }
+
     /**
      * Public getter method for this players move points.
      * 
@@ -131,16 +150,84 @@ public class Player extends Sprite implements Serializable {
 
     public ArrayList<CityNode> getShortestPath() {
         
+        PathFinder pathFinder = gameData.getPathFinder();
+        
+        /* Rejoin the path if the player was moved off it. */
+        if(shortestPath != null && currentCity != pathOrigin)
+            shortestPath = pathFinder.rejoinPath(currentCity, shortestPath, hand, homeCity);
+        
         if(shortestPath == null)
-            shortestPath = PathFinder.findShortestPath(currentCity, hand);
+            shortestPath = pathFinder.findShortestPath(currentCity, hand, homeCity);
+        pathOrigin = currentCity;
     
         return shortestPath;
     
     }
+    
+    /**
+     * Removes the next city from the shortest path, as the player sets off
+     * towards it.
+     * 
+     * @return 
+     *          The next city on the shortest path.
+     */
+    public CityNode advanceShortestPath() {
+        
+        CityNode next = getShortestPath().remove(0);
+        pathOrigin = next;
+        return next;
+        
+    }
+    
+    /**
+     * Discards the shortest path, so that it is planned again from scratch the
+     * next time it is needed.
+     */
+    public void invalidateShortestPath() {
+        
+        shortestPath = null;
+        pathOrigin = null;
+        
+    }
+    
+    /**
+     * Removes the city from the player's hand, and repairs the part of the
+     * shortest path which led to and from it. Called when the card of the 
+     * city is played.
+     * 
+     * @param city
+     *          The city to remove from the hand.
+     */
+    public void removeFromHand(CityNode city) {
+        
+        hand.remove(city);
+        if(shortestPath == null)
+            return;
+        
+        shortestPath = gameData.getPathFinder().removeStop(pathOrigin, 
+            shortestPath, city, hand, homeCity);
+        if(shortestPath == null)
+            pathOrigin = null;
+        
+    }
+
+    /**
+     * Indicates whether the player already follows a route, so that
+     * getShortestPath() will not plan a new one.
+     * 
+     * @return 
+     *          True if the shortest path of the player is known.
+     */
+    public boolean hasShortestPath() {
+        
+        return shortestPath != null;
+        
+    }
 
     public void setShortestPath(ArrayList<CityNode> path) {
         
         this.shortestPath = path;
+        this.pathOrigin = currentCity;
         
     }
 
@@ -210,7 +297,19 @@ public class Player extends Sprite implements Serializable {
          
          setOnMouseReleased(e->{
 
-            alignToCity(currentCity);
+            /* Dropping the piece on a city moves there, as clicking it. */
+            CityNode target = getDropTarget(e.getSceneX(), e.getSceneY());
+            boolean moving = false;
+            if(target != null && target != currentCity) {
+                eventManager.respondToClickCity(target);
+                moving = eventManager.getUI().getFreeze();
+            }
+            
+            /* Otherwise the piece returns to its city. */
+            if(!moving) {
+                alignToCity(currentCity);
+                center();
+            }
              e.consume();
          
          });
@@ -228,8 +327,11 @@ public class Player extends Sprite implements Serializable {
          setOnMouseDragged(e->{
              
             if(playerType == PlayerType.HUMAN) {
-                setX(originX + (e.getSceneX() - clickStartX));
-                setY(originY + (e.getSceneY() - clickStartY));
+                /* The mouse moves on the scene, the piece on the scaled map. */
+                Point2D start = getParent().sceneToLocal(clickStartX, clickStartY);
+                Point2D mouse = getParent().sceneToLocal(e.getSceneX(), e.getSceneY());
+                setX(originX + (mouse.getX() - start.getX()));
+                setY(originY + (mouse.getY() - start.getY()));
                e.consume();
             }
             
@@ -239,12 +341,37 @@ public class Player extends Sprite implements Serializable {
          
              if(playerType == PlayerType.HUMAN) {
                 alignToCity(currentCity);
+                center();
                 e.consume();
              }
          });
          
      }
 
+    /**
+     * Returns the city on which the piece of this player is dropped, if it is
+     * the turn of this player.
+     * 
+     * @param sceneX
+     *          Horizontal coordinate of the mouse in the scene.
+     * @param sceneY
+     *          Vertical coordinate of the mouse in the scene.
+     * @return 
+     *          The city under the mouse, or null if there is none or the 
+     *          piece cannot be moved.
+     */
+    private CityNode getDropTarget(double sceneX, double sceneY) {
+        
+        if(playerType != PlayerType.HUMAN || eventManager == null 
+          || eventManager.getUI().getFreeze()
+          || eventManager.getUI().getGameManager().getCurrentPlayer() != this)
+            return null;
+        
+        return eventManager.getUI().getGamePlayScreen().getGameBoard()
+            .getCityAt(sceneX, sceneY);
+        
+    }
+    
     /**
      * Public setter method for the Type of this Player.
      * 
@@ -289,7 +416,7 @@ public class Player extends Sprite implements Serializable {
            
        }
         
-        unselected = new Image(imgPath);
+        unselected = ImageRegistry.getImage(imgPath);
         selected = unselected;
         
         setImage(unselected);
@@ -310,21 +437,9 @@ public class Player extends Sprite implements Serializable {
     
     public ParallelTransition moveToCity(CityNode city) {
         
-        /* Get position of city in viewport. */
-        double finalX = city.getX();
-        double finalY = city.getY();
-        
-        /* Adjust for scaling of city. */
-        finalX += (city.getImage().getWidth() - (city.getImage().getWidth() * scale)) /2 ;
-        finalY += (city.getImage().getHeight() - (city.getImage().getHeight() * scale)) /2;
-        
-        /* Adjust for scaling of player. */
-        finalX -= ((getImage().getWidth() - (getImage().getWidth() * scale)) / 2);
-        finalY -= ((getImage().getHeight() - (getImage().getHeight() * scale)) / 2);
-        
-        /* Align piece on top of city. */
-        finalX -= (ALIGN_X * scale);
-        finalY -= (ALIGN_Y * scale);
+        /* Get position of city on the map, the piece aligned on top of it. */
+        double finalX = city.getMapX() - ALIGN_X;
+        double finalY = city.getMapY() - ALIGN_Y;
         
         finalX -= getX();
         finalY -= getY();
@@ -337,8 +452,8 @@ public class Player extends Sprite implements Serializable {
         
         ScaleTransition st = new ScaleTransition(animationSpeed, this);
         st.setAutoReverse(false);
-        st.setToX(scale);
-        st.setToY(scale);
+        st.setToX(1);
+        st.setToY(1);
         
         ParallelTransition pt = new ParallelTransition(tt, st);
         
@@ -397,6 +512,7 @@ public class Player extends Sprite implements Serializable {
         
         /* Put the card in the player's hand. */
         hand.add(node);
+        invalidateShortestPath();
         
         /* Put the card in the player's tray. */
         return tray.addCard(node);
@@ -445,6 +561,18 @@ public class Player extends Sprite implements Serializable {
         
     }
     
+    /**
+     * Public getter method for the color of this player.
+     * 
+     * @return
+     *          The color of this player.
+     */
+    public Color getColor() {
+        
+        return color;
+        
+    }
+    
     /**
      * Public getter method for the cards tray for the player.
      * 
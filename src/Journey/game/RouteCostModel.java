@@ -0,0 +1,51 @@
+package Journey.game;
+
+/**
+ * Cost model used by the WeightedRouter to price each kind of move across the
+ * map. Costs are positive integers, so the same model can price both single
+ * moves and complete tours.
+ *
+ * @author
+ *          Anthony G. Musco
+ * <dt><b>Date Created</b><dd>
+ *          Dec-12-2014
+ * <dt><b>Class</b><dd>
+ *          CSE 219
+ */
+public interface RouteCostModel {
+
+    /**
+     * Value returned for moves which cannot be made.
+     */
+    public static final int UNAVAILABLE = -1;
+
+    /**
+     * Returns the cost of moving along a road edge.
+     *
+     * @return
+     *          The cost of a road move.
+     */
+    public abstract int roadCost();
+
+    /**
+     * Returns the cost of crossing a sea edge, including waiting for the ferry.
+     *
+     * @return
+     *          The cost of a sea crossing.
+     */
+    public abstract int seaCost();
+
+    /**
+     * Returns the cost of flying between two flight cities.
+     *
+     * @param fromSection
+     *          Section of the flight plan from which the flight leaves.
+     * @param toSection
+     *          Section of the flight plan at which the flight lands.
+     * @return
+     *          The cost of the flight, or UNAVAILABLE if there is no flight
+     *          between the sections.
+     */
+    public abstract int flightCost(int fromSection, int toSection);
+
+}
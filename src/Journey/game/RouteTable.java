@@ -0,0 +1,150 @@
+package Journey.game;
+
+/**
+ * All-pairs shortest path table for the city graph. The table stores, for
+ * every ordered pair of cities, the cost of the cheapest route between them
+ * and the first city to move to on that route. Costs are counted in moves when
+ * the table is built from a GraphSearch, or priced by a RouteCostModel when it
+ * is built from a WeightedRouter. Since the map never changes during a
+ * game, the table is built once per map and every route query afterwards is a
+ * pair of array lookups.
+ *
+ * @author
+ *          Anthony G. Musco
+ * <dt><b>Date Created</b><dd>
+ *          Dec-11-2014
+ * <dt><b>Class</b><dd>
+ *          CSE 219
+ */
+public class RouteTable {
+
+    /**
+     * Number of cities in the table.
+     */
+    private final int size;
+
+    /**
+     * Cost of the cheapest route from city i to city j, stored at
+     * (i * size) + j.
+     */
+    private final short[] distance;
+
+    /**
+     * First city after city i on the cheapest route to city j, stored at
+     * (i * size) + j.
+     */
+    private final short[] nextHop;
+
+    /**
+     * Builds the table by running a complete search from every city.
+     *
+     * @param search
+     *          Search indexing the cities of the map.
+     */
+    public RouteTable(SingleSourceSearch search) {
+
+        size = search.size();
+        if(size > Short.MAX_VALUE)
+            throw new IllegalArgumentException("Map too large: " + size);
+
+        distance = new short[size * size];
+        nextHop = new short[size * size];
+
+        int[] rowDistance = new int[size];
+        int[] rowHop = new int[size];
+        for(int from = 0; from < size; from++) {
+
+            search.searchAll(from, rowDistance, rowHop);
+            int row = from * size;
+            for(int to = 0; to < size; to++) {
+
+                if(rowDistance[to] > Short.MAX_VALUE)
+                    throw new IllegalArgumentException("Route cost too large: " + rowDistance[to]);
+                distance[row + to] = (short) rowDistance[to];
+                nextHop[row + to] = (short) rowHop[to];
+
+            }
+
+        }
+
+    }
+
+    /**
+     * Returns the number of cities in the table.
+     *
+     * @return
+     *          The number of cities in the map.
+     */
+    public int size() {
+
+        return size;
+
+    }
+
+    /**
+     * Returns the cost of the cheapest route between two cities.
+     *
+     * @param from
+     *          ID of the origin city.
+     * @param to
+     *          ID of the destination city.
+     * @return
+     *          The cost of the route between the cities, or
+     *          GraphSearch.UNREACHABLE.
+     */
+    public int distance(int from, int to) {
+
+        return distance[from * size + to];
+
+    }
+
+    /**
+     * Returns the next city to move to when travelling between two cities.
+     *
+     * @param from
+     *          ID of the current city.
+     * @param to
+     *          ID of the destination city.
+     * @return
+     *          ID of the next city on the cheapest route, or
+     *          GraphSearch.UNREACHABLE.
+     */
+    public int nextHop(int from, int to) {
+
+        return nextHop[from * size + to];
+
+    }
+
+    /**
+     * Writes the IDs of the cities on the cheapest route, origin first and
+     * destination last, into the indicated buffer.
+     *
+     * @param from
+     *          ID of the origin city.
+     * @param to
+     *          ID of the destination city.
+     * @param path
+     *          Buffer of at least size() entries receiving the path.
+     * @return
+     *          The number of cities in the path, or GraphSearch.UNREACHABLE.
+     */
+    public int findPath(int from, int to, int[] path) {
+
+        if(distance(from, to) == GraphSearch.UNREACHABLE)
+            return GraphSearch.UNREACHABLE;
+
+        int length = 0;
+        int cursor = from;
+        path[length++] = cursor;
+        while(cursor != to) {
+
+            cursor = nextHop(cursor, to);
+            path[length++] = cursor;
+
+        }
+
+        return length;
+
+    }
+
+}
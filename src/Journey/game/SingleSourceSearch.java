@@ -0,0 +1,38 @@
+package Journey.game;
+
+/**
+ * Search which can compute the cost of reaching every city from a single
+ * origin. Used to fill a RouteTable one row at a time.
+ *
+ * @author
+ *          Anthony G. Musco
+ * <dt><b>Date Created</b><dd>
+ *          Dec-12-2014
+ * <dt><b>Class</b><dd>
+ *          CSE 219
+ */
+interface SingleSourceSearch {
+
+    /**
+     * Returns the number of cities searched.
+     *
+     * @return
+     *          The number of cities in the map.
+     */
+    public abstract int size();
+
+    /**
+     * Writes, for every city, the cost of the cheapest route from the origin
+     * and the first city after the origin on that route. Cities which cannot
+     * be reached receive GraphSearch.UNREACHABLE in both buffers.
+     *
+     * @param from
+     *          ID of the origin city.
+     * @param distance
+     *          Buffer of at least size() entries receiving the costs.
+     * @param firstHop
+     *          Buffer of at least size() entries receiving the first hops.
+     */
+    public abstract void searchAll(int from, int[] distance, int[] firstHop);
+
+}
@@ -0,0 +1,181 @@
+package Journey.game;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Uniform grid over the coordinates of the map, indexing Sprites by the area
+ * they cover: the size of their image, from their map coordinates. Returns
+ * the sprites in a region, such as the viewport of the GameBoard, and the
+ * sprites under a point, such as the mouse, looking only at the cells the
+ * region or point falls in.
+ *
+ * Sprites are indexed where they are when added, so the grid suits sprites
+ * which stay in place, such as the cities.
+ *
+ * @author
+ *          Anthony G. Musco
+ * <dt><b>Date Created</b><dd>
+ *          Dec-14-2014
+ * <dt><b>Class</b><dd>
+ *          CSE 219
+ * @param <T>
+ *          Type of the sprites in the grid.
+ */
+class SpatialGrid<T extends Sprite> {
+
+    /**
+     * Size of a cell, in map pixels.
+     */
+    private final double cellSize;
+
+    /**
+     * Sprites covering each cell, by the column and row of the cell.
+     */
+    private final Map<Long, List<T>> cells;
+
+    /**
+     * Sprites in the grid, with the area each covers: left, top, right and
+     * bottom.
+     */
+    private final Map<T, double[]> bounds;
+
+    /**
+     * Constructs an empty grid.
+     *
+     * @param cellSize
+     *          Size of a cell, in map pixels.
+     */
+    SpatialGrid(double cellSize) {
+
+        this.cellSize = cellSize;
+        cells = new HashMap<>();
+        bounds = new IdentityHashMap<>();
+
+    }
+
+    /**
+     * Adds a sprite to every cell its area covers.
+     *
+     * @param sprite
+     *          The sprite, whose image is loaded.
+     */
+    void add(T sprite) {
+
+        double w = (sprite.getImage() == null) ? 0 : sprite.getImage().getWidth();
+        double h = (sprite.getImage() == null) ? 0 : sprite.getImage().getHeight();
+        double[] area = { sprite.getMapX(), sprite.getMapY(),
+            sprite.getMapX() + w, sprite.getMapY() + h };
+        if(bounds.put(sprite, area) != null)
+            return;
+
+        for(int column = cell(area[0]); column <= cell(area[2]); column++)
+            for(int row = cell(area[1]); row <= cell(area[3]); row++)
+                cells.computeIfAbsent(key(column, row), k -> new ArrayList<>()).add(sprite);
+
+    }
+
+    /**
+     * Returns the sprites whose area intersects a region of the map.
+     *
+     * @param minX
+     *          Left of the region, in map pixels.
+     * @param minY
+     *          Top of the region, in map pixels.
+     * @param maxX
+     *          Right of the region, in map pixels.
+     * @param maxY
+     *          Bottom of the region, in map pixels.
+     * @return
+     *          The sprites in the region, each once.
+     */
+    List<T> query(double minX, double minY, double maxX, double maxY) {
+
+        List<T> found = new ArrayList<>();
+        Map<T, Boolean> seen = new IdentityHashMap<>();
+        for(int column = cell(minX); column <= cell(maxX); column++) {
+
+            for(int row = cell(minY); row <= cell(maxY); row++) {
+
+                List<T> sprites = cells.get(key(column, row));
+                if(sprites == null)
+                    continue;
+
+                for(T sprite : sprites) {
+
+                    double[] area = bounds.get(sprite);
+                    if(area[0] <= maxX && area[2] >= minX && area[1] <= maxY
+                      && area[3] >= minY && seen.put(sprite, Boolean.TRUE) == null)
+                        found.add(sprite);
+
+                }
+
+            }
+
+        }
+
+        return found;
+
+    }
+
+    /**
+     * Returns the sprite whose area contains a point of the map.
+     *
+     * @param x
+     *          Horizontal coordinate of the point, in map pixels.
+     * @param y
+     *          Vertical coordinate of the point, in map pixels.
+     * @return
+     *          The sprite added last of those under the point, or null if
+     *          there is none.
+     */
+    T hitTest(double x, double y) {
+
+        List<T> sprites = cells.get(key(cell(x), cell(y)));
+        if(sprites == null)
+            return null;
+
+        for(int k = sprites.size() - 1; k >= 0; k--) {
+
+            double[] area = bounds.get(sprites.get(k));
+            if(x >= area[0] && x <= area[2] && y >= area[1] && y <= area[3])
+                return sprites.get(k);
+
+        }
+
+        return null;
+
+    }
+
+    /**
+     * Removes every sprite from the grid.
+     */
+    void clear() {
+
+        cells.clear();
+        bounds.clear();
+
+    }
+
+    int size() {
+
+        return bounds.size();
+
+    }
+
+    private int cell(double coordinate) {
+
+        return (int) Math.floor(coordinate / cellSize);
+
+    }
+
+    private static long key(int column, int row) {
+
+        return ((long) column << 32) | (row & 0xFFFFFFFFL);
+
+    }
+
+}
@@ -17,7 +17,7 @@ abstract class Sprite extends ImageView implements Serializable{
     protected GameData gameData;
     protected Color color;
     protected Image unselected, selected;
-    protected double mapX, mapY, scale;
+    protected double mapX, mapY;
     protected String name;
     
     public Sprite() {
@@ -30,7 +30,6 @@ abstract class Sprite extends ImageView implements Serializable{
         this.name = name;
         mapX = x;
         mapY = y;
-        scale = 1;
         setX(x);
         setY(y);
         initImages();
@@ -55,25 +54,19 @@ abstract class Sprite extends ImageView implements Serializable{
     
     abstract void initImages();
     
-    public void center(double sourceOriginX, double sourceOriginY, double scale) {
+    /**
+     * Places the sprite at its map coordinates. Sprites are laid out in the
+     * layer of the GameBoard, which is translated and scaled with the map, so
+     * the sprite is only placed again when it moves on the map.
+     */
+    public void center() {
         
         setTranslateX(0);
         setTranslateY(0);
-        
-        this.scale = scale;
-        
-        setX(sourceOriginX + (mapX * scale));
-        setY(sourceOriginY + (mapY * scale));
-        setScaleX(scale);
-        setScaleY(scale);
-        
-        
-        double shiftX = (getImage().getWidth() - (getImage().getWidth() * scale)) / 2;
-        double shiftY = (getImage().getHeight() - (getImage().getHeight() * scale)) / 2;
-        setX(getX() - shiftX);
-        setY(getY() - shiftY);
-
-        //System.out.println(toString());
+        setScaleX(1);
+        setScaleY(1);
+        setX(mapX);
+        setY(mapY);
         
     }
     
@@ -0,0 +1,345 @@
+package Journey.game;
+
+import java.util.Arrays;
+
+/**
+ * Plans the order in which a player visits the cities in their hand. A tour
+ * starts at the player's current city, visits every stop exactly once in any
+ * order, and ends at the player's home city, which must be visited last.
+ *
+ * Tours are planned over a flat cost matrix of n nodes, where node 0 is the
+ * origin, node (n - 1) is the home city, and the nodes in between are the
+ * stops. Up to EXACT_LIMIT stops, which covers a full hand of HAND_SIZE cards,
+ * the optimal tour is found with the Held-Karp dynamic program. Larger tours
+ * start from a nearest neighbour tour which is then improved with 2-opt and
+ * Or-opt moves until no move shortens it.
+ *
+ * @author
+ *          Anthony G. Musco
+ * <dt><b>Date Created</b><dd>
+ *          Dec-11-2014
+ * <dt><b>Class</b><dd>
+ *          CSE 219
+ */
+public class TourPlanner {
+
+    /**
+     * Largest number of stops for which the exact solver is used. The exact
+     * solver takes on the order of (2^n * n^2) steps.
+     */
+    public static final int EXACT_LIMIT = 12;
+
+    /**
+     * Cost used for legs which cannot be travelled. Small enough that adding
+     * a full tour of such legs does not overflow.
+     */
+    public static final int INFINITY = Integer.MAX_VALUE / 64;
+
+    /**
+     * Longest segment moved by a single Or-opt move.
+     */
+    private static final int OR_OPT_SEGMENT = 3;
+
+    /**
+     * Plans the cheapest tour over the indicated cost matrix.
+     *
+     * @param cost
+     *          Flat n by n matrix where cost[(i * n) + j] is the cost of
+     *          travelling from node i to node j.
+     * @param n
+     *          Number of nodes, including the origin and the home city.
+     * @return
+     *          The nodes in visiting order, beginning with 0 and ending with
+     *          (n - 1).
+     */
+    public static int[] planTour(int[] cost, int n) {
+
+        if(n < 2)
+            throw new IllegalArgumentException("Tour requires an origin and a home city.");
+
+        if(n - 2 <= EXACT_LIMIT)
+            return solveExact(cost, n);
+        else
+            return solveLocal(cost, n);
+
+    }
+
+    /**
+     * Returns the total cost of travelling the nodes in the indicated order.
+     *
+     * @param cost
+     *          Flat n by n cost matrix.
+     * @param n
+     *          Number of nodes.
+     * @param order
+     *          Nodes in visiting order.
+     * @return
+     *          The sum of the costs of each leg of the tour.
+     */
+    public static int tourCost(int[] cost, int n, int[] order) {
+
+        int total = 0;
+        for(int k = 1; k < order.length; k++)
+            total += cost[order[k - 1] * n + order[k]];
+
+        return total;
+
+    }
+
+    /**
+     * Finds the optimal tour with the Held-Karp dynamic program. best[mask][j]
+     * holds the cheapest cost of leaving the origin, visiting exactly the
+     * stops in mask, and ending at stop j.
+     */
+    private static int[] solveExact(int[] cost, int n) {
+
+        int stops = n - 2;
+        int home = n - 1;
+        if(stops == 0)
+            return new int[] {0, home};
+
+        int masks = 1 << stops;
+        int[] best = new int[masks * stops];
+        byte[] parent = new byte[masks * stops];
+        Arrays.fill(best, INFINITY);
+
+        /* Leave the origin for each stop. */
+        for(int j = 0; j < stops; j++)
+            best[(1 << j) * stops + j] = cost[j + 1];
+
+        /* Extend every partial tour by one unvisited stop. */
+        for(int mask = 1; mask < masks; mask++) {
+
+            for(int j = 0; j < stops; j++) {
+
+                int current = best[mask * stops + j];
+                if((mask & (1 << j)) == 0 || current >= INFINITY)
+                    continue;
+
+                for(int k = 0; k < stops; k++) {
+
+                    if((mask & (1 << k)) != 0)
+                        continue;
+
+                    int next = mask | (1 << k);
+                    int value = current + cost[(j + 1) * n + (k + 1)];
+                    if(value < best[next * stops + k]) {
+
+                        best[next * stops + k] = value;
+                        parent[next * stops + k] = (byte) j;
+
+                    }
+
+                }
+
+            }
+
+        }
+
+        /* Close the tour at the home city. */
+        int full = masks - 1;
+        int last = 0;
+        int bestCost = Integer.MAX_VALUE;
+        for(int j = 0; j < stops; j++) {
+
+            int value = best[full * stops + j] + cost[(j + 1) * n + home];
+            if(value < bestCost) {
+
+                bestCost = value;
+                last = j;
+
+            }
+
+        }
+
+        /* Walk the parents back to the origin. */
+        int[] order = new int[n];
+        order[0] = 0;
+        order[home] = home;
+        int mask = full;
+        for(int k = stops; k >= 1; k--) {
+
+            order[k] = last + 1;
+            int prev = parent[mask * stops + last];
+            mask &= ~(1 << last);
+            last = prev;
+
+        }
+
+        return order;
+
+    }
+
+    /**
+     * Builds a nearest neighbour tour and improves it with 2-opt and Or-opt
+     * moves. The origin and the home city never move.
+     */
+    private static int[] solveLocal(int[] cost, int n) {
+
+        int[] order = nearestNeighbour(cost, n);
+        int current = tourCost(cost, n, order);
+
+        boolean improved = true;
+        while(improved) {
+
+            improved = false;
+
+            int value = twoOpt(cost, n, order, current);
+            if(value < current) {
+
+                current = value;
+                improved = true;
+
+            }
+
+            value = orOpt(cost, n, order, current);
+            if(value < current) {
+
+                current = value;
+                improved = true;
+
+            }
+
+        }
+
+        return order;
+
+    }
+
+    /**
+     * Visits the closest unvisited stop at each step.
+     */
+    private static int[] nearestNeighbour(int[] cost, int n) {
+
+        int[] order = new int[n];
+        boolean[] visited = new boolean[n];
+        order[0] = 0;
+        order[n - 1] = n - 1;
+        visited[0] = true;
+        visited[n - 1] = true;
+
+        for(int k = 1; k < n - 1; k++) {
+
+            int from = order[k - 1];
+            int next = -1;
+            for(int j = 1; j < n - 1; j++) {
+
+                if(!visited[j] && (next < 0 || cost[from * n + j] < cost[from * n + next]))
+                    next = j;
+
+            }
+
+            order[k] = next;
+            visited[next] = true;
+
+        }
+
+        return order;
+
+    }
+
+    /**
+     * Applies every improving reversal of a run of stops. Costs may be
+     * asymmetric, so each candidate is scored on the whole tour.
+     *
+     * @return
+     *          The cost of the improved tour.
+     */
+    private static int twoOpt(int[] cost, int n, int[] order, int current) {
+
+        for(int i = 1; i < n - 2; i++) {
+
+            for(int j = i + 1; j < n - 1; j++) {
+
+                reverse(order, i, j);
+                int value = tourCost(cost, n, order);
+                if(value < current)
+                    current = value;
+                else
+                    reverse(order, i, j);
+
+            }
+
+        }
+
+        return current;
+
+    }
+
+    /**
+     * Applies every improving move of a run of up to OR_OPT_SEGMENT stops to
+     * another position in the tour.
+     *
+     * @return
+     *          The cost of the improved tour.
+     */
+    private static int orOpt(int[] cost, int n, int[] order, int current) {
+
+        int[] candidate = new int[n];
+        for(int length = 1; length <= OR_OPT_SEGMENT; length++) {
+
+            for(int i = 1; i + length <= n - 1; i++) {
+
+                for(int target = 1; target <= n - 1 - length; target++) {
+
+                    if(target == i)
+                        continue;
+
+                    moveSegment(order, candidate, i, length, target);
+                    int value = tourCost(cost, n, candidate);
+                    if(value < current) {
+
+                        current = value;
+                        System.arraycopy(candidate, 0, order, 0, n);
+
+                    }
+
+                }
+
+            }
+
+        }
+
+        return current;
+
+    }
+
+    /**
+     * Reverses order[i] through order[j], inclusive.
+     */
+    private static void reverse(int[] order, int i, int j) {
+
+        while(i < j) {
+
+            int temp = order[i];
+            order[i++] = order[j];
+            order[j--] = temp;
+
+        }
+
+    }
+
+    /**
+     * Writes into out the tour with the run of stops starting at i removed and
+     * reinserted so that it starts at index target of the result.
+     */
+    private static void moveSegment(int[] order, int[] out, int i, int length, int target) {
+
+        int n = order.length;
+        int k = 0;
+        int[] rest = new int[n - length];
+        for(int j = 0; j < n; j++)
+            if(j < i || j >= i + length)
+                rest[k++] = order[j];
+
+        k = 0;
+        for(int j = 0; j < target; j++)
+            out[k++] = rest[j];
+        for(int j = 0; j < length; j++)
+            out[k++] = order[i + j];
+        for(int j = target; j < rest.length; j++)
+            out[k++] = rest[j];
+
+    }
+
+}
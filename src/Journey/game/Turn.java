@@ -21,6 +21,12 @@ public class Turn implements Serializable {
     private SimpleStringProperty toCityName;
     private SimpleStringProperty description;
     
+    /* Seat of the player and IDs of the cities, or -1. */
+    private int seat = -1, fromCity = -1, toCity = -1;
+    
+    /* Move which was played, or null if it is not known. */
+    private Move move;
+    
     public Turn() {
         
     }
@@ -36,6 +42,18 @@ public class Turn implements Serializable {
         
     }
     
+    public Turn(int turnNumber, int seat, String playerName, int fromCity, 
+       String fromCityName, int toCity, String toCityName, String description,
+       Move move){
+        
+        this(turnNumber, playerName, fromCityName, toCityName, description);
+        this.seat = seat;
+        this.fromCity = fromCity;
+        this.toCity = toCity;
+        this.move = move;
+        
+    }
+    
     public Integer getTurnNumber(){
         
         return turnNumber.get() + 1;
@@ -66,4 +84,28 @@ public class Turn implements Serializable {
         
     }
     
+    public int getSeat(){
+        
+        return seat;
+        
+    }
+    
+    public int getFromCity(){
+        
+        return fromCity;
+        
+    }
+    
+    public int getToCity(){
+        
+        return toCity;
+        
+    }
+    
+    public Move getMove(){
+        
+        return move;
+        
+    }
+
 }
@@ -0,0 +1,126 @@
+package Journey.game;
+
+/**
+ * Default cost model, which prices moves in movement points the way the game
+ * rules charge them. A road move costs one point. Taking a ferry ends the turn
+ * at the port and the crossing takes the whole of the following turn. A flight
+ * costs its fare and also ends the turn.
+ *
+ * @author
+ *          Anthony G. Musco
+ * <dt><b>Date Created</b><dd>
+ *          Dec-12-2014
+ * <dt><b>Class</b><dd>
+ *          CSE 219
+ */
+public class TurnCostModel implements RouteCostModel {
+
+    /**
+     * Expected number of points in a turn, rounded up from the average die
+     * roll of 3.5.
+     */
+    public static final int TURN_POINTS = 4;
+
+    /**
+     * Fare of a flight within a single section of the flight plan.
+     */
+    public static final int SAME_SECTION_FARE = 2;
+
+    /**
+     * Fare of a flight between adjacent sections of the flight plan.
+     */
+    public static final int ADJACENT_SECTION_FARE = 4;
+
+    /**
+     * Sections of the flight plan adjacent to each section. Index 0 is unused.
+     */
+    private static final int[][] ADJACENT_SECTIONS = {
+        {}, {2, 4}, {1, 3}, {2, 4, 6}, {1, 3, 5}, {4, 6}, {3, 5}
+    };
+
+    /**
+     * Costs charged by this model.
+     */
+    private final int roadCost, seaCost, flightPenalty;
+
+    /**
+     * Constructs the model with the default costs. A ferry forfeits on
+     * average half a turn of points while waiting at the port, plus the full
+     * turn of the crossing. A flight forfeits on average half a turn.
+     */
+    public TurnCostModel() {
+
+        this(1, TURN_POINTS / 2 + TURN_POINTS, TURN_POINTS / 2);
+
+    }
+
+    /**
+     * Constructs the model with custom costs.
+     *
+     * @param roadCost
+     *          Cost of a road move.
+     * @param seaCost
+     *          Cost of a sea crossing, including the wait at the port.
+     * @param flightPenalty
+     *          Cost added to the fare of each flight for ending the turn.
+     */
+    public TurnCostModel(int roadCost, int seaCost, int flightPenalty) {
+
+        this.roadCost = roadCost;
+        this.seaCost = seaCost;
+        this.flightPenalty = flightPenalty;
+
+    }
+
+    @Override
+    public int roadCost() {
+
+        return roadCost;
+
+    }
+
+    @Override
+    public int seaCost() {
+
+        return seaCost;
+
+    }
+
+    @Override
+    public int flightCost(int fromSection, int toSection) {
+
+        int fare = getFlightFare(fromSection, toSection);
+        return (fare == UNAVAILABLE) ? UNAVAILABLE : fare + flightPenalty;
+
+    }
+
+    /**
+     * Returns the number of points charged for a flight between two sections
+     * of the flight plan. Flights are only allowed within a section or between
+     * adjacent sections.
+     *
+     * @param fromSection
+     *          Section of the flight plan from which the flight leaves.
+     * @param toSection
+     *          Section of the flight plan at which the flight lands.
+     * @return
+     *          The fare of the flight, or UNAVAILABLE if there is no flight
+     *          between the sections.
+     */
+    public static int getFlightFare(int fromSection, int toSection) {
+
+        if(fromSection < 1 || fromSection >= ADJACENT_SECTIONS.length)
+            return UNAVAILABLE;
+
+        if(fromSection == toSection)
+            return SAME_SECTION_FARE;
+
+        for(int section : ADJACENT_SECTIONS[fromSection])
+            if(section == toSection)
+                return ADJACENT_SECTION_FARE;
+
+        return UNAVAILABLE;
+
+    }
+
+}
@@ -0,0 +1,592 @@
+package Journey.game;
+
+import java.util.Arrays;
+
+/**
+ * Dijkstra router over the city graph which prices moves with a RouteCostModel.
+ * Besides the road and sea edges of the map, every flight city is connected to
+ * every other flight city which can be reached by a flight from its section of
+ * the flight plan. The priority queue is an indexed binary heap over primitive
+ * arrays, and visited cities are tracked with epoch stamps, so a query
+ * allocates nothing.
+ *
+ * Point to point queries run A* guided by two lower bounds on the cost of a
+ * route, computed once when the router is built:
+ *     Landmarks:  The cost of the cheapest route from a few landmark cities,
+ *                 spread across the map, to every city. A route from a city
+ *                 to the destination costs at least the difference between
+ *                 their costs from any landmark.
+ *     Distance:   The straight line distance between the cities, priced by
+ *                 the smallest cost per pixel of any road or sea move. A
+ *                 route which flies instead must still reach a flight city,
+ *                 pay the cheapest flight, and travel on from the flight city
+ *                 nearest the destination.
+ * Neither bound ever exceeds the true cost of a route, so A* still finds the
+ * cheapest route.
+ *
+ * A router keeps the state of its current search in its own arrays, so it
+ * must only be used by one thread at a time. The indexed map is never modified
+ * after construction and is shared by copies of the router, so each thread
+ * can cheaply search the same map with its own copy.
+ *
+ * @author
+ *          Anthony G. Musco
+ * <dt><b>Date Created</b><dd>
+ *          Dec-12-2014
+ * <dt><b>Class</b><dd>
+ *          CSE 219
+ */
+public class WeightedRouter implements SingleSourceSearch {
+
+    /**
+     * Cost model pricing the moves of this router.
+     */
+    private final RouteCostModel model;
+
+    /**
+     * Neighbors of city i, and the cost of moving to them, are stored in
+     * targets[offsets[i]] through targets[offsets[i + 1] - 1]. Flights are
+     * stored alongside the edges of the map.
+     */
+    private final int[] offsets, targets, costs;
+
+    /**
+     * Map coordinates of each city.
+     */
+    private final double[] mapX, mapY;
+
+    /**
+     * Number of landmark cities from which routes are bounded.
+     */
+    public static final int LANDMARKS = 8;
+
+    /**
+     * Smallest cost per pixel of straight line distance of any road or sea
+     * move on the map. Multiplying a straight line distance by this bound
+     * never overestimates the cost of travelling it without flying.
+     */
+    private final double costPerPixel;
+
+    /**
+     * Straight line distance from each city to the nearest flight city.
+     */
+    private final double[] flightDistance;
+
+    /**
+     * Smallest cost of any flight, or UNAVAILABLE if there is none.
+     */
+    private final int cheapestFlight;
+
+    /**
+     * Cost of the cheapest route from each landmark to every city, by the
+     * index of the landmark and the ID of the city.
+     */
+    private final int[][] landmarkCost;
+
+    /**
+     * Cost of the cheapest known route to each city in the current search.
+     */
+    private final int[] distance;
+
+    /**
+     * Key by which each city is ordered in the heap: its distance, plus the
+     * estimated cost to the destination when the search is guided.
+     */
+    private final int[] key;
+
+    /**
+     * City from which each city was reached in the current search.
+     */
+    private final int[] prev;
+
+    /**
+     * Binary heap of city IDs ordered by key, and the position of each
+     * city in the heap (-1 once the city has been settled).
+     */
+    private final int[] heap, heapIndex;
+
+    /**
+     * Epoch at which each city was last reached.
+     */
+    private final int[] stamp;
+
+    /**
+     * Epoch of the current search, and number of cities in the heap.
+     */
+    private int epoch, heapSize;
+
+    /**
+     * Number of cities settled during the last search.
+     */
+    private int settled;
+
+    /**
+     * Constructs the router for the graph of a map.
+     *
+     * @param graph
+     *          The graph of the map to route over.
+     * @param model
+     *          Cost model pricing the moves.
+     */
+    public WeightedRouter(MapGraph graph, RouteCostModel model) {
+
+        this.model = model;
+        int size = graph.size();
+
+        /* Count the moves out of each city. */
+        offsets = new int[size + 1];
+        for(int i = 0; i < size; i++) {
+
+            int count = graph.edgeEnd(i) - graph.edgeStart(i);
+            for(int j = 0; j < size; j++)
+                if(flightCost(graph, i, j) != RouteCostModel.UNAVAILABLE)
+                    count++;
+            offsets[i + 1] = offsets[i] + count;
+
+        }
+
+        /* Flatten the moves into the target and cost arrays. */
+        targets = new int[offsets[size]];
+        costs = new int[offsets[size]];
+        for(int i = 0; i < size; i++) {
+
+            int k = offsets[i];
+            for(int e = graph.edgeStart(i); e < graph.edgeEnd(i); e++) {
+
+                targets[k] = graph.getTarget(e);
+                costs[k++] = (graph.getEdgeType(e) == MapGraph.SEA) 
+                    ? model.seaCost() : model.roadCost();
+
+            }
+
+            for(int j = 0; j < size; j++) {
+
+                int cost = flightCost(graph, i, j);
+                if(cost != RouteCostModel.UNAVAILABLE) {
+
+                    targets[k] = j;
+                    costs[k++] = cost;
+
+                }
+
+            }
+
+        }
+
+        /* Bound the cost per pixel of every road and sea move from below,
+         * and find the cheapest flight. Flights are stored after the edges. */
+        mapX = graph.mapX;
+        mapY = graph.mapY;
+        double bound = Double.MAX_VALUE;
+        int fare = Integer.MAX_VALUE;
+        for(int i = 0; i < size; i++) {
+
+            int edges = offsets[i] + graph.edgeEnd(i) - graph.edgeStart(i);
+            for(int k = offsets[i]; k < offsets[i + 1]; k++) {
+
+                if(k >= edges) {
+
+                    fare = Math.min(fare, costs[k]);
+                    continue;
+
+                }
+
+                double length = Math.hypot(mapX[targets[k]] - mapX[i], 
+                    mapY[targets[k]] - mapY[i]);
+                bound = Math.min(bound, (length > 0) ? costs[k] / length : 0);
+
+            }
+
+        }
+        costPerPixel = (bound == Double.MAX_VALUE) ? 0 : bound;
+        cheapestFlight = (fare == Integer.MAX_VALUE) ? RouteCostModel.UNAVAILABLE : fare;
+
+        /* Measure the distance from each city to the nearest flight city. */
+        flightDistance = new double[size];
+        for(int i = 0; i < size; i++) {
+
+            flightDistance[i] = Double.MAX_VALUE;
+            for(int j = 0; j < size; j++)
+                if(graph.isFlightCity(j))
+                    flightDistance[i] = Math.min(flightDistance[i],
+                        Math.hypot(mapX[j] - mapX[i], mapY[j] - mapY[i]));
+
+        }
+
+        distance = new int[size];
+        key = new int[size];
+        prev = new int[size];
+        heap = new int[size];
+        heapIndex = new int[size];
+        stamp = new int[size];
+        epoch = 0;
+
+        landmarkCost = findLandmarks(Math.min(LANDMARKS, size));
+
+    }
+
+    /**
+     * Constructs a router over the same map and cost model as another router.
+     * The indexed map is shared, and the copy receives its own search state.
+     *
+     * @param other
+     *          The router to copy.
+     */
+    public WeightedRouter(WeightedRouter other) {
+
+        model = other.model;
+        offsets = other.offsets;
+        targets = other.targets;
+        costs = other.costs;
+        mapX = other.mapX;
+        mapY = other.mapY;
+        costPerPixel = other.costPerPixel;
+        flightDistance = other.flightDistance;
+        cheapestFlight = other.cheapestFlight;
+        landmarkCost = other.landmarkCost;
+
+        int size = other.size();
+        distance = new int[size];
+        key = new int[size];
+        prev = new int[size];
+        heap = new int[size];
+        heapIndex = new int[size];
+        stamp = new int[size];
+        epoch = 0;
+
+    }
+
+    /**
+     * Returns the cost of flying between two cities, or UNAVAILABLE if there
+     * is no flight between them.
+     */
+    private int flightCost(MapGraph graph, int from, int to) {
+
+        if(from == to || !graph.isFlightCity(from) || !graph.isFlightCity(to))
+            return RouteCostModel.UNAVAILABLE;
+
+        return model.flightCost(graph.getSection(from), graph.getSection(to));
+
+    }
+
+    /**
+     * Picks the landmarks and searches the map from each of them. Each
+     * landmark is the city farthest, by the cost of the cheapest route, from
+     * the landmarks before it, which spreads them to the edges of the map.
+     */
+    private int[][] findLandmarks(int count) {
+
+        int[][] found = new int[count][size()];
+        int[] firstHop = new int[size()];
+        int[] nearest = new int[size()];
+        Arrays.fill(nearest, Integer.MAX_VALUE);
+
+        int landmark = 0;
+        for(int l = 0; l < count; l++) {
+
+            searchAll(landmark, found[l], firstHop);
+
+            /* The first landmark is only used to find the edge of the map. */
+            if(l == 0) {
+
+                landmark = farthest(found[0]);
+                searchAll(landmark, found[0], firstHop);
+
+            }
+
+            for(int city = 0; city < size(); city++)
+                if(found[l][city] != GraphSearch.UNREACHABLE)
+                    nearest[city] = Math.min(nearest[city], found[l][city]);
+            landmark = farthest(nearest);
+
+        }
+
+        return found;
+
+    }
+
+    /**
+     * Returns the city with the highest reachable cost.
+     */
+    private static int farthest(int[] cost) {
+
+        int city = 0;
+        for(int k = 0; k < cost.length; k++)
+            if(cost[k] != Integer.MAX_VALUE && (cost[city] == Integer.MAX_VALUE || cost[k] > cost[city]))
+                city = k;
+
+        return city;
+
+    }
+
+    @Override
+    public int size() {
+
+        return distance.length;
+
+    }
+
+    /**
+     * Returns the cost model pricing the moves of this router.
+     *
+     * @return
+     *          The cost model of this router.
+     */
+    public RouteCostModel getCostModel() {
+
+        return model;
+
+    }
+
+    /**
+     * Returns the number of cities settled by the last query. Used to measure
+     * how much of the map a query explored.
+     *
+     * @return
+     *          The number of cities settled by the last query.
+     */
+    public int getSettledCount() {
+
+        return settled;
+
+    }
+
+    /**
+     * Returns the cost of the cheapest route between two cities, found with an
+     * A* search.
+     *
+     * @param from
+     *          ID of the origin city.
+     * @param to
+     *          ID of the destination city.
+     * @return
+     *          The cost of the route, or GraphSearch.UNREACHABLE.
+     */
+    public int cost(int from, int to) {
+
+        return search(from, to, true) ? distance[to] : GraphSearch.UNREACHABLE;
+
+    }
+
+    /**
+     * Finds the cheapest route between two cities with an A* search and writes
+     * the IDs of its cities, origin first and destination last, into the
+     * indicated buffer.
+     * Consecutive cities which are not neighbors on the map are joined by a
+     * flight.
+     *
+     * @param from
+     *          ID of the origin city.
+     * @param to
+     *          ID of the destination city.
+     * @param path
+     *          Buffer of at least size() entries receiving the path.
+     * @return
+     *          The number of cities in the path, or GraphSearch.UNREACHABLE.
+     */
+    public int findPath(int from, int to, int[] path) {
+
+        if(!search(from, to, true))
+            return GraphSearch.UNREACHABLE;
+
+        /* Count the cities on the route, then fill the buffer from the end. */
+        int length = 0;
+        for(int cursor = to; cursor != -1; cursor = prev[cursor])
+            length++;
+
+        int cursor = to;
+        for(int k = length - 1; k >= 0; k--) {
+
+            path[k] = cursor;
+            cursor = prev[cursor];
+
+        }
+
+        return length;
+
+    }
+
+    @Override
+    public void searchAll(int from, int[] total, int[] firstHop) {
+
+        Arrays.fill(total, 0, size(), GraphSearch.UNREACHABLE);
+        Arrays.fill(firstHop, 0, size(), GraphSearch.UNREACHABLE);
+        search(from, GraphSearch.UNREACHABLE, false);
+
+        /* Settled cities are left in the heap array in the order they were
+         * settled, so each city's parent is resolved before the city. */
+        for(int k = 0; k < settled; k++) {
+
+            int city = heap[heap.length - 1 - k];
+            total[city] = distance[city];
+            if(city == from)
+                firstHop[city] = from;
+            else if(prev[city] == from)
+                firstHop[city] = city;
+            else
+                firstHop[city] = firstHop[prev[city]];
+
+        }
+
+    }
+
+    /**
+     * Runs Dijkstra's algorithm from the origin until the destination is
+     * settled or every reachable city has been settled. When the search is
+     * guided the heap is ordered by the A* estimate instead. The estimate is
+     * consistent, so a settled city never needs to be reopened.
+     *
+     * @return
+     *          True if the destination was reached, false otherwise.
+     */
+    private boolean search(int from, int to, boolean guided) {
+
+        nextEpoch();
+        heapSize = 0;
+        settled = 0;
+        reach(from, -1, 0, guided ? estimate(from, to) : 0);
+
+        while(heapSize > 0) {
+
+            int city = pop();
+            if(city == to)
+                return true;
+
+            for(int k = offsets[city]; k < offsets[city + 1]; k++) {
+
+                int next = targets[k];
+                int cost = distance[city] + costs[k];
+                if(stamp[next] != epoch || (heapIndex[next] >= 0 && cost < distance[next]))
+                    reach(next, city, cost, guided ? estimate(next, to) : 0);
+
+            }
+
+        }
+
+        return false;
+
+    }
+
+    /**
+     * Returns a lower bound on the cost of travelling between two cities: the
+     * greater of the landmark and distance bounds. Each bound is consistent,
+     * and the distance bound is rounded down to keep it so for integer costs.
+     */
+    private int estimate(int from, int to) {
+
+        double bound = costPerPixel * Math.hypot(mapX[to] - mapX[from], mapY[to] - mapY[from]);
+        if(cheapestFlight != RouteCostModel.UNAVAILABLE)
+            bound = Math.min(bound, cheapestFlight 
+                + costPerPixel * (flightDistance[from] + flightDistance[to]));
+
+        int estimate = (int) Math.floor(bound);
+        for(int[] cost : landmarkCost)
+            if(cost[from] != GraphSearch.UNREACHABLE && cost[to] != GraphSearch.UNREACHABLE)
+                estimate = Math.max(estimate, cost[to] - cost[from]);
+
+        return estimate;
+
+    }
+
+    /**
+     * Records a cheaper route to the city and moves it up the heap.
+     */
+    private void reach(int city, int from, int cost, int remaining) {
+
+        if(stamp[city] != epoch) {
+
+            stamp[city] = epoch;
+            heap[heapSize] = city;
+            heapIndex[city] = heapSize++;
+
+        }
+
+        distance[city] = cost;
+        key[city] = cost + remaining;
+        prev[city] = from;
+        siftUp(heapIndex[city]);
+
+    }
+
+    /**
+     * Removes the cheapest city from the heap and marks it settled. Settled
+     * cities are stored from the end of the heap array backwards.
+     */
+    private int pop() {
+
+        int city = heap[0];
+        heapIndex[city] = -1;
+        heapSize--;
+        if(heapSize > 0) {
+
+            heap[0] = heap[heapSize];
+            heapIndex[heap[0]] = 0;
+            siftDown(0);
+
+        }
+
+        heap[heap.length - 1 - settled++] = city;
+        return city;
+
+    }
+
+    private void siftUp(int index) {
+
+        int city = heap[index];
+        while(index > 0) {
+
+            int parent = (index - 1) / 2;
+            if(key[heap[parent]] <= key[city])
+                break;
+
+            heap[index] = heap[parent];
+            heapIndex[heap[index]] = index;
+            index = parent;
+
+        }
+
+        heap[index] = city;
+        heapIndex[city] = index;
+
+    }
+
+    private void siftDown(int index) {
+
+        int city = heap[index];
+        while(true) {
+
+            int child = 2 * index + 1;
+            if(child >= heapSize)
+                break;
+            if(child + 1 < heapSize && key[heap[child + 1]] < key[heap[child]])
+                child++;
+            if(key[heap[child]] >= key[city])
+                break;
+
+            heap[index] = heap[child];
+            heapIndex[heap[index]] = index;
+            index = child;
+
+        }
+
+        heap[index] = city;
+        heapIndex[city] = index;
+
+    }
+
+    /**
+     * Advances the search epoch, clearing the stamps only when the counter
+     * wraps around.
+     */
+    private void nextEpoch() {
+
+        if(++epoch == 0) {
+
+            Arrays.fill(stamp, 0);
+            epoch = 1;
+
+        }
+
+    }
+
+}
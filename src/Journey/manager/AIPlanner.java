@@ -0,0 +1,240 @@
+package Journey.manager;
+
+import Journey.game.CityNode;
+import Journey.game.PathFinder;
+import Journey.game.Player;
+import Journey.game.Player.PlayerType;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Plans the routes of computer players on a pool of worker threads, so the
+ * JavaFX application thread is never blocked by path finding. A plan is
+ * requested from the application thread, which takes a snapshot of the
+ * player's position and hand; the route is then found on a worker against the
+ * snapshot alone, and the finished TurnPlan is handed back to the application
+ * thread to be animated.
+ *
+ * Plans may be requested speculatively while the previous player's animation
+ * is still running. A speculative plan is kept until the player's turn begins,
+ * at which point it is used if the player has not moved or played a card in
+ * the meantime, and planned again otherwise.
+ *
+ * @author
+ *          Anthony G. Musco
+ * <dt><b>Date Created</b><dd>
+ *          Dec-12-2014
+ * <dt><b>Class</b><dd>
+ *          CSE 219
+ */
+public class AIPlanner {
+
+    /**
+     * Number of worker threads planning routes.
+     */
+    public static final int WORKER_THREADS = Math.max(1,
+        Math.min(2, Runtime.getRuntime().availableProcessors() - 1));
+
+    /**
+     * Worker threads on which routes are planned.
+     */
+    private final ExecutorService executor;
+
+    /**
+     * Plans requested speculatively, by player, not yet claimed by a turn.
+     */
+    private final Map<Player, CompletableFuture<TurnPlan>> pending;
+
+    /**
+     * Default constructor. Starts the worker threads, which are daemon threads
+     * so that an unfinished plan never keeps the application running.
+     */
+    public AIPlanner() {
+
+        AtomicInteger count = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(WORKER_THREADS, r -> {
+            Thread t = new Thread(r, "AI Planner " + count.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        pending = new ConcurrentHashMap<>();
+
+    }
+
+    /**
+     * Returns the plan for the indicated player's turn. If the player already
+     * follows a route, the plan completes immediately. Otherwise a plan
+     * requested speculatively for the player is returned, or a new plan is
+     * started. Must be called on the JavaFX application thread.
+     *
+     * @param player
+     *          Computer player whose turn is to be planned.
+     * @param pathFinder
+     *          PathFinder for the map of the current game.
+     * @return
+     *          Future completed with the plan on a worker thread. The plan may
+     *          be out of date, which is checked with TurnPlan.isCurrent().
+     */
+    public CompletableFuture<TurnPlan> plan(Player player, PathFinder pathFinder) {
+
+        if(player.hasShortestPath())
+            return CompletableFuture.completedFuture(new TurnPlan(player,
+                player.getShortestPath()));
+
+        CompletableFuture<TurnPlan> plan = pending.remove(player);
+        return (plan != null) ? plan : submit(player, pathFinder);
+
+    }
+
+    /**
+     * Starts planning the indicated player's turn ahead of time, if the player
+     * is a computer player without a route and no plan has been requested
+     * yet. Must be called on the JavaFX application thread.
+     *
+     * @param player
+     *          Player whose turn is to be planned.
+     * @param pathFinder
+     *          PathFinder for the map of the current game.
+     */
+    public void prefetch(Player player, PathFinder pathFinder) {
+
+        if(player == null || pathFinder == null
+          || player.getPlayerType() != PlayerType.COMPUTER
+          || player.hasShortestPath() || pending.containsKey(player))
+            return;
+
+        pending.put(player, submit(player, pathFinder));
+
+    }
+
+    /**
+     * Discards every speculative plan, for example when a new game begins.
+     */
+    public void clear() {
+
+        for(CompletableFuture<TurnPlan> plan : pending.values())
+            plan.cancel(false);
+        pending.clear();
+
+    }
+
+    /**
+     * Stops the worker threads. Plans which have not yet started are
+     * abandoned.
+     */
+    public void shutdown() {
+
+        clear();
+        executor.shutdownNow();
+
+    }
+
+    /**
+     * Takes a snapshot of the player and plans its route on a worker thread.
+     */
+    private CompletableFuture<TurnPlan> submit(Player player, PathFinder pathFinder) {
+
+        CityNode origin = player.getCurrentCity();
+        CityNode home = player.getHomeCity();
+        ArrayList<CityNode> hand = new ArrayList<>(player.getHand());
+
+        return CompletableFuture.supplyAsync(() -> new TurnPlan(player, origin,
+            home, hand, pathFinder.findShortestPath(origin, hand, home)), executor);
+
+    }
+
+    /**
+     * Immutable plan of a computer player's route, together with the position
+     * and hand of the player for which it was planned.
+     */
+    public static class TurnPlan {
+
+        /* Player for which the route was planned. */
+        private final Player player;
+
+        /* City at which the route starts, and the home city at its end. */
+        private final CityNode origin, home;
+
+        /* Cards held by the player when the route was planned. */
+        private final List<CityNode> hand;
+
+        /* Cities along the route, excluding the origin. Null if none exists. */
+        private final List<CityNode> route;
+
+        /**
+         * Constructs the plan of a route which was planned for a snapshot of
+         * the player.
+         */
+        TurnPlan(Player player, CityNode origin, CityNode home,
+          List<CityNode> hand, List<CityNode> route) {
+
+            this.player = player;
+            this.origin = origin;
+            this.home = home;
+            this.hand = Collections.unmodifiableList(hand);
+            this.route = (route == null) ? null
+                : Collections.unmodifiableList(new ArrayList<>(route));
+
+        }
+
+        /**
+         * Constructs the plan of the route a player already follows.
+         */
+        TurnPlan(Player player, List<CityNode> route) {
+
+            this(player, player.getCurrentCity(), player.getHomeCity(),
+                new ArrayList<>(player.getHand()), route);
+
+        }
+
+        /**
+         * Indicates whether the player is still where this plan was made,
+         * holding the same cards. Must be called on the JavaFX application
+         * thread.
+         *
+         * @return
+         *          True if the plan may be followed by the player.
+         */
+        public boolean isCurrent() {
+
+            return player.getCurrentCity() == origin
+                && player.getHomeCity() == home
+                && player.getHand().equals(hand);
+
+        }
+
+        /**
+         * Returns the player for which the route was planned.
+         *
+         * @return
+         *          The player of this plan.
+         */
+        public Player getPlayer() {
+
+            return player;
+
+        }
+
+        /**
+         * Returns the cities along the planned route, excluding the origin.
+         *
+         * @return
+         *          Unmodifiable list of the cities along the route, or null if
+         *          no route exists.
+         */
+        public List<CityNode> getRoute() {
+
+            return route;
+
+        }
+
+    }
+
+}
@@ -3,13 +3,10 @@ package Journey.manager;
 import Journey.game.CityCard;
 import Journey.game.CityNode;
 import Journey.game.Edge;
-import Journey.game.Edge.EdgeType;
-import Journey.game.PathFinder;
 import Journey.game.Player;
 import Journey.ui.FlightPlanPane;
 import Journey.ui.JourneyUI;
 import Journey.ui.JourneyUI.GameScreen;
-import Journey.ui.MessageBox;
 import java.util.ArrayList;
 import javafx.animation.SequentialTransition;
 import javafx.scene.Scene;
@@ -130,8 +127,21 @@ public class EventManager {
         
     }
 
+    public void respondToUndo() {
+        
+        ui.getGameManager().undo();
+        
+    }
+
+    public void respondToRedo() {
+        
+        ui.getGameManager().redo();
+        
+    }
+
     public void respondToExit() {
         
+        ui.getGameManager().shutdown();
         System.exit(0);
         
     }
@@ -144,42 +154,17 @@ public class EventManager {
 
     public void respondToRoll() {
         
-        ui.getGameManager().rollDice(ui.getGameManager().getCurrentPlayer()).play();
+        SequentialTransition roll = 
+          ui.getGameManager().rollDice(ui.getGameManager().getCurrentPlayer());
+        if(roll != null)
+            roll.play();
         
     }
 
     public void respondToFerry() {
     
-        Player p = ui.getGameManager().getCurrentPlayer();
-        if(p == null) return;
-        
-        CityNode cn = p.getCurrentCity();
-        if(cn == null) return;
-        
-        boolean hasSeaRoute = false;
-        for(Edge e : cn.getEdges()) {
-            
-            if(e.getEdgeType() == EdgeType.SEA) {
-                
-                hasSeaRoute = true;
-                break;
-                
-            }
-            
-        }
-        
-        if(hasSeaRoute) {
-            
-            p.addPoints(-p.getPoints());
-            p.setAtPort(true);
-            ui.getGameManager().waitAtPort();
-            ui.getGameManager().nextTurn();
-            
-        } else {
-            
-            MessageBox.showDialog("Cannot take ferry here.");
-            
-        }       
+        if(ui.getGameManager().getCurrentPlayer() == null) return;
+        ui.getGameManager().waitAtPort();
         
     }
 
@@ -193,7 +178,7 @@ public class EventManager {
         
         togglePath = !togglePath;
         
-        ArrayList<CityNode> path = PathFinder.findShortestPath(
+        ArrayList<CityNode> path = ui.getGameManager().getPathFinder().findShortestPath(
                 currentPlayer.getCurrentCity(), currentPlayer.getHand());
         
         if(path != null && togglePath) {
@@ -207,7 +192,7 @@ public class EventManager {
 
         } else {
             
-            for(Object o : ui.getGamePlayScreen().getChildren())
+            for(Object o : ui.getGamePlayScreen().getGameBoard().getLayer().getChildren())
                 if(o instanceof Edge)
                     ((Edge) o).activate(false);
             
@@ -246,7 +231,8 @@ public class EventManager {
 
     public void resetFlightStage() {
     
-        flightStage.hide();
+        if(flightStage != null)
+            flightStage.hide();
     
     }
     
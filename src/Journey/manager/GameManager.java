@@ -1,30 +1,47 @@
 package Journey.manager;
 
 import Journey.file.FileLoader;
+import Journey.file.SavedGame;
+import Journey.file.TurnJournal;
 import Journey.game.CityNode;
+import Journey.game.ComputerStrategy;
 import Journey.game.Edge;
-import Journey.game.Edge.EdgeType;
+import Journey.game.EngineEvent;
+import Journey.game.EngineListener;
+import Journey.game.EngineState;
 import Journey.game.GameData;
+import Journey.game.GameEngine;
 import Journey.game.GameProperties;
+import Journey.game.MapGraph;
+import Journey.game.Move;
+import Journey.game.OperationStack;
+import Journey.game.PathFinder;
 import Journey.game.Player;
 import Journey.game.Player.PlayerType;
+import Journey.game.Turn;
 import Journey.ui.JourneyUI;
 import Journey.ui.MessageBox;
+import Journey.ui.PlayerEditPane;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javafx.animation.Animation;
 import javafx.animation.ParallelTransition;
 import javafx.animation.PauseTransition;
 import javafx.animation.SequentialTransition;
+import javafx.application.Platform;
 import javafx.util.Duration;
 import properties_manager.PropertiesManager;
 
 /**
  * Manages the data of the current game, and stores the data of past games.
+ * The moves of the game are played by the GameEngine of the current game, 
+ * and this GameManager animates the events the engine publishes.
  * 
  * @author 
  *          Anthony G. Musco
@@ -33,7 +50,7 @@ import properties_manager.PropertiesManager;
  * <dt><b>Class</b><dd>
  *          CSE 219
  */
-public class GameManager {
+public class GameManager implements EngineListener {
     
     /**
      * JourneyUI instance to which this GameManager is bound.
@@ -56,6 +73,22 @@ public class GameManager {
     ArrayList<Player> players;    
     
     HashMap<String, CityNode> cities;
+    
+    /**
+     * Plans the routes of computer players off the JavaFX application thread.
+     */
+    AIPlanner planner;
+    
+    /**
+     * Animation of the move being played, filled in as the GameEngine 
+     * publishes the events of the move.
+     */
+    private SequentialTransition turnAnimation;
+    
+    /**
+     * Autosave of the current game, or null if the game is not autosaved.
+     */
+    private TurnJournal journal;
 
     /**
      * Provides an animation to move the players to their respective home
@@ -86,6 +119,10 @@ public class GameManager {
             nextTurn();        
         });
         
+        /* Plan the computer players' routes while they move home. */
+        for (Player p : players)
+            planner.prefetch(p, getPathFinder());
+        
         /* Return the animation. */
         return moveHomeAnimation;
         
@@ -141,334 +178,414 @@ public class GameManager {
         }
     }
 
+    /**
+     * Moves a human player to the indicated neighboring city, if the rules 
+     * allow it. The move is played by the GameEngine of the current game, 
+     * whose events are animated on the board.
+     * 
+     * @param player
+     *          The current player.
+     * @param city
+     *          City the player selected.
+     */
     public void playTurn(Player player, CityNode city) {
         
         /* If the current game is null, do nothing. */
         if(currentGame == null || player == null) return;
+        GameEngine engine = currentGame.getEngine();
         
         /* If the die needs to be rolled, do nothing. */
-        if(!player.isAtPort() && !currentGame.getDieRolled()) {
+        if(GameEngine.needsRoll(engine.getState())) {
             
             MessageBox.showDialog("Must first roll die.");
             return;
             
         }
         
-        /* Assume the player cannot move until a match is found. */
-        boolean canMove = false;
-        
         /* Check to see if the player can move to the indicated city. */
-        for(Edge e : player.getCurrentCity().getEdges()) {
+        if(player.getCurrentCity().getEdge(city) == null) {
             
-            /* If a match is found, the player can move to the city. */
-            if(e.getNeighbor() == city) {
-                
-                /* Player can take the ship. */
-                if(e.getEdgeType() == EdgeType.SEA && player.isAtPort()) {
-                    
-                    canMove = true;
-                    player.setAtPort(false);
-                    player.addPoints(-player.getPoints()); 
-                    
-                } 
-                /* Player cannot take ship. */
-                else if(e.getEdgeType() == EdgeType.SEA){
-                    
-                    MessageBox.showDialog("Cannot move accross port!");
-                    
-                } 
-                /* Player must take ship. */
-                else if(player.isAtPort()){
-                    
-                    MessageBox.showDialog("Must select a port city!");
-                    
-                } 
-                /* Player can move to city. */
-                else {
-                    
-                    canMove = true;
-                    
-                }
-                
-                break;
-                
-            }
+            ui.getGamePlayScreen().updateStatusMessage("Status: Cannot move " 
+              + player.getName() + " to city " + city.getName());
+            return;
             
         }
         
-        /* Move the player to the city. */
-        if(canMove) {
-            
-            currentGame.addTurn(player, player.getCurrentCity(), city, "Move to City.");
-            /* Get and play the motion animation. */
-            ParallelTransition st = player.moveToCity(city);    
-                      
-            /* Check to see if the player is at a destination. */
-            boolean atDestination = false;
-            for(CityNode c : player.getHand()) {
-                
-                if(c == city) {
-      
-                    /* Play the card. */
-                    if(city == player.getHomeCity()) {
-                        
-                        /* Player has won. */
-                        if(player.getHand().size() == 1) {
-                            
-                            st.getChildren().add(player.getCardTray().playCard(city));
-                            atDestination = true;
-                            currentGame.endGame(player);
-                            
-                        } else {
-                            
-                            MessageBox.showDialog("You must visit all cities before returning home.");
-                            
-                        }
-                        
-                    } else {
-                    
-                        /* Set points to zero. */
-                        st.getChildren().add(player.getCardTray().playCard(city));
-                        player.addPoints(-player.getPoints());                        
-                        player.getCardTray().playCard(city);
-                        atDestination = true;
-                        
-                    }
-                    
-                    break;
-                    
-                }
-                
-            }
-            
-            if(atDestination) {
-                ui.getGamePlayScreen().updateStatusMessage("Status: " 
-                  + player.getName() + " is at destination " + city.getName());
-            } else {
-                ui.getGamePlayScreen().updateStatusMessage("Status: Moving " 
-                  + player.getName() + " to city " + city.getName());                
-            }
-            st.setOnFinished(e->{
-            
-                player.alignToCity(city);
-                nextTurn();
-                ui.unfreeze();
-            
-            });
-            
-            ui.freeze();
-            st.play();
+        Move move = Move.travel(city.getCityId());
+        String reason = engine.check(move);
+        if(reason != null) {
             
+            MessageBox.showDialog(reason);
+            return;
             
-        }else{
+        }
+        
+        /* Move the player to the city. */
+        SequentialTransition st = playMove(move);
+        st.setOnFinished(e->{
             
-            ui.getGamePlayScreen().updateStatusMessage("Status: Cannot move " 
-              + player.getName() + " to city " + city.getName());
+            finishTurn();
             
-        }
+        });
+        
+        ui.freeze();
+        prefetchNextTurn();
+        st.play();
             
     }
 
     /**
      * Rolls the die for the current player.
+     * 
+     * @param player
+     *          The current player.
+     * @return 
+     *          The animation of the roll, or null if the die may not be rolled.
      */
     public SequentialTransition rollDice(Player player) {
         
         /* If the die has already been rolled, do nothing. */
-        if(currentGame.getDieRolled()) return null;
-        
-        /* Set the die rolled flag to true. */
-        currentGame.setDieRolled(true);
-        ui.getGamePlayScreen().disableRollButton(true);
+        if(currentGame == null || player == null 
+          || !GameEngine.needsRoll(currentGame.getEngine().getState())) 
+            return null;
         
-        /* If the player is not null, add the points from the die roll. */ 
-        return ui.getGamePlayScreen().rollDice(player, currentGame);
+        return playMove(Move.roll(currentGame.rollDie()));
         
     }
 
+    /**
+     * Ends the current player's turn waiting for the ferry, if the player is
+     * at a port city.
+     */
     public void waitAtPort() {
         
         if (currentGame == null) return;
-        Player p = currentGame.getCurrentPlayer();
-        if(p == null) return;
-        currentGame.addTurn(p, p.getCurrentCity(), null, "Waiting for ferry.");
+        
+        Move move = Move.waitFerry();
+        String reason = currentGame.getEngine().check(move);
+        if(reason != null) {
+            
+            MessageBox.showDialog(reason);
+            return;
+            
+        }
+        
+        playMove(move).play();
+        nextTurn();
         
     }
-
-    private void playTurnAI(Player player) {
+    
+    /**
+     * Plays a move of the current player with the GameEngine. The engine 
+     * publishes the events of the move to this GameManager, which collects
+     * their animations into the returned transition.
+     * 
+     * @param move
+     *          A legal move of the current player.
+     * @return 
+     *          The animation of the move.
+     */
+    private SequentialTransition playMove(Move move) {
         
-        ArrayList<CityNode> path = player.getShortestPath();
+        turnAnimation = new SequentialTransition();
+        turnAnimation.setAutoReverse(false);
+        EngineState state = currentGame.getEngine().play(move);
+        currentGame.getOperations().record(move, state);
+        autosave(move);
         
-        if(player.isAtPort()) {
+        SequentialTransition st = turnAnimation;
+        turnAnimation = null;
+        return st;
+        
+    }
+    
+    /**
+     * Undoes the last move, and the moves of the computer players since, so
+     * that a human player is to play again. Nothing is undone while a move is
+     * animated or once the game is over.
+     */
+    public void undo() {
+        
+        if(currentGame == null || ui.getFreeze()) return;
+        OperationStack operations = currentGame.getOperations();
+        if(!operations.canUndo() || operations.getState().isOver()) return;
+        
+        int undone = 0;
+        do {
             
-            SequentialTransition st = new SequentialTransition();
-            st.setAutoReverse(false);
-            CityNode origin = player.getCurrentCity();
-            CityNode dest = path.remove(0);
-            ParallelTransition pt = player.moveToCity(dest);
-            st.getChildren().add(pt);
-            player.setAtPort(false);
-            player.addPoints(-player.getPoints());
-            boolean atDestination = false;
-            for(CityNode c : player.getHand()) {
-
-                if(c == dest) {
-
-                    /* Play the card. */
-                    if(dest == player.getHomeCity()) {
-
-                        /* Player has won. */
-                        if(player.getHand().size() == 1) {
-
-                            st.getChildren().add(player.getCardTray().playCard(dest));
-                            atDestination = true;
-                            st.setOnFinished(e->{
-
-                                currentGame.endGame(player);
-
-                            });
-                            st.play();
-                            return;
-
-                        }
-
-                    } else {
-
-                        /* Set points to zero. */
-                        st.getChildren().add(player.getCardTray().playCard(dest));
-                        atDestination = true;
-
-                    }
-
-                    break;
-
-                }
-
-            }
-
-            if(atDestination) {
-                ui.getGamePlayScreen().updateStatusMessage("Status: " 
-                  + player.getName() + " is at destination " + dest.getName());
-            } else {
-                ui.getGamePlayScreen().updateStatusMessage("Status: Moving " 
-                  + player.getName() + " to city " + dest.getName());                
-            }
-
-            st.setOnFinished(e->{
-
-                player.alignToCity(dest);
-                nextTurn();
-                ui.unfreeze();
-
-            });
-            currentGame.addTurn(player, origin, player.getCurrentCity(), "Move to City.");
-
-            ui.freeze();
-            st.play();
+            operations.undo();
+            undone++;
             
-        } else {
+        } while(operations.canUndo() && currentGame.players.get(
+          operations.getState().getCurrentPlayer()).getPlayerType() == PlayerType.COMPUTER);
+        
+        rewind(operations.getState(), undone);
+        
+    }
+    
+    /**
+     * Redoes the last move undone, and the moves of the computer players 
+     * after it. The moves are played again by the engine and animated as they
+     * were the first time.
+     */
+    public void redo() {
+        
+        if(currentGame == null || ui.getFreeze()) return;
+        OperationStack operations = currentGame.getOperations();
+        if(!operations.canRedo()) return;
+        
+        SequentialTransition st = new SequentialTransition();
+        do {
             
-            SequentialTransition st = new SequentialTransition();
-            st.setAutoReverse(false);
+            st.getChildren().add(playMove(operations.peekRedo()));
             
-            if(!currentGame.getDieRolled()) {
-                SequentialTransition dieRollAnimation = rollDice(player);
-                if(dieRollAnimation == null) return;
-                st.getChildren().add(dieRollAnimation);
-            }
+        } while(operations.canRedo() && !operations.getState().isOver() 
+          && currentGame.players.get(operations.getState().getCurrentPlayer())
+             .getPlayerType() == PlayerType.COMPUTER);
+        
+        st.setOnFinished(e->{
+            
+            finishTurn();
+            
+        });
+        ui.freeze();
+        st.play();
+        
+    }
+    
+    /**
+     * Returns the board to a state of the game after moves were undone, and 
+     * continues the game from it.
+     */
+    private void rewind(EngineState state, int undone) {
+        
+        ParallelTransition pt = currentGame.rewind(state, undone);
+        currentGame.getEngine().addListener(this);
+        snapshotAutosave();
+        
+        pt.setOnFinished(e->{
+            
+            nextTurn();
+            ui.unfreeze();
+            
+        });
+        ui.freeze();
+        pt.play();
+        
+    }
+    
+    /**
+     * Ends the animation of a move: the game is ended if it was won, and 
+     * otherwise the next turn begins.
+     */
+    private void finishTurn() {
+        
+        EngineState state = currentGame.getEngine().getState();
+        if(state.isOver()) {
             
-            final CityNode origin = player.getCurrentCity();
-            final CityNode dest = (path.isEmpty()) ? null : path.get(0);
+            stopAutosave(true);
+            currentGame.endGame(currentGame.players.get(state.getWinner()));
             
-            if(player.getPoints() > 0) {
+        } else {
+            
+            nextTurn();
+            ui.unfreeze();
+            
+        }
+        
+    }
+    
+    /**
+     * Animates the events of the moves played by the GameEngine, and keeps the
+     * Player sprites and the turn history in step with the engine.
+     * 
+     * @param event
+     *          Event of the move.
+     * @param state
+     *          State of the game after the move.
+     */
+    @Override
+    public void handle(EngineEvent event, EngineState state) {
+        
+        Player player = currentGame.players.get(event.getPlayer());
+        CityNode from = getCity(event.getFrom());
+        CityNode to = getCity(event.getTo());
+        
+        /* Record the move in the history. */
+        String description = event.describe();
+        if(description != null)
+            currentGame.addTurn(player, from, to, description, event.getMove());
+        
+        switch(event.getType()) {
+            
+            case ROLLED:
+                add(ui.getGamePlayScreen().rollDice(player, event.getValue()));
+                ui.getGamePlayScreen().disableRollButton(true);
+                break;
                 
-                if(origin == null || dest == null) 
-                    return;
+            case MOVED:
+                add(player.moveToCity(to));
+                ui.getGamePlayScreen().updateStatusMessage("Status: Moving " 
+                  + player.getName() + " to city " + to.getName());
+                break;
                 
-                Edge edge = origin.getEdge(dest);
-                if(edge == null)
-                    return;
+            case FLEW:
+                add(player.moveToCity(to));
+                ui.getGamePlayScreen().updateStatusMessage("Status: Moving " 
+                  + player.getName() + " to city " + to.getName());
+                break;
                 
-                if(edge.getEdgeType() == EdgeType.SEA) {
-                    
-                    player.setAtPort(true);
-                    player.addPoints(-player.getPoints());
-                    waitAtPort();
-                                    
-                    st.setOnFinished(e->{
-
-                        nextTurn();
-                        ui.unfreeze();
-                        
-                    });
+            case CARD_PLAYED:
+                add(player.getCardTray().playCard(to));
+                ui.getGamePlayScreen().updateStatusMessage("Status: " 
+                  + player.getName() + " is at destination " + to.getName());
+                break;
                 
-                } else {
-                    
-                    CityNode city = path.remove(0);
-                    st.getChildren().add(player.moveToCity(city));
-                    currentGame.addTurn(player, origin, player.getCurrentCity(), "Move to City.");
-                    boolean atDestination = false;
-                    for(CityNode c : player.getHand()) {
-
-                        if(c == city) {
-
-                            /* Play the card. */
-                            if(city == player.getHomeCity()) {
-
-                                /* Player has won. */
-                                if(player.getHand().size() == 1) {
-
-                                    st.getChildren().add(player.getCardTray().playCard(city));
-                                    atDestination = true;
-                                    st.setOnFinished(e->{
-                                    
-                                        currentGame.endGame(player);
-                                    
-                                    });
-                                    st.play();
-                                    return;
-
-                                }
-
-                            } else {
-
-                                /* Set points to zero. */
-                                player.addPoints(-player.getPoints());
-                                st.getChildren().add(player.getCardTray().playCard(city));
-                                atDestination = true;
-
-                            }
-
-                            break;
-
-                        }
-
-                    }
-
-                    if(atDestination) {
-                        ui.getGamePlayScreen().updateStatusMessage("Status: " 
-                          + player.getName() + " is at destination " + city.getName());
-                    } else {
-                        ui.getGamePlayScreen().updateStatusMessage("Status: Moving " 
-                          + player.getName() + " to city " + city.getName());                
-                    }
+            case HOME_EARLY:
+                if(player.getPlayerType() == PlayerType.HUMAN)
+                    MessageBox.showDialog("You must visit all cities before returning home.");
+                break;
                 
-                    st.setOnFinished(e->{
-
-                        player.alignToCity(dest);
-                        nextTurn();
-                        ui.unfreeze();
-
-                    });
+            default:
+                break;
+                
+        }
+        
+        /* Keep every player's points and port flag in step with the engine. */
+        for(int seat = 0; seat < state.getPlayerCount(); seat++) {
+            
+            Player p = currentGame.players.get(seat);
+            p.setPoints(state.getPoints(seat));
+            p.setAtPort(state.isAtPort(seat));
+            
+        }
+        currentGame.setDieRolled(state.isDieRolled());
+        
+    }
+    
+    /**
+     * Adds an animation to the animation of the move being played.
+     */
+    private void add(Animation animation) {
+        
+        if(turnAnimation != null && animation != null)
+            turnAnimation.getChildren().add(animation);
+        
+    }
+    
+    /**
+     * Returns the CityNode with the indicated ID, or null.
+     */
+    private CityNode getCity(int id) {
+        
+        return (id < 0) ? null : currentGame.getPathFinder().getCities().get(id);
+        
+    }
 
-                }
+    /**
+     * Plays the turn of a computer player. The route of the player is planned
+     * on a worker thread, and the turn is animated once the plan is handed
+     * back to the JavaFX application thread. The board stays frozen while the
+     * plan is being made.
+     * 
+     * @param player
+     *          Computer player whose turn it is.
+     */
+    private void playTurnAI(Player player) {
+        
+        GameData game = currentGame;
+        ui.freeze();
+        planner.plan(player, game.getPathFinder()).whenCompleteAsync((plan, ex) -> {
+            
+            /* The game or turn moved on while the plan was made. */
+            if(currentGame != game || game.getCurrentPlayer() != player)
+                return;
+            
+            if(ex != null) {
+                
+                /* Planning failed, so the turn is passed rather than lost. */
+                ex.printStackTrace();
+                animateTurnAI(player, null);
+                
+            } else if(!plan.isCurrent()) {
+                
+                /* The player moved since the plan was requested. */
+                playTurnAI(player);
+                
+            } else {
                 
-            }        
+                if(!player.hasShortestPath() && plan.getRoute() != null)
+                    player.setShortestPath(new ArrayList<>(plan.getRoute()));
+                animateTurnAI(player, player.hasShortestPath() 
+                    ? player.getShortestPath() : null);
+                
+            }
+            
+        }, Platform::runLater);
+        
+    }
+    
+    /**
+     * Starts planning the turn of the player expected to play next, while the
+     * animation of the current turn is running.
+     */
+    private void prefetchNextTurn() {
+        
+        if(currentGame != null)
+            planner.prefetch(currentGame.peekNextPlayer(), currentGame.getPathFinder());
+        
+    }
+
+    /**
+     * Animates the next move of a computer player along its planned route.
+     * The moves are chosen by the ComputerStrategy and played by the 
+     * GameEngine. Must be called on the JavaFX application thread.
+     * 
+     * @param player
+     *          Computer player whose turn it is.
+     * @param path
+     *          Planned route of the player, or null if no route exists.
+     */
+    private void animateTurnAI(Player player, ArrayList<CityNode> path) {
+        
+        GameEngine engine = currentGame.getEngine();
+        SequentialTransition st = new SequentialTransition();
+        st.setAutoReverse(false);
+        
+        if(path == null || path.isEmpty()) {
+            
+            /* No route can be followed, so the turn is passed. */
+            ui.getGamePlayScreen().updateStatusMessage("Status: " 
+              + player.getName() + " cannot find a route.");
+            st.getChildren().add(playMove(Move.pass()));
+            
+        } else {
+            
+            /* Roll the die first, unless waiting for the ferry. */
+            if(GameEngine.needsRoll(engine.getState()))
+                st.getChildren().add(playMove(Move.roll(currentGame.rollDie())));
+            
+            /* Take the next step along the route. */
+            CityNode next = path.get(0);
+            Move move = ComputerStrategy.chooseMove(engine.getState(), next.getCityId());
+            if((move.getType() == Move.Type.TRAVEL || move.getType() == Move.Type.FLY)
+              && move.getCity() == next.getCityId())
+                player.advanceShortestPath();
+            st.getChildren().add(playMove(move));
             
-            ui.freeze();
-            st.play();
         }
         
+        st.setOnFinished(e->{
+
+            finishTurn();
+            ui.getEventManager().resetFlightStage();
+
+        });
+        
+        ui.freeze();
+        prefetchNextTurn();
+        st.play();
+        
     }
 
     public void nextTurn() {
@@ -519,131 +636,50 @@ public class GameManager {
         return currentGame;
     }
 
-    public void flyToCity(CityNode city) {
+    /**
+     * Returns the route finder for the map of the current game.
+     * 
+     * @return 
+     *          The PathFinder of the current game, or null if no game is
+     *          being played.
+     */
+    public PathFinder getPathFinder() {
         
-        /* Implement. */  
-        Player player = currentGame.getCurrentPlayer();
-        int points = player.getPoints();
-     
-        int section = player.getCurrentCity().getSection();
-        int destSection = city.getSection();
-        int cost = 0;
-
-        switch(section) {
-
-            case 1:
-                if(destSection == 1)
-                    cost = 2;
-                else if (destSection == 2 || destSection == 4)
-                    cost = 4;
-                break;
-            case 2:
-                if(destSection == 2)
-                    cost = 2;
-                else if (destSection == 1 || destSection == 3)
-                    cost = 4;
-                break;
-            case 3:
-                if(destSection == 3)
-                    cost = 2;
-                else if (destSection == 2 || destSection == 4 || destSection == 6)
-                    cost = 4;
-                break;
-            case 4:
-                if(destSection == 4)
-                    cost = 2;
-                else if (destSection == 1 || destSection == 5 || destSection == 3)
-                    cost = 4;
-                break;
-            case 5:
-                if(destSection == 5)
-                    cost = 2;
-                else if (destSection == 4 || destSection == 6)
-                    cost = 4;
-                break;
-            case 6:
-                if(destSection == 6)
-                    cost = 2;
-                else if (destSection == 3 || destSection == 5)
-                    cost = 4;
-                break;
+        return (currentGame == null) ? null : currentGame.getPathFinder();
+        
+    }
 
+    /**
+     * Flies the current player to the indicated city, if the player is at a
+     * flight city and has enough points for the fare.
+     * 
+     * @param city
+     *          City to fly to.
+     */
+    public void flyToCity(CityNode city) {
+        
+        if(currentGame == null) return;
+        
+        Move move = Move.fly(city.getCityId());
+        String reason = currentGame.getEngine().check(move);
+        if(reason != null) {
+            
+            MessageBox.showDialog(reason);
+            return;
+            
         }
         
-        if(city != player.getCurrentCity() && points >= cost && player.getCurrentCity().isFlightCity()) {
-            
-            player.addPoints(-(cost - 1));
-            SequentialTransition st = new SequentialTransition();
-            st.setAutoReverse(false);
-            CityNode origin = player.getCurrentCity();
-            ParallelTransition pt = player.moveToCity(city);
-            st.getChildren().add(pt);
-            player.setAtPort(false);
-            player.addPoints(-player.getPoints());
-            boolean atDestination = false;
-            for(CityNode c : player.getHand()) {
-
-                if(c == city) {
-
-                    /* Play the card. */
-                    if(city == player.getHomeCity()) {
-
-                        /* Player has won. */
-                        if(player.getHand().size() == 1) {
-
-                            st.getChildren().add(player.getCardTray().playCard(city));
-                            atDestination = true;
-                            st.setOnFinished(e->{
-
-                                currentGame.endGame(player);
-
-                            });
-                            st.play();
-                            return;
-
-                        }
-
-                    } else {
-
-                        /* Set points to zero. */
-                        st.getChildren().add(player.getCardTray().playCard(city));
-                        atDestination = true;
+        SequentialTransition st = playMove(move);
+        st.setOnFinished(e->{
 
-                    }
+            finishTurn();
+            ui.getEventManager().resetFlightStage();
 
-                    break;
-
-                }
-
-            }
-
-            if(atDestination) {
-                ui.getGamePlayScreen().updateStatusMessage("Status: " 
-                  + player.getName() + " is at destination " + city.getName());
-            } else {
-                ui.getGamePlayScreen().updateStatusMessage("Status: Moving " 
-                  + player.getName() + " to city " + city.getName());                
-            }
-
-            st.setOnFinished(e->{
-
-                player.alignToCity(city);
-                nextTurn();
-                ui.unfreeze();
-                ui.getEventManager().resetFlightStage();
-
-            });
-            currentGame.addTurn(player, origin, player.getCurrentCity(), "Fly to City.");
+        });
 
-            ui.freeze();
-            st.play();
-            
-            
-        } else {
-            
-            MessageBox.showDialog("Cannot fly from here.");
-            
-        }
+        ui.freeze();
+        prefetchNextTurn();
+        st.play();
         
     }
 
@@ -653,23 +689,167 @@ public class GameManager {
     
     }
 
+    /**
+     * Saves the current game to the load file in the 'data' folder, in the
+     * binary format of SavedGame.
+     */
     public void saveGame() {
     
+        if(currentGame == null) return;
+        
         PropertiesManager props = PropertiesManager.getPropertiesManager();
         String loadName = props.getProperty(GameProperties.LOAD_FILE_NAME);
         File saveFile = new File("data/" + loadName);
         try {
-            FileOutputStream fos = new FileOutputStream(saveFile);
-            ObjectOutputStream oos = new ObjectOutputStream(fos);
             
-            oos.writeObject(currentGame);
+            snapshot().write(saveFile.toPath());
+            
+        } catch (IOException e) {
+            
+            MessageBox.showDialog("Could not save the game: " + e.getMessage());
             
-        } catch (Exception e) {
-            System.out.println(e.getMessage());
         }      
     
     }
     
+    /**
+     * Returns the state of the current game to be saved: the players, the 
+     * state of the engine, and the turns played.
+     */
+    private SavedGame snapshot() {
+        
+        int count = players.size();
+        String[] names = new String[count];
+        boolean[] computer = new boolean[count];
+        int[] colors = new int[count];
+        for(int seat = 0; seat < count; seat++) {
+            
+            Player p = players.get(seat);
+            names[seat] = p.getName();
+            computer[seat] = p.getPlayerType() == PlayerType.COMPUTER;
+            colors[seat] = Math.max(0, 
+                Arrays.asList(PlayerEditPane.playerColors).indexOf(p.getColor()));
+            
+        }
+        
+        List<SavedGame.TurnRecord> turns = new ArrayList<>();
+        for(Object o : currentGame.getTurns()) {
+            
+            Turn t = (Turn) o;
+            turns.add(new SavedGame.TurnRecord(t.getTurnNumber() - 1, t.getSeat(), 
+                t.getFromCity(), t.getToCity(), t.getDescription(), t.getMove()));
+            
+        }
+        
+        return new SavedGame(currentGame.getSeed(), names, computer, colors, 
+            currentGame.getEngine().getState(), turns);
+        
+    }
+    
+    /**
+     * Starts the autosave of the current game, with a snapshot of the game as
+     * it is now.
+     */
+    private void startAutosave() {
+        
+        stopAutosave(false);
+        PropertiesManager props = PropertiesManager.getPropertiesManager();
+        try {
+            
+            journal = new TurnJournal(
+                new File("data/" + props.getProperty(GameProperties.AUTOSAVE_FILE_NAME)).toPath(),
+                new File("data/" + props.getProperty(GameProperties.JOURNAL_FILE_NAME)).toPath());
+            journal.snapshot(snapshot());
+            
+        } catch (IOException e) {
+            
+            System.out.println("Autosave disabled: " + e.getMessage());
+            stopAutosave(false);
+            
+        }
+        
+    }
+    
+    /**
+     * Appends a move of the current game to the autosave, taking a new 
+     * snapshot of the game when one is due.
+     * 
+     * @param move
+     *          The move played.
+     */
+    private void autosave(Move move) {
+        
+        if(journal == null) return;
+        
+        try {
+            
+            journal.append(move);
+            
+        } catch (IOException e) {
+            
+            System.out.println("Autosave disabled: " + e.getMessage());
+            stopAutosave(false);
+            return;
+            
+        }
+        
+        if(journal.needsSnapshot())
+            snapshotAutosave();
+        
+    }
+    
+    /**
+     * Writes a snapshot of the current game to the autosave, so that the 
+     * journal starts again from the game as it is now.
+     */
+    private void snapshotAutosave() {
+        
+        if(journal == null) return;
+        
+        try {
+            
+            journal.snapshot(snapshot());
+            
+        } catch (IOException e) {
+            
+            System.out.println("Autosave disabled: " + e.getMessage());
+            stopAutosave(false);
+            
+        }
+        
+    }
+    
+    /**
+     * Stops the autosave of the current game.
+     * 
+     * @param delete
+     *          True to delete the autosave, once the game is over.
+     */
+    private void stopAutosave(boolean delete) {
+        
+        if(journal == null) return;
+        
+        try {
+            
+            if(delete)
+                journal.delete();
+            else
+                journal.close();
+            
+        } catch (IOException e) {
+            
+            Logger.getLogger(GameManager.class.getName()).log(Level.SEVERE,
+                "Cannot close the autosave", e);
+            
+        }
+        journal = null;
+        
+    }
+    
+    /**
+     * Loads the game saved in the load file of the 'data' folder, and 
+     * continues it on a newly loaded map.
+     */
     public void loadGame() {
         
         PropertiesManager props = PropertiesManager.getPropertiesManager();
@@ -679,30 +859,132 @@ public class GameManager {
             System.out.println("File Not Found.");
             return;
         }
+        
+        /* Read the game against a newly loaded map. */
+        stopAutosave(false);
+        HashMap<String, CityNode> map = FileLoader.loadMap();
+        MapGraph graph = map.values().iterator().next().getGraph();
         try {
-            FileInputStream fis = new FileInputStream(loadFile);
-            ObjectInputStream ois = new ObjectInputStream(fis);
             
-            currentGame = (GameData) ois.readObject();
-            if (currentGame == null) {
-                System.out.println("Error Occurred.");
-            }
-            currentGame.setUI(ui);
-            cities = currentGame.getCities();
-            players = currentGame.getPlayers();
-            ui.getGamePlayScreen().setCities(cities);
-            ui.getGamePlayScreen().setPlayers(players);
-            ui.getGamePlayScreen().setCurrentPlayer(currentGame.currentPlayer);
-            ui.getEventManager().respondToSwitchScreen(JourneyUI.GameScreen.SPLASH, JourneyUI.GameScreen.GAME_PLAY);
-            nextTurn();
+            continueGame(SavedGame.read(loadFile.toPath(), graph), map);
             
-        } catch (Exception e) {
+        } catch (IOException e) {
             
-            System.out.println(e.getMessage());
+            MessageBox.showDialog("Could not load the game: " + e.getMessage());
             
         }
         
     }
+    
+    /**
+     * Offers to recover the game which was being played when the application
+     * last closed or crashed, if its autosave was left behind. A game which
+     * ends deletes its autosave, so only unfinished games are offered. The
+     * autosave is deleted if the offer is declined.
+     */
+    public void offerRecovery() {
+        
+        PropertiesManager props = PropertiesManager.getPropertiesManager();
+        File autosave = new File("data/" + props.getProperty(GameProperties.AUTOSAVE_FILE_NAME));
+        File journalFile = new File("data/" + props.getProperty(GameProperties.JOURNAL_FILE_NAME));
+        if(!autosave.exists())
+            return;
+        
+        MessageBox.showConfirm("An unfinished game was found. Continue it?", 
+            () -> recoverGame(autosave, journalFile), 
+            () -> {
+                
+                if(!autosave.delete() || (journalFile.exists() && !journalFile.delete()))
+                    Logger.getLogger(GameManager.class.getName()).log(Level.SEVERE,
+                        "Cannot delete the autosave " + autosave);
+                
+            });
+        
+    }
+    
+    /**
+     * Recovers the autosaved game from its snapshot and journal, and 
+     * continues it on a newly loaded map.
+     */
+    private void recoverGame(File autosave, File journalFile) {
+        
+        stopAutosave(false);
+        HashMap<String, CityNode> map = FileLoader.loadMap();
+        MapGraph graph = map.values().iterator().next().getGraph();
+        try {
+            
+            SavedGame saved = TurnJournal.recover(autosave.toPath(), journalFile.toPath(), graph);
+            if(saved != null)
+                continueGame(saved, map);
+            
+        } catch (IOException e) {
+            
+            MessageBox.showDialog("Could not recover the game: " + e.getMessage());
+            
+        }
+        
+    }
+    
+    /**
+     * Puts a saved game on the board and continues it from its current turn.
+     * 
+     * @param saved
+     *          The saved game, read against the map.
+     * @param map
+     *          The newly loaded map on which the game was read.
+     */
+    private void continueGame(SavedGame saved, HashMap<String, CityNode> map) {
+        
+        /* Construct the players of the saved game. */
+        planner.clear();
+        ArrayList<Player> saves = new ArrayList<>();
+        for(int seat = 0; seat < saved.getState().getPlayerCount(); seat++) {
+            
+            int color = saved.getColor(seat) % PlayerEditPane.playerColors.length;
+            saves.add(new Player(PlayerEditPane.playerColors[color], 
+                saved.isComputer(seat) ? PlayerType.COMPUTER : PlayerType.HUMAN,
+                saved.getName(seat), ui));
+            
+        }
+        
+        List<Turn> history = new ArrayList<>();
+        for(SavedGame.TurnRecord t : saved.getTurns()) {
+            
+            String player = (t.getSeat() < 0) ? "N/a" : saved.getName(t.getSeat());
+            String from = (t.getFromCity() < 0) ? "N/a" 
+                : saved.getState().getGraph().getName(t.getFromCity());
+            String to = (t.getToCity() < 0) ? "N/a" 
+                : saved.getState().getGraph().getName(t.getToCity());
+            history.add(new Turn(t.getTurn(), t.getSeat(), player, t.getFromCity(), 
+                from, t.getToCity(), to, t.getDescription(), t.getMove()));
+            
+        }
+        
+        /* Put the game on the board and continue it. */
+        cities = map;
+        players = saves;
+        currentGame = new GameData(ui, cities, players);
+        ui.getGameHistoryScreen().setGameData(currentGame);
+        ui.getGamePlayScreen().setCities(cities);
+        ui.getGamePlayScreen().setPlayers(players);
+        ui.getEventManager().respondToSwitchScreen(JourneyUI.GameScreen.SPLASH, JourneyUI.GameScreen.GAME_PLAY);
+        ui.getGamePlayScreen().getGameBoard().initPlayerPositions();
+        
+        SequentialTransition st = currentGame.restore(saved.getState(), saved.getSeed(), history);
+        currentGame.getEngine().addListener(this);
+        startAutosave();
+        ui.getGamePlayScreen().setCurrentPlayer(currentGame.currentPlayer);
+        st.setOnFinished(e->{
+            
+            ui.unfreeze();
+            nextTurn();
+            
+        });
+        
+        ui.freeze();
+        st.play();
+        
+    }
    
     /**
      * Enumeration listing the possible states of the game.
@@ -723,6 +1005,18 @@ public class GameManager {
     public GameManager(JourneyUI ui) {
         
         this.ui = ui;
+        planner = new AIPlanner();
+        
+    }
+    
+    /**
+     * Stops the threads planning the routes of computer players, and closes
+     * the autosave of the current game.
+     */
+    public void shutdown() {
+        
+        planner.shutdown();
+        stopAutosave(false);
         
     }
     
@@ -753,6 +1047,9 @@ public class GameManager {
             
         }
         
+        /* Discard plans made for the previous game. */
+        planner.clear();
+        
         /* Construct the deck from the data on file */
         cities = FileLoader.loadMap();
         currentGame = new GameData(ui, cities, players);
@@ -777,7 +1074,10 @@ public class GameManager {
         if (currentGame == null)
             return null;
         
-        return currentGame.startGame();
+        SequentialTransition deal = currentGame.startGame();
+        currentGame.getEngine().addListener(this);
+        startAutosave();
+        return deal;
         
     }
     
@@ -0,0 +1,401 @@
+package Journey.manager;
+
+import Journey.file.FileLoader;
+import Journey.file.SavedGame;
+import Journey.game.ComputerStrategy;
+import Journey.game.EngineListener;
+import Journey.game.EngineState;
+import Journey.game.GameData;
+import Journey.game.GameEngine;
+import Journey.game.GameProperties;
+import Journey.game.MapGraph;
+import Journey.game.Move;
+import Journey.game.PathFinder;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import properties_manager.PropertiesManager;
+
+/**
+ * Plays a recorded game again, without the JavaFX layer. The hands are dealt
+ * again from the seed of the game, as GameData.startGame() deals them, and
+ * the recorded moves are played by the GameEngine, so the same seed and moves
+ * always reproduce the same game, including the rolls of the die.
+ *
+ * The replay may be stepped one move at a time, publishing the events of each
+ * move to its listeners as the board does, or moved to any move or turn of
+ * the game without publishing events. Every CHECKPOINT_INTERVAL moves the
+ * state of the game is kept, so that seeking replays at most that many moves.
+ *
+ * Used to reproduce the games of players, and the moves of computer players
+ * in particular, from the games they saved.
+ *
+ * @author
+ *          Anthony G. Musco
+ * <dt><b>Date Created</b><dd>
+ *          Dec-14-2014
+ * <dt><b>Class</b><dd>
+ *          CSE 219
+ */
+public class GameReplay {
+
+    /**
+     * Number of moves between the states kept for seeking.
+     */
+    public static final int CHECKPOINT_INTERVAL = 128;
+
+    /**
+     * Moves of the game, in the order played.
+     */
+    private final List<Move> moves;
+
+    /**
+     * Turn of the game before each move, and after the last.
+     */
+    private final int[] turns;
+
+    /**
+     * State of the game before every CHECKPOINT_INTERVAL-th move.
+     */
+    private final List<EngineState> checkpoints;
+
+    /**
+     * Listeners to the events of the moves stepped through.
+     */
+    private final List<EngineListener> listeners;
+
+    /**
+     * Engine at the current move of the replay.
+     */
+    private GameEngine engine;
+
+    /**
+     * Number of moves played so far.
+     */
+    private int position;
+
+    /**
+     * Constructs the replay of a game, dealing it from its seed and checking
+     * every move. The replay begins before the first move.
+     *
+     * @param graph
+     *          Graph of the map on which the game was played.
+     * @param seed
+     *          Seed from which the game was dealt.
+     * @param players
+     *          Number of players of the game.
+     * @param moves
+     *          Moves of the game, in the order played.
+     * @throws IllegalArgumentException
+     *          If any move is illegal where it was played.
+     */
+    public GameReplay(MapGraph graph, long seed, int players, List<Move> moves) {
+
+        this.moves = new ArrayList<>(moves);
+        turns = new int[moves.size() + 1];
+        checkpoints = new ArrayList<>();
+        listeners = new ArrayList<>();
+
+        /* Play the game once, keeping the checkpoints. */
+        EngineState s = new EngineState(graph,
+            GameData.dealHands(graph, players, new SplittableRandom(seed)));
+        for(int k = 0; k < this.moves.size(); k++) {
+
+            if(k % CHECKPOINT_INTERVAL == 0)
+                checkpoints.add(s);
+            turns[k] = s.getTurn();
+
+            String reason = GameEngine.check(s, this.moves.get(k));
+            if(reason != null)
+                throw new IllegalArgumentException("Move " + k + " (" + this.moves.get(k)
+                    + ") is illegal: " + reason);
+            s = GameEngine.apply(s, this.moves.get(k));
+
+        }
+        turns[this.moves.size()] = s.getTurn();
+        if(checkpoints.isEmpty())
+            checkpoints.add(s);
+
+        engine = new GameEngine(checkpoints.get(0));
+
+    }
+
+    /**
+     * Constructs the replay of a saved game from the moves recorded in its
+     * history.
+     *
+     * @param saved
+     *          The saved game.
+     * @return
+     *          The replay of the game.
+     * @throws IllegalArgumentException
+     *          If the game was saved without its moves, or its moves are
+     *          illegal.
+     */
+    public static GameReplay of(SavedGame saved) {
+
+        List<Move> moves = new ArrayList<>();
+        for(SavedGame.TurnRecord turn : saved.getTurns()) {
+
+            if(turn.getMove() == null)
+                throw new IllegalArgumentException("The game was saved without its moves.");
+            moves.add(turn.getMove());
+
+        }
+
+        EngineState state = saved.getState();
+        return new GameReplay(state.getGraph(), saved.getSeed(), state.getPlayerCount(), moves);
+
+    }
+
+    public void addListener(EngineListener listener) {
+
+        listeners.add(listener);
+        engine.addListener(listener);
+
+    }
+
+    public void removeListener(EngineListener listener) {
+
+        listeners.remove(listener);
+        engine.removeListener(listener);
+
+    }
+
+    public EngineState getState() {
+
+        return engine.getState();
+
+    }
+
+    /**
+     * Returns the number of moves played so far.
+     *
+     * @return
+     *          The index of the next move.
+     */
+    public int getPosition() {
+
+        return position;
+
+    }
+
+    public int getMoveCount() {
+
+        return moves.size();
+
+    }
+
+    public Move getMove(int index) {
+
+        return moves.get(index);
+
+    }
+
+    /**
+     * Indicates whether every move has been played.
+     *
+     * @return
+     *          True if the replay is at the end of the game.
+     */
+    public boolean isFinished() {
+
+        return position == moves.size();
+
+    }
+
+    /**
+     * Plays the next move, publishing its events to the listeners.
+     *
+     * @return
+     *          The state after the move.
+     * @throws IllegalStateException
+     *          If every move has been played.
+     */
+    public EngineState step() {
+
+        if(isFinished())
+            throw new IllegalStateException("The replay is finished.");
+
+        return engine.play(moves.get(position++));
+
+    }
+
+    /**
+     * Plays the remaining moves without publishing their events.
+     *
+     * @return
+     *          The state at the end of the game.
+     */
+    public EngineState fastForward() {
+
+        return seek(moves.size());
+
+    }
+
+    /**
+     * Moves the replay to the state before a move, from the nearest state
+     * known before it, without publishing any events.
+     *
+     * @param index
+     *          Index of the move, from 0 to getMoveCount().
+     * @return
+     *          The state before the move.
+     */
+    public EngineState seek(int index) {
+
+        if(index < 0 || index > moves.size())
+            throw new IndexOutOfBoundsException("Move " + index + " of " + moves.size());
+
+        EngineState s;
+        int k;
+        if(index >= position && index - position < CHECKPOINT_INTERVAL) {
+
+            s = engine.getState();
+            k = position;
+
+        } else {
+
+            k = Math.min(index / CHECKPOINT_INTERVAL, checkpoints.size() - 1) * CHECKPOINT_INTERVAL;
+            s = checkpoints.get(k / CHECKPOINT_INTERVAL);
+
+        }
+
+        for(; k < index; k++)
+            s = GameEngine.apply(s, moves.get(k));
+
+        engine = new GameEngine(s);
+        for(EngineListener listener : listeners)
+            engine.addListener(listener);
+        position = index;
+        return s;
+
+    }
+
+    /**
+     * Moves the replay to the first move of a turn.
+     *
+     * @param turn
+     *          Number of the turn, from 0.
+     * @return
+     *          The state at the beginning of the turn, or at the end of the
+     *          game if the game ended before it.
+     */
+    public EngineState seekTurn(int turn) {
+
+        /* The turns never decrease from one move to the next. */
+        int index = Arrays.binarySearch(turns, turn);
+        if(index < 0)
+            index = -index - 1;
+        while(index > 0 && turns[index - 1] == turn)
+            index--;
+
+        return seek(Math.min(index, moves.size()));
+
+    }
+
+    /**
+     * Indicates whether a state is the state which the replay reaches at the
+     * end of the game.
+     *
+     * @param expected
+     *          The state the game is expected to reach, such as the state of
+     *          a saved game.
+     * @return
+     *          True if the players, their hands and the turn are the same.
+     */
+    public boolean reproduces(EngineState expected) {
+
+        EngineState s = checkpoints.get(checkpoints.size() - 1);
+        for(int k = (checkpoints.size() - 1) * CHECKPOINT_INTERVAL; k < moves.size(); k++)
+            s = GameEngine.apply(s, moves.get(k));
+
+        if(s.getPlayerCount() != expected.getPlayerCount() || s.getTurn() != expected.getTurn()
+          || s.getCurrentPlayer() != expected.getCurrentPlayer()
+          || s.isDieRolled() != expected.isDieRolled())
+            return false;
+
+        for(int seat = 0; seat < s.getPlayerCount(); seat++)
+            if(s.getPosition(seat) != expected.getPosition(seat)
+              || s.getPoints(seat) != expected.getPoints(seat)
+              || s.isAtPort(seat) != expected.isAtPort(seat)
+              || !Arrays.equals(s.getHand(seat), expected.getHand(seat)))
+                return false;
+
+        return true;
+
+    }
+
+    /**
+     * Replays a saved game from the command line and prints its state at a
+     * turn:
+     *
+     *     GameReplay file [turn]
+     *
+     * along with the move played next and, for a computer player, the move
+     * its strategy chooses there, which differ if the strategy changed since
+     * the game was played.
+     *
+     * @param args
+     *          Path of the saved game, and the number of the turn, from 1.
+     * @throws Exception
+     *          Exception thrown if the properties, map, or game cannot be
+     *          loaded.
+     */
+    public static void main(String[] args) throws Exception {
+
+        if(args.length < 1) {
+
+            System.out.println("Usage: GameReplay file [turn]");
+            return;
+
+        }
+
+        /* Load the properties and the map, as Main does. */
+        PropertiesManager props = PropertiesManager.getPropertiesManager();
+        props.addProperty(GameProperties.PROPERTIES_FILE_NAME, "properties.xml");
+        props.addProperty(GameProperties.SCHEMA_FILE_NAME, "properties_schema.xsd");
+        props.addProperty(GameProperties.DATA_PATH, "./data/");
+        props.loadProperties("properties.xml", "properties_schema.xsd");
+
+        MapGraph graph = FileLoader.loadGraph();
+        SavedGame saved = SavedGame.read(new File(args[0]).toPath(), graph);
+        GameReplay replay = GameReplay.of(saved);
+        if(!replay.reproduces(saved.getState()))
+            System.out.println("Warning: the moves do not reproduce the saved game.");
+
+        EngineState s = (args.length > 1)
+            ? replay.seekTurn(Integer.parseInt(args[1]) - 1)
+            : replay.fastForward();
+
+        System.out.println("Turn " + (s.getTurn() + 1) + ", move " + replay.getPosition()
+            + " of " + replay.getMoveCount());
+        for(int seat = 0; seat < s.getPlayerCount(); seat++) {
+
+            StringBuilder hand = new StringBuilder();
+            for(int card : s.getHand(seat))
+                hand.append(' ').append(graph.getName(card));
+            System.out.println(((seat == s.getCurrentPlayer()) ? "> " : "  ")
+                + saved.getName(seat) + " at " + graph.getName(s.getPosition(seat))
+                + ", " + s.getPoints(seat) + " points" + (s.isAtPort(seat) ? ", at port" : "")
+                + ", hand:" + hand);
+
+        }
+
+        if(replay.isFinished())
+            return;
+
+        System.out.println("Next move:     " + replay.getMove(replay.getPosition()));
+        if(saved.isComputer(s.getCurrentPlayer()) && !GameEngine.needsRoll(s)) {
+
+            ComputerStrategy strategy = new ComputerStrategy(new PathFinder(graph),
+                s.getPlayerCount());
+            System.out.println("Strategy move: " + strategy.nextMove(s));
+
+        }
+
+    }
+
+}
@@ -0,0 +1,400 @@
+package Journey.manager;
+
+import Journey.file.FileLoader;
+import Journey.game.ComputerStrategy;
+import Journey.game.EngineState;
+import Journey.game.GameData;
+import Journey.game.GameEngine;
+import Journey.game.GameProperties;
+import Journey.game.MapGraph;
+import Journey.game.Move;
+import Journey.game.PathFinder;
+import Journey.game.RouteCostModel;
+import Journey.game.TurnCostModel;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import properties_manager.PropertiesManager;
+
+/**
+ * Plays complete games between computer players without the JavaFX layer, on
+ * a fork-join pool. Each game is dealt like GameData.dealCards() and played
+ * by the GameEngine, with the moves of every seat chosen by a
+ * ComputerStrategy, as GameManager.playTurnAI() does on the board. Used to
+ * tune the rules of the game.
+ *
+ * Every game is seeded from the seed of the run and its own index, so a run
+ * plays the same games whatever the number of threads.
+ *
+ * @author
+ *          Anthony G. Musco
+ * <dt><b>Date Created</b><dd>
+ *          Dec-14-2014
+ * <dt><b>Class</b><dd>
+ *          CSE 219
+ */
+public class GameSimulator {
+
+    /**
+     * Number of turns after which an unfinished game is abandoned.
+     */
+    public static final int MAX_TURNS = 10000;
+
+    /**
+     * Number of games a task plays without splitting.
+     */
+    private static final int GAMES_PER_TASK = 16;
+
+    /**
+     * Enumeration listing the types of computer players.
+     *     PLANNER: Plans routes by the points each move is expected to cost,
+     *              including the turns lost to ferries and flights. This is
+     *              the computer player of the game.
+     *     NAIVE:   Plans routes by the number of moves alone, every road
+     *              move, sea crossing, and flight counting as one.
+     */
+    public enum AIType { PLANNER, NAIVE };
+
+    /**
+     * Graph of the map on which the games are played.
+     */
+    private final MapGraph graph;
+
+    /**
+     * PathFinder of each type of computer player, shared by every thread.
+     */
+    private final Map<AIType, PathFinder> pathFinders;
+
+    /**
+     * Constructs a simulator for the games on a map.
+     *
+     * @param graph
+     *          Graph of the map.
+     */
+    public GameSimulator(MapGraph graph) {
+
+        this.graph = graph;
+        pathFinders = new EnumMap<>(AIType.class);
+        PathFinder planner = new PathFinder(graph);
+        pathFinders.put(AIType.PLANNER, planner);
+        pathFinders.put(AIType.NAIVE, planner.withCostModel(new MoveCountModel()));
+
+    }
+
+    /**
+     * Plays a batch of games.
+     *
+     * @param seats
+     *          Type of the computer player in each seat. The number of seats
+     *          is the number of players of each game.
+     * @param games
+     *          Number of games to play.
+     * @param seed
+     *          Seed of the run.
+     * @param parallelism
+     *          Number of threads on which to play the games.
+     * @return
+     *          The statistics of the games played.
+     */
+    public Result run(AIType[] seats, int games, long seed, int parallelism) {
+
+        if(seats.length == 0)
+            throw new IllegalArgumentException("A game requires players.");
+
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+
+            long start = System.nanoTime();
+            Result result = pool.invoke(new Batch(seats.clone(), seed, 0, games));
+            result.nanos = System.nanoTime() - start;
+            return result;
+
+        } finally {
+
+            pool.shutdown();
+
+        }
+
+    }
+
+    /**
+     * Plays a single game.
+     *
+     * @param seats
+     *          Type of the computer player in each seat.
+     * @param random
+     *          Source of randomness for the deal and the die.
+     * @return
+     *          The state at which the game ended.
+     */
+    public EngineState playGame(AIType[] seats, SplittableRandom random) {
+
+        EngineState s = new EngineState(graph, GameData.dealHands(graph, seats.length, random));
+
+        /* Each type of player follows the routes of its own strategy. */
+        Map<AIType, ComputerStrategy> strategies = new EnumMap<>(AIType.class);
+        for(AIType type : seats)
+            if(!strategies.containsKey(type))
+                strategies.put(type, new ComputerStrategy(pathFinders.get(type), seats.length));
+
+        while(!s.isOver() && s.getTurn() < MAX_TURNS) {
+
+            Move move;
+            if(GameEngine.needsRoll(s))
+                move = Move.roll(random.nextInt(GameEngine.DIE_SIDES) + 1);
+            else
+                move = strategies.get(seats[s.getCurrentPlayer()]).nextMove(s);
+            s = GameEngine.apply(s, move);
+
+        }
+
+        return s;
+
+    }
+
+    /**
+     * Cost model of the NAIVE player, which charges one for every move and
+     * only uses the fares to tell which flights exist.
+     */
+    private static class MoveCountModel implements RouteCostModel {
+
+        @Override
+        public int roadCost() {
+
+            return 1;
+
+        }
+
+        @Override
+        public int seaCost() {
+
+            return 1;
+
+        }
+
+        @Override
+        public int flightCost(int fromSection, int toSection) {
+
+            return (TurnCostModel.getFlightFare(fromSection, toSection) == UNAVAILABLE)
+                ? UNAVAILABLE : 1;
+
+        }
+
+    }
+
+    /**
+     * Task playing a range of the games of a run, splitting the range in two
+     * while it is large.
+     */
+    private class Batch extends RecursiveTask<Result> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final AIType[] seats;
+        private final long seed;
+        private final int from, to;
+
+        Batch(AIType[] seats, long seed, int from, int to) {
+
+            this.seats = seats;
+            this.seed = seed;
+            this.from = from;
+            this.to = to;
+
+        }
+
+        @Override
+        protected Result compute() {
+
+            if(to - from > GAMES_PER_TASK) {
+
+                int middle = (from + to) >>> 1;
+                Batch left = new Batch(seats, seed, from, middle);
+                left.fork();
+                Result right = new Batch(seats, seed, middle, to).compute();
+                return right.add(left.join());
+
+            }
+
+            Result result = new Result(seats);
+            for(int game = from; game < to; game++) {
+
+                SplittableRandom random = new SplittableRandom(seed ^ (game * 0x9E3779B97F4A7C15L));
+                result.record(playGame(seats, random));
+
+            }
+
+            return result;
+
+        }
+
+    }
+
+    /**
+     * Statistics of the games of a run.
+     */
+    public static class Result {
+
+        private final AIType[] seats;
+        private final int[] wins;
+        private int games;
+        private long turnsToWin;
+        private long nanos;
+
+        Result(AIType[] seats) {
+
+            this.seats = seats;
+            wins = new int[seats.length];
+
+        }
+
+        /**
+         * Records the final state of a game.
+         */
+        void record(EngineState s) {
+
+            games++;
+            if(s.isOver()) {
+
+                wins[s.getWinner()]++;
+                turnsToWin += s.getTurn();
+
+            }
+
+        }
+
+        /**
+         * Adds the statistics of another part of the run to these.
+         */
+        Result add(Result other) {
+
+            games += other.games;
+            turnsToWin += other.turnsToWin;
+            for(int seat = 0; seat < wins.length; seat++)
+                wins[seat] += other.wins[seat];
+
+            return this;
+
+        }
+
+        public int getGames() {
+
+            return games;
+
+        }
+
+        /**
+         * Returns the number of games which were won before MAX_TURNS.
+         *
+         * @return
+         *          The number of games won.
+         */
+        public int getGamesWon() {
+
+            int won = 0;
+            for(int w : wins)
+                won += w;
+
+            return won;
+
+        }
+
+        public double getGamesPerSecond() {
+
+            return (nanos == 0) ? 0 : games / (nanos / 1e9);
+
+        }
+
+        public double getMeanTurnsToWin() {
+
+            int won = getGamesWon();
+            return (won == 0) ? 0 : (double) turnsToWin / won;
+
+        }
+
+        /**
+         * Returns the fraction of the games won by a seat.
+         *
+         * @param seat
+         *          Seat of the player, in the order of play.
+         * @return
+         *          The win rate of the seat, from 0 to 1.
+         */
+        public double getWinRate(int seat) {
+
+            return (games == 0) ? 0 : (double) wins[seat] / games;
+
+        }
+
+        @Override
+        public String toString() {
+
+            StringBuilder sb = new StringBuilder();
+            sb.append(String.format("Games:          %d (%d unfinished)%n",
+                games, games - getGamesWon()));
+            sb.append(String.format("Throughput:     %.1f games/sec%n", getGamesPerSecond()));
+            sb.append(String.format("Turns to win:   %.2f%n", getMeanTurnsToWin()));
+            for(int seat = 0; seat < seats.length; seat++)
+                sb.append(String.format("Seat %d %-8s %.1f%%%n", seat + 1, seats[seat],
+                    100 * getWinRate(seat)));
+
+            return sb.toString();
+
+        }
+
+    }
+
+    /**
+     * Runs a batch of games from the command line:
+     *
+     *     GameSimulator games seed type...
+     *
+     * where each type names the computer player of one seat, for example
+     * "GameSimulator 10000 42 PLANNER PLANNER NAIVE".
+     *
+     * @param args
+     *          Number of games, seed, and the type of each seat.
+     * @throws Exception
+     *          Exception thrown if the properties or map cannot be loaded.
+     */
+    public static void main(String[] args) throws Exception {
+
+        if(args.length < 3) {
+
+            System.out.println("Usage: GameSimulator games seed type... (types: "
+                + Arrays.toString(AIType.values()) + ")");
+            return;
+
+        }
+
+        /* Load the properties and the map, as Main does. */
+        PropertiesManager props = PropertiesManager.getPropertiesManager();
+        props.addProperty(GameProperties.PROPERTIES_FILE_NAME, "properties.xml");
+        props.addProperty(GameProperties.SCHEMA_FILE_NAME, "properties_schema.xsd");
+        props.addProperty(GameProperties.DATA_PATH, "./data/");
+        props.loadProperties("properties.xml", "properties_schema.xsd");
+
+        int games = Integer.parseInt(args[0]);
+        long seed = Long.parseLong(args[1]);
+        AIType[] seats = new AIType[args.length - 2];
+        for(int seat = 0; seat < seats.length; seat++)
+            seats[seat] = AIType.valueOf(args[seat + 2].toUpperCase());
+
+        int maxPlayers = Integer.parseInt(props.getProperty(GameProperties.MAX_PLAYERS));
+        if(seats.length > maxPlayers) {
+
+            System.out.println("At most " + maxPlayers + " players may play.");
+            return;
+
+        }
+
+        GameSimulator simulator = new GameSimulator(FileLoader.loadGraph());
+        System.out.print(simulator.run(seats, games, seed,
+            Runtime.getRuntime().availableProcessors()));
+
+    }
+
+}
@@ -1,5 +1,6 @@
 package Journey.ui;
 
+import Journey.file.ImageRegistry;
 import Journey.game.CityNode;
 import Journey.game.GameProperties;
 import Journey.manager.GameManager;
@@ -102,8 +103,8 @@ class FlightCityNode extends ImageView {
         selStr = props.getProperty(GameProperties.RED_CITY_UNSELECTED);
         unselStr = props.getProperty(GameProperties.RED_CITY_SELECTED);
       
-        unselected = new Image(imgPath + selStr);
-        selected = new Image(imgPath + unselStr);
+        unselected = ImageRegistry.getImage(imgPath + selStr);
+        selected = ImageRegistry.getImage(imgPath + unselStr);
         
         setImage(unselected);
     
@@ -1,9 +1,8 @@
 package Journey.ui;
 
+import Journey.file.MapTiles;
 import Journey.game.CityNode;
-import Journey.game.Edge;
 import Journey.game.GameBoard;
-import Journey.game.GameData;
 import Journey.game.GameProperties;
 import Journey.game.Player;
 import Journey.manager.EventManager;
@@ -191,11 +190,11 @@ public class GamePlayPane extends BorderPane implements JourneyPane {
         String mapPath = imgPath + props.getProperty(GameProperties.MAP_GLOBAL_IMAGE);        
 
         /* Create the game board. */
-        gameBoard = new GameBoard(new Image(mapPath), this);
+        gameBoard = new GameBoard(MapTiles.getTiles(mapPath), this);
         
         /* Center Pane. */
         centerBox = new Pane();
-        centerBox.getChildren().add(gameBoard);
+        centerBox.getChildren().addAll(gameBoard, gameBoard.getLayer());
         setCenter(centerBox);
         
         /* Top Pane. */
@@ -261,10 +260,30 @@ public class GamePlayPane extends BorderPane implements JourneyPane {
         saveGameButton.setOnAction(e->{
             ui.getEventManager().respondToSaveGame();
         });
+        String undoPath = imgPath + props.getProperty(GameProperties.UNDO_IMAGE);
+        Image undoImage = new Image(undoPath);
+        ImageView undoIcon = new ImageView(undoImage);
+        undoIcon.setFitHeight(16);
+        undoIcon.setFitWidth(16);
+        Button undoButton = new Button("Undo", undoIcon);
+        undoButton.setPrefWidth(buttonWidth);
+        undoButton.setOnAction(e->{
+            eventManager.respondToUndo();
+        });
+        /* The redo icon is the undo icon, mirrored. */
+        ImageView redoIcon = new ImageView(undoImage);
+        redoIcon.setFitHeight(16);
+        redoIcon.setFitWidth(16);
+        redoIcon.setScaleX(-1);
+        Button redoButton = new Button("Redo", redoIcon);
+        redoButton.setPrefWidth(buttonWidth);
+        redoButton.setOnAction(e->{
+            eventManager.respondToRedo();
+        });
         rightBox.setPrefWidth(200);
         moveMessageLabel = new Label();
         moveMessageLabel.setStyle("-fx-font-size: 14; -fx-font-family: Arial;");
-        rightBox.getChildren().addAll(moveMessageLabel,dieBox, rollButton, aboutButton, portButton, flightButton, gameHistoryButton, saveGameButton, findPathButton);
+        rightBox.getChildren().addAll(moveMessageLabel,dieBox, rollButton, aboutButton, portButton, flightButton, gameHistoryButton, saveGameButton, findPathButton, undoButton, redoButton);
         setRight(rightBox);
         
         /* Left Pane. */
@@ -342,9 +361,9 @@ public class GamePlayPane extends BorderPane implements JourneyPane {
     public void setPlayers(ArrayList<Player> players) {
         
         /* Loop through players. */
+        gameBoard.clearPlayers();
         for (Player p : players) {
             
-            getChildren().add(p);   /* Add to this pane. */
             gameBoard.addPlayer(p); /* Add to the game board. */
             playerCardTrays.getChildren().add(p.getCardTray()); /* Add card tray to this pane */
             p.setEventManager(eventManager);    
@@ -362,21 +381,17 @@ public class GamePlayPane extends BorderPane implements JourneyPane {
     public void setCities(HashMap<String, CityNode> cities) {
         
         /* Loop through CityNodes */
+        gameBoard.clearCities();
         for (Map.Entry<String, CityNode> entry : cities.entrySet()) {
             
             CityNode c = entry.getValue();
-            getChildren().add(c); /* Add to this pane. */
-            gameBoard.addCity(c); /* Add to the game board. */
+            gameBoard.addCity(c); /* Add to the game board, with its edges. */
             c.setEventManager(eventManager);
             
-            /* Add all edges to this pane. */
-            for(Edge e : c.getEdges())
-                getChildren().add(e);
-            
         }
         
-        /* Add the indicator to this pane. */
-        getChildren().add(CityNode.indicator);
+        /* Add the indicator to the game board. */
+        gameBoard.setIndicator(CityNode.indicator);
         buildFlightPath();
         
     }
@@ -402,43 +417,6 @@ public class GamePlayPane extends BorderPane implements JourneyPane {
         
     }
 
-    public void drawPanes() {
-        
-        if (topBox != null) {
-            
-            setTop(null);
-            topBox.toFront();
-            setTop(topBox);
-            
-        }
-    
-        if(rightBox != null) {
-            
-            setRight(null);
-            rightBox.toFront();
-            setRight(rightBox);
-            
-        }
-        
-        if(leftBox != null) {
-            
-            setLeft(null);
-            leftBox.toFront();
-            setLeft(leftBox);
-            
-        }
-        
-        if(bottomBox != null) {
-        
-            setBottom(null);
-            bottomBox.toFront();
-            setBottom(bottomBox);
-        
-        }
-        
-    }
-
-    
     public double getCenterWidth() {
         
         if(centerBox == null)
@@ -519,29 +497,29 @@ public class GamePlayPane extends BorderPane implements JourneyPane {
     }
 
     /**
-     * Rolls the die on the screen to determine the number of cities a player
-     * can move.
+     * Rolls the die on the screen, coming to rest on the value rolled.
      * 
+     * @param p
+     *          Player who rolled the die.
+     * @param rollResult
+     *          The value rolled, from 1 to 6.
      * @return 
-     *          The value of the resulting die roll.
+     *          The animation of the die roll.
      */
-    public SequentialTransition rollDice(Player p, GameData d) {
+    public SequentialTransition rollDice(Player p, int rollResult) {
         
         if (p == null) return null;
         
         /* Clear the message label. */
         moveMessageLabel.setText("");
 
-        /* Declare and initialize the roll value. */
-        int rollValue = 0;
-        
         /* Create the sequential animation that will simulate a die roll. */
         SequentialTransition rollAnimation = new SequentialTransition();
         
         /* Add a series of fade transitions to simulate the roll. */
         for(int i = 0; i < 3; i++) {
             for(int j = 0; j < dieValues.length; j++) {
-                rollValue = (int)(Math.random()*6);
+                int rollValue = (int)(Math.random()*6);
                 final ImageView val = dieValues[rollValue];
                 FadeTransition fade = new FadeTransition(Duration.millis(100), val);
                 fade.setAutoReverse(false);
@@ -552,14 +530,12 @@ public class GamePlayPane extends BorderPane implements JourneyPane {
             }    
         }
         
-        /* Get the resultof the roll. */
-        final int rollResult = rollValue + 1;
+        /* Come to rest on the result of the roll. */
+        final ImageView result = dieValues[rollResult - 1];
         rollAnimation.setOnFinished(e->{
+            result.toFront();
             updateMoveMessage(rollResult);
         });
-
-        d.addTurn(p, null, null, "Rolled a " + rollResult);
-        p.addPoints(rollResult);
         
         /* Return the roll result. */
         return rollAnimation;
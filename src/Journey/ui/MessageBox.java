@@ -47,6 +47,49 @@ public class MessageBox extends Stage{
         
     }
     
+    /**
+     * Constructs a message asking a question, answered with Yes or No.
+     * 
+     * @param message
+     *          The question.
+     * @param onYes
+     *          Action run if the answer is Yes.
+     * @param onNo
+     *          Action run if the answer is No, or the message is closed.
+     */
+    public MessageBox(String message, Runnable onYes, Runnable onNo) {
+        
+        setTitle("Message");
+        
+        BorderPane bp = new BorderPane();
+        Label text = new Label(message);
+        text.setWrapText(true);
+        HBox buttonBox = new HBox(10);
+        buttonBox.setPadding(new Insets(10));
+        Button yesButton = new Button("Yes");
+        yesButton.setOnAction(e->{
+            setOnHidden(null);
+            close();
+            onYes.run();
+        });
+        Button noButton = new Button("No");
+        noButton.setOnAction(e->{
+            close();
+        });
+        setOnHidden(e->{
+            onNo.run();
+        });
+        buttonBox.getChildren().addAll(yesButton, noButton);
+        buttonBox.setAlignment(Pos.CENTER);
+        bp.setCenter(text);
+        bp.setBottom(buttonBox);
+        
+        Scene messageScene = new Scene(bp, 2 * WIDTH, HEIGHT);
+        messageScene.getStylesheets().add("Journey/style/messageBoxStyle.css");
+        setScene(messageScene);
+        
+    }
+    
     public static void showDialog(String message){
     
         MessageBox msg = new MessageBox(message);
@@ -54,4 +97,11 @@ public class MessageBox extends Stage{
         
     }
     
+    public static void showConfirm(String message, Runnable onYes, Runnable onNo){
+    
+        MessageBox msg = new MessageBox(message, onYes, onNo);
+        msg.show();
+        
+    }
+    
 }
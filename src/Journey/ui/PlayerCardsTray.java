@@ -123,22 +123,22 @@ public class PlayerCardsTray extends Pane {
         hand.add(card);
 
         /* Place the card in the center of the screen. */
-        double offsetX = city.getFrontImage().getWidth();
+        double offsetX = card.getFitWidth();
         offsetX = -(offsetX - offsetX * scale) / 2;
         offsetX += PREF_WIDTH;
         offsetX += ui.getGamePlayScreen().getCenterWidth()/2;
-        offsetX -= (city.getFrontImage().getWidth() * scale /2);
+        offsetX -= (card.getFitWidth() * scale /2);
         card.setLayoutX(offsetX);
         card.setLayoutY(0);
         card.setScaleX(scale);
         card.setScaleY(scale);
         
         /* Animate the card to its propert position */
-        double finalX = card.getImage().getWidth();
+        double finalX = card.getFitWidth();
         finalX = -(finalX - (finalX * scale))/2;
         finalX += paddingX;
         
-        double finalY = card.getImage().getHeight();
+        double finalY = card.getFitHeight();
         finalY = -(finalY - (finalY * scale))/2;
         finalY += paddingY;
         
@@ -221,7 +221,7 @@ public class PlayerCardsTray extends Pane {
         ft.setOnFinished(e->{        
             getChildren().remove(card);
             hand.remove(card);
-            player.getHand().remove(card.getCity());
+            player.removeFromHand(card.getCity());
             card.setRemoved(true);
         });
         return ft;